@@ -0,0 +1,163 @@
+package org.jenkinsci.plugins.sqlplus.script.runner.benchmark;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import org.jenkinsci.plugins.sqlplus.script.runner.FileUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import hudson.FilePath;
+
+/**
+ * Script and Oracle Home handling in {@link FileUtil}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xmx2g" })
+public class FileUtilBenchmark {
+
+	/**
+	 * Script file on disk, up to 1 GB, since the exit; check only reads its end.
+	 */
+	@State(Scope.Benchmark)
+	public static class ScriptFile {
+
+		@Param({ "1024", "1048576", "67108864", "1073741824" })
+		public long bytes;
+
+		@Param({ "true", "false" })
+		public boolean exit;
+
+		Path dir;
+
+		FilePath script;
+
+		@Setup(Level.Trial)
+		public void setUp() throws IOException {
+			dir = Files.createTempDirectory("sqlplus-jmh-");
+			Path file = dir.resolve("script.sql");
+			Synthetic.writeScript(file, bytes, exit);
+			script = new FilePath(file.toFile());
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() throws IOException {
+			Synthetic.delete(dir);
+		}
+	}
+
+	/**
+	 * Script read or built in memory, as user defined scripts are, so at most 64 MB.
+	 */
+	@State(Scope.Benchmark)
+	public static class ScriptContent {
+
+		@Param({ "1024", "1048576", "67108864" })
+		public int bytes;
+
+		Path dir;
+
+		String content;
+
+		FilePath workspace;
+
+		FilePath script;
+
+		long length;
+
+		@Setup(Level.Trial)
+		public void setUp() throws IOException {
+			dir = Files.createTempDirectory("sqlplus-jmh-");
+			content = Synthetic.script(bytes);
+			workspace = new FilePath(dir.toFile());
+			Path file = dir.resolve("script.sql");
+			Synthetic.writeScript(file, bytes, false);
+			script = new FilePath(file.toFile());
+			length = Files.size(file);
+		}
+
+		/**
+		 * Take the exit; added by the last call away again, so every call sees the same script.
+		 */
+		@Setup(Level.Invocation)
+		public void truncate() throws IOException {
+			try (FileChannel channel = FileChannel.open(dir.resolve("script.sql"), StandardOpenOption.WRITE)) {
+				channel.truncate(length);
+			}
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() throws IOException {
+			Synthetic.delete(dir);
+		}
+	}
+
+	/**
+	 * Oracle Home with 1k to 100k files.
+	 */
+	@State(Scope.Benchmark)
+	public static class OracleHome {
+
+		@Param({ "1000", "10000", "100000" })
+		public int files;
+
+		@Param({ "sqlplus", "missing" })
+		public String name;
+
+		Path home;
+
+		@Setup(Level.Trial)
+		public void setUp() throws IOException {
+			home = Files.createTempDirectory("sqlplus-jmh-home-");
+			Synthetic.oracleHome(home, files);
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() throws IOException {
+			Synthetic.delete(home);
+		}
+	}
+
+	@Benchmark
+	public boolean hasExitCode(ScriptFile state) throws IOException, InterruptedException {
+		return FileUtil.hasExitCode(state.script);
+	}
+
+	@Benchmark
+	public FilePath addExitInTheEnd(ScriptContent state) throws IOException, InterruptedException {
+		FileUtil.addExitInTheEnd(state.script);
+		return state.script;
+	}
+
+	@Benchmark
+	public boolean createTempScript(ScriptContent state) throws IOException, InterruptedException {
+		// temporary scripts are created on the agent side, so no build is needed
+		FilePath script = FileUtil.createTempScript(null, state.workspace, state.content, true);
+		return script.delete();
+	}
+
+	@Benchmark
+	@SuppressWarnings("deprecation")
+	public boolean findFile(OracleHome state) {
+		return FileUtil.findFile(state.name, state.home.toFile());
+	}
+
+}
@@ -0,0 +1,142 @@
+package org.jenkinsci.plugins.sqlplus.script.runner.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.jenkinsci.plugins.sqlplus.script.runner.ExecutionResult;
+import org.jenkinsci.plugins.sqlplus.script.runner.FileUtil;
+import org.jenkinsci.plugins.sqlplus.script.runner.NodeContext;
+import org.jenkinsci.plugins.sqlplus.script.runner.NodeDiscovery;
+import org.jenkinsci.plugins.sqlplus.script.runner.OutputFilters;
+import org.jenkinsci.plugins.sqlplus.script.runner.OutputSettings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import hudson.FilePath;
+
+/**
+ * What SQLPlusRunner does around SQL*Plus, without a database: resolving the node, preparing
+ * the scripts and passing the output through the filters.
+ *
+ * A whole SQLPlusRunner needs a Jenkins build, so its steps are measured one by one, as they run on the node.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RunnerSetupBenchmark {
+
+	private static final int OUTPUT_LINES = 10000;
+
+	@State(Scope.Benchmark)
+	public static class Node {
+
+		@Param({ "1000", "10000", "100000" })
+		public int files;
+
+		Path home;
+
+		Path workspace;
+
+		NodeContext discovered;
+
+		@Setup(Level.Trial)
+		public void setUp() throws IOException {
+			home = Files.createTempDirectory("sqlplus-jmh-home-");
+			Synthetic.oracleHome(home, files);
+			workspace = Files.createTempDirectory("sqlplus-jmh-ws-");
+			Synthetic.writeScript(workspace.resolve("script.sql"), 64 * 1024, true);
+			discovered = discover(null);
+		}
+
+		NodeContext discover(NodeContext cached) throws IOException {
+			return new NodeDiscovery(home.toString(), null, null, workspace.toString(), "script.sql",
+					cached == null ? null : cached.getDiscovery()).call();
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() throws IOException {
+			Synthetic.delete(home);
+			Synthetic.delete(workspace);
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class Output {
+
+		@Param({ "false", "true" })
+		public boolean filters;
+
+		OutputSettings settings;
+
+		byte[] output;
+
+		FilePath workspace;
+
+		Path dir;
+
+		@Setup(Level.Trial)
+		public void setUp() throws IOException {
+			settings = new OutputSettings(Collections.singletonList("WARNING"), false, filters ? 60 : 0,
+					filters ? 10 : 0, false, 0, null, filters, filters);
+			StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < OUTPUT_LINES; i++) {
+				sb.append("SQL> update t set name = 'row ").append(i).append("' where id = ").append(i).append(";\n")
+						.append("\n1 row updated.\n\nElapsed: 00:00:00.01\n");
+			}
+			output = sb.toString().getBytes(StandardCharsets.UTF_8);
+			dir = Files.createTempDirectory("sqlplus-jmh-ws-");
+			workspace = new FilePath(dir.toFile());
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() throws IOException {
+			Synthetic.delete(dir);
+		}
+	}
+
+	@Benchmark
+	public NodeContext discovery(Node node) throws IOException {
+		return node.discover(null);
+	}
+
+	@Benchmark
+	public NodeContext cachedDiscovery(Node node) throws IOException {
+		return node.discover(node.discovered);
+	}
+
+	@Benchmark
+	public boolean driverScript(Output state) throws IOException, InterruptedException {
+		String settings = state.filters ? state.dir.resolve("settings.sql").toString() : null;
+		FilePath driver = FileUtil.createDriverScript(null, state.workspace,
+				FileUtil.driver(FileUtil.call(state.dir.resolve("script.sql").toString()), state.filters, settings, true),
+				true);
+		return driver.delete();
+	}
+
+	@Benchmark
+	public ExecutionResult outputFilters(Output state) throws IOException {
+		try (OutputFilters filters = state.settings.open(OutputStream.nullOutputStream(), null, StandardCharsets.UTF_8)) {
+			filters.getOutput().write(state.output);
+			return filters.finish(0);
+		}
+	}
+
+}
@@ -0,0 +1,102 @@
+package org.jenkinsci.plugins.sqlplus.script.runner.benchmark;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Synthetic scripts and Oracle Homes for the benchmarks, so no Oracle installation is needed.
+ */
+final class Synthetic {
+
+	static final String EXIT = "exit;\n";
+
+	private static final int FILES_PER_DIR = 100;
+
+	private static final int BUFFER_SIZE = 1024 * 1024;
+
+	private Synthetic() {
+	}
+
+	/**
+	 * @param bytes - script size, at least
+	 * @return lines of inserts
+	 */
+	static String script(int bytes) {
+		StringBuilder sb = new StringBuilder(bytes + 64);
+		for (int i = 0; sb.length() < bytes; i++) {
+			sb.append("insert into t (id, name) values (").append(i).append(", 'row ").append(i).append("');\n");
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Write a script without building it in memory, for sizes a String cannot hold.
+	 *
+	 * @param file  - script file
+	 * @param bytes - script size, at least
+	 * @param exit  - end the script with exit;
+	 */
+	static void writeScript(Path file, long bytes, boolean exit) throws IOException {
+		try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE)) {
+			long written = 0;
+			for (long i = 0; written < bytes; i++) {
+				byte[] line = ("insert into t (id, name) values (" + i + ", 'row " + i + "');\n")
+						.getBytes(StandardCharsets.UTF_8);
+				out.write(line);
+				written += line.length;
+			}
+			if (exit) {
+				out.write(EXIT.getBytes(StandardCharsets.UTF_8));
+			}
+		}
+	}
+
+	/**
+	 * Oracle Home with bin/sqlplus, network/admin/tnsnames.ora and other files in
+	 * directories searched by discovery, {@value #FILES_PER_DIR} per directory.
+	 *
+	 * @param home  - Oracle Home, created
+	 * @param files - how many other files
+	 */
+	static void oracleHome(Path home, int files) throws IOException {
+		Path bin = Files.createDirectories(home.resolve("bin"));
+		Files.createFile(bin.resolve("sqlplus"));
+		Path admin = Files.createDirectories(home.resolve("network").resolve("admin"));
+		Files.createFile(admin.resolve("tnsnames.ora"));
+		for (int i = 0; i < files; i++) {
+			Path dir = home.resolve("product").resolve("lib" + i / (FILES_PER_DIR * FILES_PER_DIR))
+					.resolve("dir" + i / FILES_PER_DIR % FILES_PER_DIR);
+			if (i % FILES_PER_DIR == 0) {
+				Files.createDirectories(dir);
+			}
+			Files.createFile(dir.resolve("file" + i + ".so"));
+		}
+	}
+
+	static void delete(Path dir) throws IOException {
+		if (dir == null || !Files.exists(dir)) {
+			return;
+		}
+		Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				Files.delete(file);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult postVisitDirectory(Path d, IOException e) throws IOException {
+				Files.delete(d);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+}
@@ -0,0 +1,156 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import hudson.remoting.Channel;
+import hudson.remoting.VirtualChannel;
+import jenkins.security.MasterToSlaveCallable;
+
+/**
+ * Start a {@link NodeExecution} on the node and return at once. A thread of the node waits for SQL*Plus,
+ * then calls back to the controller, so no controller thread is held while the script runs.
+ *
+ * When the channel to the node closes first, the callback fails with the cause, as the node can no longer call it.
+ */
+public class AsyncNodeExecution extends MasterToSlaveCallable<AsyncNodeExecution.Handle, IOException> {
+
+	private static final long serialVersionUID = 2905517436718264083L;
+
+	private static final String THREAD_NAME = "SQLPlus Script Runner";
+
+	/**
+	 * Gets the outcome of the run, called from the node once.
+	 */
+	public interface Callback {
+
+		void done(ExecutionResult result);
+
+		void failed(Throwable cause);
+	}
+
+	/**
+	 * Stops the run, which then fails with an {@link java.io.InterruptedIOException}.
+	 */
+	public interface Handle {
+
+		void stop();
+	}
+
+	private final NodeExecution execution;
+
+	private final Callback callback;
+
+	private AsyncNodeExecution(NodeExecution execution, Callback callback) {
+		this.execution = execution;
+		this.callback = callback;
+	}
+
+	/**
+	 * @param channel   - node channel
+	 * @param execution - SQL*Plus run
+	 * @param callback  - gets the outcome, on the controller
+	 * @return stops the run
+	 */
+	public static Handle start(VirtualChannel channel, NodeExecution execution, Callback callback)
+			throws IOException, InterruptedException {
+		if (!(channel instanceof Channel)) {
+			return channel.call(new AsyncNodeExecution(execution, callback));
+		}
+		ChannelCallback local = new ChannelCallback((Channel) channel, callback);
+		try {
+			return channel.call(new AsyncNodeExecution(execution, ((Channel) channel).export(Callback.class, local)));
+		} catch (IOException | InterruptedException | RuntimeException e) {
+			local.forget();
+			throw e;
+		}
+	}
+
+	@Override
+	public Handle call() {
+		Thread thread = new Thread(this::run, THREAD_NAME);
+		thread.setDaemon(true);
+		thread.start();
+		Handle handle = thread::interrupt;
+		Channel channel = Channel.current();
+		return channel == null ? handle : channel.export(Handle.class, handle);
+	}
+
+	private void run() {
+		ExecutionResult result;
+		try {
+			result = execution.call();
+		} catch (Throwable e) {
+			// the step waits for a call back, whatever went wrong
+			failed(e);
+			return;
+		}
+		try {
+			callback.done(result);
+		} catch (RuntimeException e) {
+			// the channel closed meanwhile, the controller fails the step itself
+		}
+	}
+
+	private void failed(Throwable cause) {
+		try {
+			callback.failed(cause);
+		} catch (RuntimeException e) {
+			// the channel closed meanwhile, the controller fails the step itself
+		}
+	}
+
+	/**
+	 * Calls back once on the controller: with the outcome sent by the node, or with the cause the channel closed.
+	 */
+	private static final class ChannelCallback extends Channel.Listener implements Callback {
+
+		private final Channel channel;
+
+		private final Callback callback;
+
+		private final AtomicBoolean called = new AtomicBoolean();
+
+		private ChannelCallback(Channel channel, Callback callback) {
+			this.channel = channel;
+			this.callback = callback;
+			channel.addListener(this);
+			if (channel.isClosingOrClosed()) {
+				onClosed(channel, null);
+			}
+		}
+
+		@Override
+		public void done(ExecutionResult result) {
+			if (forget()) {
+				callback.done(result);
+			}
+		}
+
+		@Override
+		public void failed(Throwable cause) {
+			if (forget()) {
+				callback.failed(cause);
+			}
+		}
+
+		@Override
+		public void onClosed(Channel channel, IOException cause) {
+			if (forget()) {
+				callback.failed(cause != null ? cause : new IOException(Messages.SQLPlusStep_channelClosed(channel.getName())));
+			}
+		}
+
+		/**
+		 * @return true the first time, when the callback is still to be called
+		 */
+		private boolean forget() {
+			if (!called.compareAndSet(false, true)) {
+				return false;
+			}
+			channel.removeListener(this);
+			return true;
+		}
+	}
+
+}
@@ -0,0 +1,222 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import hudson.FilePath;
+import hudson.console.LineTransformationOutputStream;
+
+/**
+ * A list of file scripts run by one SQL*Plus process through a generated driver script.
+ *
+ * The driver stops at the first error and prints a progress marker before every script,
+ * so {@link Progress} knows which script was running when SQL*Plus ended. A script ending
+ * with exit; would end the whole batch, so such scripts are rejected before it runs.
+ */
+public class BatchScript {
+
+	static final String MARKER = "SQLPlus Script Runner batch";
+
+	private static final String DONE = "done";
+
+	private static final Pattern PROGRESS = Pattern.compile(Pattern.quote(MARKER) + " (\\d+)/(\\d+): (.*)");
+
+	private static final String EOL = "\n";
+
+	private static final String STOP_ON_ERROR = "WHENEVER SQLERROR EXIT FAILURE" + EOL
+			+ "WHENEVER OSERROR EXIT FAILURE" + EOL;
+
+	private static final String TERMOUT_ON = "SET TERMOUT ON" + EOL;
+
+	private static final String PROMPT = "PROMPT ";
+
+	private static final String EXIT = "exit;";
+
+	private static final Pattern SQLPLUS_EXIT = Pattern.compile("^(exit|quit)\\b.*", Pattern.CASE_INSENSITIVE);
+
+	private static final Pattern COMMENT = Pattern.compile("^(--|rem\\b|remark\\b).*", Pattern.CASE_INSENSITIVE);
+
+	private BatchScript() {
+	}
+
+	/**
+	 * Resolve a list of scripts, one per line or separated by commas. Entries with * or ? are
+	 * Ant-style globs and expand to their matches, sorted by path.
+	 *
+	 * @param base    - directory the entries are relative to
+	 * @param scripts - script list
+	 * @return scripts in run order
+	 * @throws IOException when a script does not exist or a glob matches nothing
+	 */
+	public static List<FilePath> resolve(FilePath base, String scripts) throws IOException, InterruptedException {
+
+		List<FilePath> resolved = new ArrayList<>();
+		for (String entry : split(scripts)) {
+			if (entry.indexOf('*') >= 0 || entry.indexOf('?') >= 0) {
+				FilePath[] matches = base.list(entry);
+				if (matches.length == 0) {
+					throw new IOException(Messages.SQLPlusRunner_noBatchScripts(entry));
+				}
+				Arrays.sort(matches, Comparator.comparing(FilePath::getRemote));
+				resolved.addAll(Arrays.asList(matches));
+			} else {
+				FilePath script = new FilePath(base, entry);
+				if (!script.exists()) {
+					throw new IOException(Messages.SQLPlusRunner_missingScript(script.getRemote()));
+				}
+				resolved.add(script);
+			}
+		}
+		if (resolved.isEmpty()) {
+			throw new IOException(Messages.SQLPlusRunner_noBatchScripts(scripts));
+		}
+		return resolved;
+	}
+
+	static List<String> split(String scripts) {
+		List<String> entries = new ArrayList<>();
+		if (scripts != null) {
+			for (String entry : scripts.split("[,\\r\\n]+")) {
+				if (!entry.trim().isEmpty()) {
+					entries.add(entry.trim());
+				}
+			}
+		}
+		return entries;
+	}
+
+	/**
+	 * @param script - script of the batch
+	 * @throws IOException when the script ends with exit or quit, which would end the batch
+	 */
+	public static void checkNoExit(FilePath script) throws IOException, InterruptedException {
+		if (endsWithExit(script.readToString())) {
+			throw new IOException(Messages.SQLPlusRunner_batchScriptExits(script.getRemote()));
+		}
+	}
+
+	/**
+	 * @param content - script content
+	 * @return true if the last command of the script, ignoring comments, is exit or quit
+	 */
+	public static boolean endsWithExit(String content) {
+		String[] lines = content.split("\\r?\\n");
+		for (int i = lines.length - 1; i >= 0; i--) {
+			String line = lines[i].trim();
+			if (line.isEmpty() || COMMENT.matcher(line).matches()) {
+				continue;
+			}
+			return SQLPLUS_EXIT.matcher(line).matches();
+		}
+		return false;
+	}
+
+	/**
+	 * Generate the driver script.
+	 *
+	 * @param scripts - script paths on the node, in run order
+	 * @param exit    - end with exit;, false for pooled sessions
+	 * @return driver script content
+	 */
+	public static String driver(List<String> scripts, boolean exit) {
+
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < scripts.size(); i++) {
+			// scripts may change these, so set them again before each one
+			sb.append(STOP_ON_ERROR).append(TERMOUT_ON);
+			sb.append(PROMPT).append(MARKER).append(' ').append(i + 1).append('/').append(scripts.size()).append(": ")
+					.append(scripts.get(i)).append(EOL);
+			sb.append(MessageUtil.AT).append(MessageUtil.DOUBLE_QUOTES).append(scripts.get(i))
+					.append(MessageUtil.DOUBLE_QUOTES).append(EOL);
+		}
+		sb.append(TERMOUT_ON).append(PROMPT).append(MARKER).append(' ').append(DONE).append(EOL);
+		if (exit) {
+			sb.append(EXIT).append(EOL);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Copies SQL*Plus output and follows the progress markers of the driver script.
+	 */
+	public static class Progress extends LineTransformationOutputStream {
+
+		private final OutputStream out;
+
+		private final Charset charset;
+
+		private String current;
+
+		private int index;
+
+		private int total;
+
+		private boolean done;
+
+		public Progress(OutputStream out, Charset charset) {
+			this.out = out;
+			this.charset = charset;
+		}
+
+		@Override
+		protected void eol(byte[] b, int len) throws IOException {
+			String line = trimEOL(new String(b, 0, len, charset));
+			if (line.endsWith(MARKER + ' ' + DONE)) {
+				done = true;
+				current = null;
+			} else {
+				Matcher matcher = PROGRESS.matcher(line);
+				if (matcher.find()) {
+					index = Integer.parseInt(matcher.group(1));
+					total = Integer.parseInt(matcher.group(2));
+					current = matcher.group(3);
+				}
+			}
+			out.write(b, 0, len);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			out.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			super.close();
+			out.flush();
+		}
+
+		/**
+		 * @return script running when the output ended, or null
+		 */
+		public String getCurrent() {
+			return current;
+		}
+
+		/**
+		 * @return position of the current script, starting at 1
+		 */
+		public int getIndex() {
+			return index;
+		}
+
+		public int getTotal() {
+			return total;
+		}
+
+		/**
+		 * @return true if every script ran
+		 */
+		public boolean isDone() {
+			return done;
+		}
+	}
+
+}
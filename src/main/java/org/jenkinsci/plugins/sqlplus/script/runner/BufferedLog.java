@@ -0,0 +1,105 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffer in front of the build log on a node, so SQL*Plus output crosses the remoting
+ * channel in a few large chunks instead of one message per line.
+ *
+ * The buffer is sent when it is full, when it is older than the flush interval, or when
+ * it is flushed, which the error scanner does for every error line.
+ */
+public class BufferedLog extends OutputStream {
+
+	public static final int DEFAULT_SIZE = 64 * 1024;
+
+	public static final long DEFAULT_INTERVAL_MILLIS = 500;
+
+	private final OutputStream out;
+
+	private final byte[] buffer;
+
+	private int count;
+
+	private ScheduledFuture<?> timer;
+
+	/**
+	 * @param out  - build log
+	 * @param size - buffer size
+	 */
+	public BufferedLog(OutputStream out, int size) {
+		this.out = out;
+		this.buffer = new byte[size];
+	}
+
+	/**
+	 * Send the buffer at a fixed interval while output is slow.
+	 *
+	 * @param scheduler - runs the timer
+	 * @param millis    - flush interval
+	 */
+	public synchronized void start(ScheduledExecutorService scheduler, long millis) {
+		timer = scheduler.scheduleWithFixedDelay(() -> {
+			try {
+				flushPending();
+			} catch (IOException e) {
+				// the build log is gone, SQL*Plus output is lost as it would be without the buffer
+			}
+		}, millis, millis, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public synchronized void write(int b) throws IOException {
+		if (count == buffer.length) {
+			send();
+		}
+		buffer[count++] = (byte) b;
+	}
+
+	@Override
+	public synchronized void write(byte[] b, int off, int len) throws IOException {
+		if (len >= buffer.length) {
+			send();
+			out.write(b, off, len);
+			return;
+		}
+		if (len > buffer.length - count) {
+			send();
+		}
+		System.arraycopy(b, off, buffer, count, len);
+		count += len;
+	}
+
+	@Override
+	public synchronized void flush() throws IOException {
+		send();
+		out.flush();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (timer != null) {
+			timer.cancel(false);
+			timer = null;
+		}
+		flush();
+	}
+
+	private synchronized void flushPending() throws IOException {
+		if (count > 0) {
+			flush();
+		}
+	}
+
+	private void send() throws IOException {
+		if (count > 0) {
+			out.write(buffer, 0, count);
+			count = 0;
+		}
+	}
+
+}
@@ -0,0 +1,81 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.io.File;
+import java.io.Serializable;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Locations of SQL*Plus and TNSNAMES.ORA found on a node.
+ */
+public class Discovery implements Serializable {
+
+	private static final long serialVersionUID = 2417640231949418311L;
+
+	private final String sqlPlus;
+
+	private final String tnsNames;
+
+	private final Map<String, Long> timestamps;
+
+	public Discovery(Path sqlPlus, Path tnsNames, Map<String, Long> timestamps) {
+		this.sqlPlus = sqlPlus == null ? null : sqlPlus.toString();
+		this.tnsNames = tnsNames == null ? null : tnsNames.toString();
+		this.timestamps = Collections.unmodifiableMap(new HashMap<>(timestamps));
+	}
+
+	/**
+	 * @return SQL*Plus executable found, or null
+	 */
+	public String getSqlPlus() {
+		return sqlPlus;
+	}
+
+	/**
+	 * @return directory holding SQL*Plus, or null
+	 */
+	public String getSqlPlusDir() {
+		return sqlPlus == null ? null : new File(sqlPlus).getParent();
+	}
+
+	/**
+	 * @return TNSNAMES.ORA found, or null
+	 */
+	public String getTnsNames() {
+		return tnsNames;
+	}
+
+	/**
+	 * @return directory holding TNSNAMES.ORA, the value for TNS_ADMIN, or null
+	 */
+	public String getTnsNamesDir() {
+		return tnsNames == null ? null : new File(tnsNames).getParent();
+	}
+
+	/**
+	 * @return last modified time of every scanned directory
+	 */
+	public Map<String, Long> getTimestamps() {
+		return timestamps;
+	}
+
+	/**
+	 * A discovery is stale when a file found is gone or any scanned directory was modified after the scan.
+	 *
+	 * @return true if the discovery must be done again
+	 */
+	public boolean isStale() {
+		if ((sqlPlus != null && !new File(sqlPlus).exists()) || (tnsNames != null && !new File(tnsNames).exists())) {
+			return true;
+		}
+		for (Map.Entry<String, Long> entry : timestamps.entrySet()) {
+			if (new File(entry.getKey()).lastModified() != entry.getValue()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
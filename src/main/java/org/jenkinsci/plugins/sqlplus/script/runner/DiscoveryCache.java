@@ -0,0 +1,119 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per node cache of {@link Discovery} results, keyed by ORACLE_HOME, SQLPATH and TNS_ADMIN,
+ * and of {@link SQLPlusVersion} results, keyed by ORACLE_HOME and SQL*Plus executable.
+ */
+public class DiscoveryCache {
+
+	private static final Map<Key, Discovery> CACHE = new ConcurrentHashMap<>();
+
+	private static final Map<Key, VersionEntry> VERSIONS = new ConcurrentHashMap<>();
+
+	private DiscoveryCache() {
+	}
+
+	/**
+	 * Get a previous discovery. It is not validated here, {@link NodeDiscovery} checks it on the node.
+	 *
+	 * @param node       - node name
+	 * @param oracleHome - Oracle Home
+	 * @param sqlPath    - custom SQLPATH
+	 * @param tnsAdmin   - custom TNS_ADMIN
+	 * @return cached discovery, or null
+	 */
+	public static Discovery get(String node, String oracleHome, String sqlPath, String tnsAdmin) {
+		return CACHE.get(new Key(node, oracleHome, sqlPath, tnsAdmin));
+	}
+
+	public static void put(String node, String oracleHome, String sqlPath, String tnsAdmin, Discovery discovery) {
+		CACHE.put(new Key(node, oracleHome, sqlPath, tnsAdmin), discovery);
+	}
+
+	/**
+	 * Get a previous version probe, if the executable was not changed since.
+	 *
+	 * @param node       - node name
+	 * @param oracleHome - Oracle Home
+	 * @param sqlPlus    - SQL*Plus executable
+	 * @param timestamp  - last modified time of the executable, read on the node
+	 * @return cached version, or null
+	 */
+	public static SQLPlusVersion getVersion(String node, String oracleHome, String sqlPlus, long timestamp) {
+
+		Key key = new Key(node, oracleHome, sqlPlus);
+		VersionEntry entry = VERSIONS.get(key);
+		if (entry == null) {
+			return null;
+		}
+		if (timestamp != entry.timestamp) {
+			VERSIONS.remove(key, entry);
+			return null;
+		}
+		return entry.version;
+	}
+
+	public static void putVersion(String node, String oracleHome, String sqlPlus, long timestamp,
+			SQLPlusVersion version) {
+		VERSIONS.put(new Key(node, oracleHome, sqlPlus), new VersionEntry(version, timestamp));
+	}
+
+	/**
+	 * Forget everything discovered on a node.
+	 *
+	 * @param node node name
+	 */
+	public static void invalidate(String node) {
+		String name = Objects.toString(node, "");
+		CACHE.keySet().removeIf(key -> key.node.equals(name));
+		VERSIONS.keySet().removeIf(key -> key.node.equals(name));
+	}
+
+	public static void clear() {
+		CACHE.clear();
+		VERSIONS.clear();
+	}
+
+	private static final class Key {
+
+		private final String node;
+		private final String[] values;
+
+		private Key(String node, String... values) {
+			this.node = Objects.toString(node, "");
+			this.values = values;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o)
+				return true;
+			if (!(o instanceof Key))
+				return false;
+			Key other = (Key) o;
+			return node.equals(other.node) && Arrays.equals(values, other.values);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * node.hashCode() + Arrays.hashCode(values);
+		}
+	}
+
+	private static final class VersionEntry {
+
+		private final SQLPlusVersion version;
+		private final long timestamp;
+
+		private VersionEntry(SQLPlusVersion version, long timestamp) {
+			this.version = version;
+			this.timestamp = timestamp;
+		}
+	}
+
+}
@@ -0,0 +1,27 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import hudson.Extension;
+import hudson.model.Computer;
+import hudson.model.TaskListener;
+import hudson.slaves.ComputerListener;
+import hudson.slaves.OfflineCause;
+
+/**
+ * Drops cached discoveries of a node when it connects or disconnects,
+ * and closes its pooled sessions when it disconnects.
+ */
+@Extension
+public class DiscoveryCacheListener extends ComputerListener {
+
+	@Override
+	public void onOnline(Computer c, TaskListener listener) {
+		DiscoveryCache.invalidate(c.getName());
+	}
+
+	@Override
+	public void onOffline(Computer c, OfflineCause cause) {
+		DiscoveryCache.invalidate(c.getName());
+		SessionPool.invalidate(c.getName());
+	}
+
+}
@@ -0,0 +1,394 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import hudson.EnvVars;
+import hudson.Launcher;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import hudson.util.ArgumentListBuilder;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Start SQL*Plus on a Unix node detached from the agent, like durable-task runs shell steps: a wrapper script
+ * writes the output, the process id, a heartbeat and the exit code into a control directory, which the
+ * controller reads back with {@link Poll} and {@link Outcome}. SQL*Plus keeps running while the controller
+ * restarts or the agent reconnects.
+ */
+public class DurableExecution extends MasterToSlaveFileCallable<Void> {
+
+	private static final long serialVersionUID = 5128734092837465011L;
+
+	private static final String WRAPPER = "run.sh";
+
+	private static final String INPUT = "input";
+
+	private static final String OUTPUT = "output.log";
+
+	private static final String PID = "pid";
+
+	private static final String HEARTBEAT = "heartbeat";
+
+	private static final String EXIT_STATUS = "exit-status";
+
+	private static final String OFFSET = "offset";
+
+	/**
+	 * Longest time without heartbeat before SQL*Plus is taken for gone, like after a reboot of the node.
+	 */
+	private static final long HEARTBEAT_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+	/**
+	 * Most output copied to the console by one poll.
+	 */
+	private static final int MAX_CHUNK = 1024 * 1024;
+
+	private static final String WRAPPER_SCRIPT = String.join("\n",
+			"#!/bin/sh",
+			"# SQL*Plus started by the SQLPlus Script Runner, running on when Jenkins restarts",
+			"control=\"$1\"",
+			"shift",
+			"input=/dev/null",
+			"if [ -f \"$control/" + INPUT + "\" ]; then input=\"$control/" + INPUT + "\"; fi",
+			"\"$@\" > \"$control/" + OUTPUT + "\" 2>&1 < \"$input\" &",
+			"pid=$!",
+			"echo $pid > \"$control/" + PID + "\"",
+			"( while kill -0 $pid 2> /dev/null; do touch \"$control/" + HEARTBEAT + "\"; sleep 3; done ) &",
+			"wait $pid",
+			"echo $? > \"$control/" + EXIT_STATUS + ".tmp\"",
+			"mv \"$control/" + EXIT_STATUS + ".tmp\" \"$control/" + EXIT_STATUS + "\"",
+			"");
+
+	// the wrapper runs in the background without terminal, so it outlives the agent
+	private static final String DETACH = "nohup sh \"$0\" \"$@\" > /dev/null 2>&1 &";
+
+	private final ArgumentListBuilder args;
+
+	private final EnvVars envs;
+
+	private final String pwd;
+
+	private final byte[] input;
+
+	/**
+	 * @param args  - SQL*Plus command line
+	 * @param envs  - environment
+	 * @param pwd   - working directory on the node
+	 * @param input - standard input, or null
+	 */
+	public DurableExecution(ArgumentListBuilder args, EnvVars envs, String pwd, byte[] input) {
+		this.args = args;
+		this.envs = envs;
+		this.pwd = pwd;
+		this.input = input;
+	}
+
+	@Override
+	public Void invoke(File control, VirtualChannel channel) throws IOException, InterruptedException {
+
+		File wrapper = new File(control, WRAPPER);
+		Files.write(wrapper.toPath(), WRAPPER_SCRIPT.getBytes(StandardCharsets.US_ASCII));
+		if (input != null) {
+			Files.write(new File(control, INPUT).toPath(), input);
+		}
+
+		ArgumentListBuilder detach = new ArgumentListBuilder("sh", "-c", DETACH, wrapper.getPath(), control.getPath());
+		List<String> values = args.toList();
+		boolean[] masks = args.toMaskArray();
+		for (int i = 0; i < values.size(); i++) {
+			detach.add(values.get(i), masks[i]);
+		}
+		int exitCode = new Launcher.LocalLauncher(TaskListener.NULL).launch().cmds(detach).envs(envs).pwd(pwd)
+				.stdout(OutputStream.nullOutputStream()).quiet(true).join();
+		if (exitCode != 0) {
+			throw new IOException(Messages.DurableExecution_notStarted(exitCode));
+		}
+		return null;
+	}
+
+	/**
+	 * @param control - control directory
+	 * @return output already copied to the console, kept on the node to resume from after a restart
+	 */
+	private static long readOffset(File control) throws IOException {
+		File file = new File(control, OFFSET);
+		if (!file.isFile()) {
+			return 0;
+		}
+		try {
+			return Long.parseLong(new String(Files.readAllBytes(file.toPath()), StandardCharsets.US_ASCII).trim());
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	private static void writeOffset(File control, long offset) throws IOException {
+		File temp = new File(control, OFFSET + ".tmp");
+		Files.write(temp.toPath(), Long.toString(offset).getBytes(StandardCharsets.US_ASCII));
+		Files.move(temp.toPath(), new File(control, OFFSET).toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * @param control - control directory
+	 * @return exit code, or null while SQL*Plus runs
+	 */
+	private static Integer exitCode(File control) throws IOException {
+		File status = new File(control, EXIT_STATUS);
+		if (!status.isFile()) {
+			return null;
+		}
+		try {
+			return Integer.valueOf(new String(Files.readAllBytes(status.toPath()), StandardCharsets.US_ASCII).trim());
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Copy the output written since the last poll to the console, and tell how SQL*Plus is doing.
+	 */
+	public static final class Poll extends MasterToSlaveFileCallable<Status> {
+
+		private static final long serialVersionUID = 2281956340176425873L;
+
+		private final long offset;
+
+		private final boolean console;
+
+		private final List<String> errorPatterns;
+
+		private final TaskListener listener;
+
+		/**
+		 * @param offset        - output already read
+		 * @param console       - copy the output to the console
+		 * @param errorPatterns - count the errors of the output, when failing fast, or null
+		 * @param listener      - build listener
+		 */
+		public Poll(long offset, boolean console, List<String> errorPatterns, TaskListener listener) {
+			this.offset = offset;
+			this.console = console;
+			this.errorPatterns = errorPatterns == null ? null : new ArrayList<>(errorPatterns);
+			this.listener = listener;
+		}
+
+		@Override
+		public Status invoke(File control, VirtualChannel channel) throws IOException {
+
+			// read before the length, so the whole output is read once the exit code is known
+			Integer exitCode = exitCode(control);
+			File output = new File(control, OUTPUT);
+			long length = output.length();
+			// the controller may have lost the offset it read up to, like when it restarted before saving it
+			long from = Math.max(offset, readOffset(control));
+			long end = from;
+			int errors = 0;
+			if (length > from) {
+				byte[] chunk = new byte[(int) Math.min(length - from, MAX_CHUNK)];
+				try (RandomAccessFile file = new RandomAccessFile(output, "r")) {
+					file.seek(from);
+					file.readFully(chunk);
+				}
+				int size = chunk.length;
+				if (exitCode == null || from + size < length) {
+					// whole lines only, the rest comes with the next poll
+					int last = size - 1;
+					while (last >= 0 && chunk[last] != '\n') {
+						last--;
+					}
+					if (last >= 0 || size < MAX_CHUNK) {
+						size = last + 1;
+					}
+				}
+				if (console) {
+					listener.getLogger().write(chunk, 0, size);
+					listener.getLogger().flush();
+				}
+				if (errorPatterns != null) {
+					ErrorScanner scanner = new ErrorScanner(OutputStream.nullOutputStream(), Charset.defaultCharset(), errorPatterns);
+					scanner.write(chunk, 0, size);
+					scanner.close();
+					errors = scanner.getCount();
+				}
+				end = from + size;
+				writeOffset(control, end);
+			}
+
+			long now = System.currentTimeMillis();
+			long started = new File(control, WRAPPER).lastModified();
+			long lastOutput = output.exists() ? output.lastModified() : started;
+			long heartbeat = Math.max(new File(control, HEARTBEAT).lastModified(), started);
+			boolean alive = exitCode != null || now - heartbeat < HEARTBEAT_TIMEOUT_MILLIS;
+			return new Status(end, end < length, exitCode, errors, now - started, now - lastOutput, alive);
+		}
+	}
+
+	/**
+	 * How a detached SQL*Plus is doing, as seen by a {@link Poll}.
+	 */
+	public static final class Status implements Serializable {
+
+		private static final long serialVersionUID = -3047816259044231780L;
+
+		private final long offset;
+
+		private final boolean more;
+
+		private final Integer exitCode;
+
+		private final int errorCount;
+
+		private final long runningMillis;
+
+		private final long idleMillis;
+
+		private final boolean alive;
+
+		Status(long offset, boolean more, Integer exitCode, int errorCount, long runningMillis, long idleMillis,
+				boolean alive) {
+			this.offset = offset;
+			this.more = more;
+			this.exitCode = exitCode;
+			this.errorCount = errorCount;
+			this.runningMillis = runningMillis;
+			this.idleMillis = idleMillis;
+			this.alive = alive;
+		}
+
+		/**
+		 * @return output read so far
+		 */
+		public long getOffset() {
+			return offset;
+		}
+
+		/**
+		 * @return true if more output is waiting
+		 */
+		public boolean hasMore() {
+			return more;
+		}
+
+		/**
+		 * @return exit code, or null while SQL*Plus runs
+		 */
+		public Integer getExitCode() {
+			return exitCode;
+		}
+
+		/**
+		 * @return errors in the output read by this poll
+		 */
+		public int getErrorCount() {
+			return errorCount;
+		}
+
+		/**
+		 * @return time since SQL*Plus started, on the node clock
+		 */
+		public long getRunningMillis() {
+			return runningMillis;
+		}
+
+		/**
+		 * @return time since the last output, on the node clock
+		 */
+		public long getIdleMillis() {
+			return idleMillis;
+		}
+
+		/**
+		 * @return false if SQL*Plus is gone without exit code
+		 */
+		public boolean isAlive() {
+			return alive;
+		}
+	}
+
+	/**
+	 * Stop a detached SQL*Plus, whose exit code then shows it was killed.
+	 */
+	public static final class Stop extends MasterToSlaveFileCallable<Boolean> {
+
+		private static final long serialVersionUID = 7710452635590816254L;
+
+		@Override
+		public Boolean invoke(File control, VirtualChannel channel) throws IOException, InterruptedException {
+			File pid = new File(control, PID);
+			if (!pid.isFile() || exitCode(control) != null) {
+				return false;
+			}
+			String process = new String(Files.readAllBytes(pid.toPath()), StandardCharsets.US_ASCII).trim();
+			return new Launcher.LocalLauncher(TaskListener.NULL).launch().cmds("kill", process)
+					.stdout(OutputStream.nullOutputStream()).quiet(true).join() == 0;
+		}
+	}
+
+	/**
+	 * Read the whole output of a SQL*Plus that exited through the output filters, as {@link NodeExecution} would
+	 * have while it ran: errors, batch progress, statistics, statement timings and spool.
+	 *
+	 * Only the spool writes to the console, its first and last lines, as the rest was copied by the polls.
+	 */
+	public static final class Outcome extends MasterToSlaveFileCallable<ExecutionResult> {
+
+		private static final long serialVersionUID = -6637710958023475914L;
+
+		private final OutputSettings settings;
+
+		private final String spoolFile;
+
+		private final Watchdog.Reason expired;
+
+		private final TaskListener listener;
+
+		/**
+		 * @param settings  - output settings
+		 * @param spoolFile - compressed file on the node getting the whole output, or null
+		 * @param expired   - why SQL*Plus was stopped by the controller, or null
+		 * @param listener  - build listener
+		 */
+		public Outcome(OutputSettings settings, String spoolFile, Watchdog.Reason expired, TaskListener listener) {
+			this.settings = settings;
+			this.spoolFile = spoolFile;
+			this.expired = expired;
+			this.listener = listener;
+		}
+
+		@Override
+		public ExecutionResult invoke(File control, VirtualChannel channel) throws IOException {
+
+			Integer exitCode = exitCode(control);
+			if (exitCode == null) {
+				throw new IOException(Messages.DurableExecution_noExitCode());
+			}
+			File output = new File(control, OUTPUT);
+			OutputStream console = settings.isSpool() ? listener.getLogger() : OutputStream.nullOutputStream();
+			OutputStream spool = spoolFile == null ? null : new GZIPOutputStream(new FileOutputStream(spoolFile));
+			try (InputStream in = output.exists() ? new FileInputStream(output) : InputStream.nullInputStream();
+					OutputFilters filters = settings.open(console, spool, Charset.defaultCharset())) {
+				in.transferTo(filters.getOutput());
+				return filters.finish(exitCode, expired);
+			} finally {
+				listener.getLogger().flush();
+			}
+		}
+	}
+
+}
@@ -2,7 +2,9 @@ package org.jenkinsci.plugins.sqlplus.script.runner;
 
 import java.io.IOException;
 
+import hudson.FilePath;
 import hudson.Launcher;
+import hudson.model.Computer;
 import hudson.model.Run;
 import hudson.model.TaskListener;
 import hudson.remoting.LocalChannel;
@@ -21,6 +23,21 @@ public class EnvUtil {
 		return !(vc instanceof LocalChannel);
 	}
 
+	/**
+	 * Launchers decorated by other plugins, like containers, must start SQL*Plus themselves.
+	 *
+	 * @param launcher - build launcher
+	 * @return true if SQL*Plus can be started directly on the node
+	 */
+	public static boolean isPlainLauncher(Launcher launcher) {
+		return launcher.getClass() == Launcher.LocalLauncher.class || launcher.getClass() == Launcher.RemoteLauncher.class;
+	}
+
+	public static String getNodeName(FilePath workspace) {
+		Computer computer = workspace == null ? null : workspace.toComputer();
+		return computer == null ? "" : computer.getName();
+	}
+
 	public static boolean isWindowsOS(boolean agentMachine,TaskListener listener,Run<?, ?> build) throws IOException, InterruptedException {
 
 		boolean isWindows = false;
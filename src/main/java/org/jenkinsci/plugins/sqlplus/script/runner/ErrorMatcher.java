@@ -0,0 +1,130 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Finds errors in SQL*Plus output lines, like <i>ORA-00942</i>, <i>SP2-0310</i> or
+ * <i>PLS-00201</i>, and user defined texts.
+ *
+ * All patterns are compiled into one automaton over the output bytes, so a line is read
+ * once and nothing is allocated.
+ */
+public class ErrorMatcher {
+
+	/**
+	 * Prefixes of Oracle errors, only matched when a digit follows.
+	 */
+	public static final List<String> ORACLE_ERRORS = Collections.unmodifiableList(Arrays.asList("ORA-", "SP2-", "PLS-"));
+
+	private static final int ORACLE = 1;
+
+	private static final int USER = 2;
+
+	private static final int ALPHABET = 256;
+
+	private final int[][] next;
+
+	private final int[] found;
+
+	/**
+	 * @param charset  - output charset
+	 * @param patterns - user defined texts that are errors too, case sensitive
+	 */
+	public ErrorMatcher(Charset charset, List<String> patterns) {
+
+		List<int[]> transitions = new ArrayList<>();
+		List<Integer> kinds = new ArrayList<>();
+		transitions.add(newState());
+		kinds.add(0);
+		for (String error : ORACLE_ERRORS) {
+			add(error.getBytes(charset), ORACLE, transitions, kinds);
+		}
+		for (String pattern : patterns) {
+			if (pattern != null && !pattern.trim().isEmpty()) {
+				add(pattern.trim().getBytes(charset), USER, transitions, kinds);
+			}
+		}
+
+		next = transitions.toArray(new int[0][]);
+		found = new int[kinds.size()];
+		for (int i = 0; i < found.length; i++) {
+			found[i] = kinds.get(i);
+		}
+		link();
+	}
+
+	/**
+	 * @param b   - line bytes
+	 * @param len - line length
+	 * @return true if the line holds an error
+	 */
+	public boolean isError(byte[] b, int len) {
+		int state = 0;
+		for (int i = 0; i < len; i++) {
+			state = next[state][b[i] & 0xff];
+			int kind = found[state];
+			if ((kind & USER) != 0) {
+				return true;
+			}
+			if ((kind & ORACLE) != 0 && i + 1 < len && b[i + 1] >= '0' && b[i + 1] <= '9') {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static int[] newState() {
+		int[] state = new int[ALPHABET];
+		Arrays.fill(state, -1);
+		return state;
+	}
+
+	private static void add(byte[] pattern, int kind, List<int[]> transitions, List<Integer> kinds) {
+		int state = 0;
+		for (byte c : pattern) {
+			int[] current = transitions.get(state);
+			if (current[c & 0xff] < 0) {
+				current[c & 0xff] = transitions.size();
+				transitions.add(newState());
+				kinds.add(0);
+			}
+			state = current[c & 0xff];
+		}
+		kinds.set(state, kinds.get(state) | kind);
+	}
+
+	/**
+	 * Turn the trie into a complete automaton, following failure links breadth first.
+	 */
+	private void link() {
+		int[] failure = new int[next.length];
+		Deque<Integer> queue = new ArrayDeque<>();
+		for (int c = 0; c < ALPHABET; c++) {
+			if (next[0][c] < 0) {
+				next[0][c] = 0;
+			} else {
+				queue.add(next[0][c]);
+			}
+		}
+		while (!queue.isEmpty()) {
+			int state = queue.poll();
+			found[state] |= found[failure[state]];
+			for (int c = 0; c < ALPHABET; c++) {
+				int child = next[state][c];
+				if (child < 0) {
+					next[state][c] = next[failure[state]][c];
+				} else {
+					failure[child] = next[failure[state]][c];
+					queue.add(child);
+				}
+			}
+		}
+	}
+
+}
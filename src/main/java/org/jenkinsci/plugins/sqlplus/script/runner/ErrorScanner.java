@@ -0,0 +1,115 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import hudson.console.LineTransformationOutputStream;
+
+/**
+ * Output filter that records every line SQL*Plus prints holding an error, see {@link ErrorMatcher}.
+ */
+public class ErrorScanner extends LineTransformationOutputStream {
+
+	public static final int MAX_RECORDED_ERRORS = 50;
+
+	private final OutputStream out;
+
+	private final Charset charset;
+
+	private final ErrorMatcher matcher;
+
+	private final List<String> errors = new ArrayList<>();
+
+	private volatile int count;
+
+	private Runnable onFirstError;
+
+	/**
+	 * @param out      - where the output goes, unchanged
+	 * @param charset  - output charset
+	 * @param patterns - user defined texts that are errors too, case sensitive
+	 */
+	public ErrorScanner(OutputStream out, Charset charset, List<String> patterns) {
+		this(out, charset, new ErrorMatcher(charset, patterns));
+	}
+
+	/**
+	 * @param out     - where the output goes, unchanged
+	 * @param charset - output charset
+	 * @param matcher - finds errors
+	 */
+	public ErrorScanner(OutputStream out, Charset charset, ErrorMatcher matcher) {
+		this.out = out;
+		this.charset = charset;
+		this.matcher = matcher;
+	}
+
+	/**
+	 * @param patterns - user defined texts, one per line
+	 * @return texts, without blank lines
+	 */
+	public static List<String> patterns(String patterns) {
+		List<String> list = new ArrayList<>();
+		if (patterns != null) {
+			for (String pattern : patterns.split("\\r?\\n")) {
+				if (!pattern.trim().isEmpty()) {
+					list.add(pattern.trim());
+				}
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * @param onFirstError - called once, right after the first error line was written
+	 */
+	public void setOnFirstError(Runnable onFirstError) {
+		this.onFirstError = onFirstError;
+	}
+
+	@Override
+	protected void eol(byte[] b, int len) throws IOException {
+		out.write(b, 0, len);
+		if (matcher.isError(b, len)) {
+			count++;
+			if (errors.size() < MAX_RECORDED_ERRORS) {
+				errors.add(trimEOL(new String(b, 0, len, charset)));
+			}
+			// errors reach the build log at once, even through a buffer
+			out.flush();
+			if (count == 1 && onFirstError != null) {
+				onFirstError.run();
+			}
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		super.close();
+		out.flush();
+	}
+
+	/**
+	 * @return how many error lines were seen
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * @return first error lines, at most {@link #MAX_RECORDED_ERRORS}
+	 */
+	public List<String> getErrors() {
+		return Collections.unmodifiableList(errors);
+	}
+
+}
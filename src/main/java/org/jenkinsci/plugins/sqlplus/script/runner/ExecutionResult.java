@@ -0,0 +1,142 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What happened while SQL*Plus ran, sent back to the controller when the output was read on the node.
+ */
+public class ExecutionResult implements Serializable {
+
+	private static final long serialVersionUID = -4905436215839051378L;
+
+	private final int exitCode;
+
+	private final int errorCount;
+
+	private final List<String> errors;
+
+	private final Watchdog.Reason expired;
+
+	private final String batchCurrent;
+
+	private final int batchIndex;
+
+	private final int batchTotal;
+
+	private final int statementCount;
+
+	private final List<StatementTiming> statements;
+
+	private final StatementDigest digest;
+
+	private final Map<String, Long> sessionStats;
+
+	private final boolean sessionStatsAfterMissing;
+
+	private final long spooledLines;
+
+	ExecutionResult(int exitCode, int errorCount, List<String> errors, Watchdog.Reason expired,
+			BatchScript.Progress progress, SessionStats stats, StatementTimer timer, long spooledLines) {
+		this.exitCode = exitCode;
+		this.errorCount = errorCount;
+		this.errors = new ArrayList<>(errors);
+		this.expired = expired;
+		this.batchCurrent = progress == null ? null : progress.getCurrent();
+		this.batchIndex = progress == null ? 0 : progress.getIndex();
+		this.batchTotal = progress == null ? 0 : progress.getTotal();
+		this.statementCount = timer == null ? 0 : timer.getCount();
+		this.statements = timer == null ? new ArrayList<>() : timer.getSlowest();
+		this.digest = timer == null ? new StatementDigest(new byte[0]) : timer.getDigest();
+		this.sessionStats = stats == null ? new LinkedHashMap<>() : stats.getUsed();
+		this.sessionStatsAfterMissing = stats != null && stats.isAfterMissing();
+		this.spooledLines = spooledLines;
+	}
+
+	public int getExitCode() {
+		return exitCode;
+	}
+
+	/**
+	 * @return how many error lines were seen
+	 */
+	public int getErrorCount() {
+		return errorCount;
+	}
+
+	/**
+	 * @return first error lines
+	 */
+	public List<String> getErrors() {
+		return Collections.unmodifiableList(errors);
+	}
+
+	/**
+	 * @return why the watchdog stopped SQL*Plus, or null
+	 */
+	public Watchdog.Reason getExpired() {
+		return expired;
+	}
+
+	/**
+	 * @return batch script running when the output ended, or null
+	 */
+	public String getBatchCurrent() {
+		return batchCurrent;
+	}
+
+	public int getBatchIndex() {
+		return batchIndex;
+	}
+
+	public int getBatchTotal() {
+		return batchTotal;
+	}
+
+	/**
+	 * @return how many statements SQL*Plus timed
+	 */
+	public int getStatementCount() {
+		return statementCount;
+	}
+
+	/**
+	 * @return slowest timed statements, slowest first
+	 */
+	public List<StatementTiming> getStatements() {
+		return Collections.unmodifiableList(statements);
+	}
+
+	/**
+	 * @return every timed statement, in order
+	 */
+	public StatementDigest getDigest() {
+		return digest;
+	}
+
+	/**
+	 * @return session statistics used by the script, by name, empty when not read
+	 */
+	public Map<String, Long> getSessionStats() {
+		return Collections.unmodifiableMap(sessionStats);
+	}
+
+	/**
+	 * @return true when the session statistics were read before the script but not after it
+	 */
+	public boolean isSessionStatsAfterMissing() {
+		return sessionStatsAfterMissing;
+	}
+
+	/**
+	 * @return lines written to the spool, or -1 when not spooling
+	 */
+	public long getSpooledLines() {
+		return spooledLines;
+	}
+
+}
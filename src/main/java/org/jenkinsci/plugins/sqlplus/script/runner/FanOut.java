@@ -0,0 +1,227 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import hudson.AbortException;
+import hudson.console.LineTransformationOutputStream;
+import hudson.model.TaskListener;
+import hudson.util.StreamTaskListener;
+
+/**
+ * Run the same script on many database instances at once, from one node.
+ *
+ * Every instance gets its own {@link SQLPlusRunner}, sharing the {@link NodeContext}
+ * resolved once before. Output lines are labelled with the instance and a summary
+ * of every instance is printed at the end.
+ */
+public class FanOut {
+
+	public static final int DEFAULT_PARALLELISM = 4;
+
+	private final int parallelism;
+
+	private final TaskListener listener;
+
+	public FanOut(int parallelism, TaskListener listener) {
+		this.parallelism = parallelism > 0 ? parallelism : DEFAULT_PARALLELISM;
+		this.listener = listener;
+	}
+
+	/**
+	 * Creates the runner of one instance.
+	 */
+	public interface RunnerFactory {
+		SQLPlusRunner create(String instance, TaskListener listener);
+	}
+
+	/**
+	 * Resolve instances, one per line or separated by commas. Entries with * or ?
+	 * are matched against the TNSNAMES.ORA aliases, ignoring case.
+	 *
+	 * @param instances - instance list
+	 * @param aliases   - aliases from TNSNAMES.ORA
+	 * @return instances, without repetitions
+	 * @throws AbortException when a pattern matches no alias
+	 */
+	public static List<String> resolve(String instances, List<String> aliases) throws AbortException {
+
+		Set<String> resolved = new LinkedHashSet<>();
+		for (String entry : BatchScript.split(instances)) {
+			if (isPattern(entry)) {
+				Pattern pattern = toPattern(entry);
+				int before = resolved.size();
+				for (String alias : aliases) {
+					if (pattern.matcher(alias).matches()) {
+						resolved.add(alias);
+					}
+				}
+				if (resolved.size() == before) {
+					throw new AbortException(Messages.SQLPlusRunner_noInstances(entry));
+				}
+			} else {
+				resolved.add(entry);
+			}
+		}
+		return new ArrayList<>(resolved);
+	}
+
+	public static boolean isPattern(String entry) {
+		return entry.indexOf('*') >= 0 || entry.indexOf('?') >= 0;
+	}
+
+	private static Pattern toPattern(String glob) {
+		StringBuilder regex = new StringBuilder();
+		for (char c : glob.toCharArray()) {
+			if (c == '*') {
+				regex.append(".*");
+			} else if (c == '?') {
+				regex.append('.');
+			} else {
+				regex.append(Pattern.quote(String.valueOf(c)));
+			}
+		}
+		return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE);
+	}
+
+	/**
+	 * Run every instance, at most <i>parallelism</i> at a time.
+	 *
+	 * @param instances - instances
+	 * @param factory   - creates the runner of each instance
+	 * @throws AbortException        when any instance failed
+	 * @throws InterruptedException when the build or any instance was aborted, the
+	 *                              other instances are interrupted
+	 */
+	public void run(List<String> instances, RunnerFactory factory) throws IOException, InterruptedException {
+
+		PrintStream logger = listener.getLogger();
+		int width = instances.stream().mapToInt(String::length).max().orElse(0);
+		List<Result> results = new ArrayList<>();
+		for (String instance : instances) {
+			results.add(new Result(instance));
+		}
+
+		AtomicInteger threads = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(1, instances.size())), r -> {
+			Thread thread = new Thread(r, "SQLPlus Script Runner fan-out " + threads.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			CompletionService<Void> completion = new ExecutorCompletionService<>(executor);
+			for (Result result : results) {
+				completion.submit(() -> run(result, factory, logger));
+			}
+			for (int i = 0; i < results.size(); i++) {
+				completion.take().get();
+			}
+		} catch (ExecutionException e) {
+			throw aborted(e);
+		} finally {
+			// interrupts the instances still running when one of them was aborted
+			executor.shutdownNow();
+		}
+
+		int failed = 0;
+		logger.println(MessageUtil.LINE);
+		logger.println(Messages.SQLPlusRunner_fanOutSummary(instances.size()));
+		for (Result result : results) {
+			String status = result.error == null ? MessageUtil.MSG_SUCCESS : MessageUtil.MSG_FAILED;
+			logger.printf("%-" + width + "s  %-7s  %6.1f s%s%n", result.instance, status, result.millis / 1000.0,
+					result.error == null ? "" : "  " + result.error);
+			if (result.error != null) {
+				failed++;
+			}
+		}
+		logger.println(MessageUtil.LINE);
+
+		if (failed > 0) {
+			throw new AbortException(Messages.SQLPlusRunner_fanOutFailed(failed, instances.size()));
+		}
+	}
+
+	/**
+	 * @param e - failure of a task
+	 * @return the interruption of an aborted task, as is, so the build is aborted rather than failed
+	 */
+	static InterruptedException aborted(ExecutionException e) throws IOException {
+		if (e.getCause() instanceof InterruptedException) {
+			return (InterruptedException) e.getCause();
+		}
+		throw new IOException(e.getCause());
+	}
+
+	private static Void run(Result result, RunnerFactory factory, PrintStream logger) throws InterruptedException {
+
+		long start = System.currentTimeMillis();
+		LabelledOutputStream out = new LabelledOutputStream(logger, result.instance);
+		StreamTaskListener instanceListener = new StreamTaskListener(out, Charset.defaultCharset());
+		try {
+			factory.create(result.instance, instanceListener).run();
+		} catch (InterruptedException e) {
+			instanceListener.getLogger().println(e.getMessage() == null ? e.toString() : e.getMessage());
+			throw e;
+		} catch (Exception e) {
+			result.error = e.getMessage() == null ? e.toString() : e.getMessage();
+			e.printStackTrace(instanceListener.getLogger());
+		} finally {
+			instanceListener.getLogger().flush();
+			try {
+				out.close();
+			} catch (IOException e) {
+				// the build log is gone
+			}
+			result.millis = System.currentTimeMillis() - start;
+		}
+		return null;
+	}
+
+	private static final class Result {
+
+		private final String instance;
+		private volatile String error;
+		private volatile long millis;
+
+		private Result(String instance) {
+			this.instance = instance;
+		}
+	}
+
+	/**
+	 * Writes whole lines to the shared build log, each one starting with the instance.
+	 */
+	static final class LabelledOutputStream extends LineTransformationOutputStream {
+
+		private final PrintStream logger;
+
+		private final byte[] label;
+
+		LabelledOutputStream(PrintStream logger, String instance) {
+			this.logger = logger;
+			this.label = ("[" + instance + "] ").getBytes(Charset.defaultCharset());
+		}
+
+		@Override
+		protected void eol(byte[] b, int len) throws IOException {
+			synchronized (logger) {
+				logger.write(label);
+				logger.write(b, 0, len);
+				logger.flush();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,101 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Bounded file search inside an Oracle installation.
+ *
+ * The search stops at the first match, never goes deeper than the given depth
+ * and skips directories that never hold SQL*Plus or TNSNAMES.ORA.
+ */
+public class FileLocator {
+
+	public static final int DEFAULT_MAX_DEPTH = 4;
+
+	private static final Set<String> SKIPPED_DIRS = Set.of(".patch_storage", "apex", "assistants", "cfgtoollogs",
+			"crs", "ctx", "demo", "diag", "install", "instantclient_sdk", "inventory", "javavm", "jdk", "jlib", "jre",
+			"log", "md", "nls", "opatch", "ord", "oui", "perl", "rdbms", "samples", "sdk", "sqldeveloper", "suptools");
+
+	private FileLocator() {
+	}
+
+	public static Path find(String name, Path dir) throws IOException {
+		return find(name, dir, DEFAULT_MAX_DEPTH);
+	}
+
+	/**
+	 * Find a file by name, ignoring case.
+	 *
+	 * @param name     - file name
+	 * @param dir      - directory to search
+	 * @param maxDepth - how many directory levels to search, 1 means only the directory itself
+	 * @return path of the first file found, or null
+	 * @throws IOException when the directory cannot be read
+	 */
+	public static Path find(String name, Path dir, int maxDepth) throws IOException {
+
+		if (dir == null || !Files.isDirectory(dir)) {
+			return null;
+		}
+
+		Finder finder = new Finder(name, dir);
+		Files.walkFileTree(dir, EnumSet.noneOf(FileVisitOption.class), maxDepth, finder);
+		return finder.found;
+	}
+
+	static boolean isSkipped(Path dir) {
+		Path fileName = dir.getFileName();
+		return fileName != null && SKIPPED_DIRS.contains(fileName.toString().toLowerCase(Locale.ENGLISH));
+	}
+
+	private static final class Finder extends SimpleFileVisitor<Path> {
+
+		private final String name;
+		private final Path start;
+		private Path found;
+
+		private Finder(String name, Path start) {
+			this.name = name;
+			this.start = start;
+		}
+
+		@Override
+		public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+			if (!dir.equals(start) && isSkipped(dir)) {
+				return FileVisitResult.SKIP_SUBTREE;
+			}
+			// look at the direct child first, so shallow hits win over deep ones
+			Path candidate = dir.resolve(name);
+			if (Files.exists(candidate) && !Files.isDirectory(candidate)) {
+				found = candidate;
+				return FileVisitResult.TERMINATE;
+			}
+			return FileVisitResult.CONTINUE;
+		}
+
+		@Override
+		public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+			Path fileName = file.getFileName();
+			if (!attrs.isDirectory() && fileName != null && name.equalsIgnoreCase(fileName.toString())) {
+				found = file;
+				return FileVisitResult.TERMINATE;
+			}
+			return FileVisitResult.CONTINUE;
+		}
+
+		@Override
+		public FileVisitResult visitFileFailed(Path file, IOException exc) {
+			return FileVisitResult.CONTINUE;
+		}
+	}
+
+}
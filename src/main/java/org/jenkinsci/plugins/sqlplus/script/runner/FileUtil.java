@@ -1,50 +1,119 @@
 package org.jenkinsci.plugins.sqlplus.script.runner;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 
 import hudson.FilePath;
 import hudson.model.Run;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
 
 public class FileUtil {
 
 	private static final int SQLPLUS_STR_LENGTH = 5;
+	private static final int TAIL_BLOCK_SIZE = 4096;
+	private static final int NO_MATCH = -1;
 	private static final String LAST_CMD_BEFORE_EXIT = "\n;\n";
 	private static final String SQLPLUS_EXIT = "exit;";
 	private static final String SQL_TEMP_SCRIPT = "temp-script-";
+	private static final String SQL_WRAPPER_SCRIPT = "wrapper-script-";
+	private static final String SQL_BATCH_SCRIPT = "batch-script-";
+	private static final String SQL_DRIVER_SCRIPT = "driver-script-";
+	private static final String SQL_SETTINGS = "settings-";
+	private static final String EOL = "\n";
 	private static final String SQL_PREFIX = ".sql";
 
 	private FileUtil() {
 	}
 
 	public static boolean hasExitCode(FilePath filePath) throws IOException, InterruptedException {
+		return filePath.act(new ExitCodeDetector());
+	}
+
+	/**
+	 * Check if the last line with 5 or more characters is exit;
+	 *
+	 * The file is read backwards in small blocks from its end, so the cost does
+	 * not depend on the script size.
+	 *
+	 * @param file - UTF-8 script
+	 * @return true if the script ends with exit;
+	 * @throws IOException when the file cannot be read
+	 */
+	public static boolean hasExitCode(File file) throws IOException {
 
-		boolean found = false;
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
 
-		InputStream in = filePath.read();
-		Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
-		BufferedReader br = new BufferedReader(reader);
+			ByteBuffer buffer = ByteBuffer.allocate(TAIL_BLOCK_SIZE);
+			long position = channel.size();
+			int chars = 0;
+			int matched = 0;
 
-		String lastLine = "";
-		String line;
-		while ((line = br.readLine()) != null) {
-			if (line.length() >= SQLPLUS_STR_LENGTH)
-				lastLine = line;
+			while (position > 0) {
+				int size = (int) Math.min(TAIL_BLOCK_SIZE, position);
+				position -= size;
+				buffer.clear();
+				buffer.limit(size);
+				while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) >= 0) {
+					// fill the whole block
+				}
+
+				for (int i = size - 1; i >= 0; i--) {
+					byte b = buffer.get(i);
+					if (b == '\n' || b == '\r') {
+						if (chars >= SQLPLUS_STR_LENGTH)
+							return matched == SQLPLUS_STR_LENGTH;
+						chars = 0;
+						matched = 0;
+					} else {
+						chars += charLength(b);
+						matched = matchBackwards(matched, b);
+						if (matched == NO_MATCH && chars >= SQLPLUS_STR_LENGTH)
+							return false;
+					}
+				}
+			}
+
+			return chars >= SQLPLUS_STR_LENGTH && matched == SQLPLUS_STR_LENGTH;
 		}
+	}
 
-		if (lastLine.trim().equalsIgnoreCase(SQLPLUS_EXIT))
-			found = true;
+	/**
+	 * UTF-16 length added by a UTF-8 byte, as counted by {@link String#length()}.
+	 */
+	private static int charLength(byte b) {
+		if ((b & 0xC0) == 0x80)
+			return 0;
+		if ((b & 0xF8) == 0xF0)
+			return 2;
+		return 1;
+	}
 
-		br.close();
-		reader.close();
-		in.close();
+	/**
+	 * Match exit; from its last character, allowing the blanks removed by {@link String#trim()}.
+	 *
+	 * @param matched - characters of exit; already matched, or NO_MATCH
+	 * @param b       - previous byte of the line
+	 * @return characters of exit; matched, or NO_MATCH
+	 */
+	private static int matchBackwards(int matched, byte b) {
 
-		return found;
+		boolean blank = (b & 0xFF) <= ' ';
+		if (matched == NO_MATCH)
+			return NO_MATCH;
+		if (matched == SQLPLUS_STR_LENGTH)
+			return blank ? SQLPLUS_STR_LENGTH : NO_MATCH;
+		if (matched == 0 && blank)
+			return 0;
+
+		char expected = SQLPLUS_EXIT.charAt(SQLPLUS_STR_LENGTH - 1 - matched);
+		if (Character.toLowerCase((char) (b & 0xFF)) == expected)
+			return matched + 1;
+		return NO_MATCH;
 	}
 
 	public static void addExit(String content, FilePath filePath) throws IOException, InterruptedException {
@@ -54,6 +123,18 @@ public class FileUtil {
 
 	}
 
+	/**
+	 * Script content with exit; in the end, ready to be sent to SQL*Plus standard input.
+	 *
+	 * @param content - user defined script
+	 * @return UTF-8 bytes of the script
+	 */
+	public static byte[] toStandardInput(String content) {
+
+		String script = content == null ? "" : content;
+		return (script + LAST_CMD_BEFORE_EXIT + SQLPLUS_EXIT + EOL).getBytes(StandardCharsets.UTF_8);
+	}
+
 	public static void addExitInTheEnd(FilePath filePath) throws IOException, InterruptedException {
 
 		String content = filePath.readToString();
@@ -61,17 +142,10 @@ public class FileUtil {
 
 	}
 
-	@SuppressWarnings("static-access")
 	public static FilePath createTempScript(Run<?, ?> build, FilePath workspace, String content, boolean agentMachine)
 			throws IOException, InterruptedException {
 
-		FilePath filePath;
-
-		if (agentMachine) {
-			filePath = workspace.createTempFile(SQL_TEMP_SCRIPT + System.currentTimeMillis(), SQL_PREFIX);
-		} else {
-			filePath = new FilePath(build.getRootDir().createTempFile(SQL_TEMP_SCRIPT + System.currentTimeMillis(), SQL_PREFIX));
-		}
+		FilePath filePath = createTempFile(build, workspace, SQL_TEMP_SCRIPT, agentMachine);
 
 		filePath.write(content, StandardCharsets.UTF_8.name());
 
@@ -82,19 +156,160 @@ public class FileUtil {
 
 	}
 
+	/**
+	 * Create a temporary script with the content as is, without exit; in the end.
+	 *
+	 * @param build        - Jenkins build
+	 * @param workspace    - Jenkins workspace
+	 * @param content      - user defined script
+	 * @param agentMachine - running on an agent
+	 * @return temporary script
+	 */
+	public static FilePath createSessionScript(Run<?, ?> build, FilePath workspace, String content, boolean agentMachine)
+			throws IOException, InterruptedException {
+
+		FilePath filePath = createTempFile(build, workspace, SQL_TEMP_SCRIPT, agentMachine);
+		filePath.write(content, StandardCharsets.UTF_8.name());
+		return filePath;
+	}
+
+	/**
+	 * Create the driver script of a batch.
+	 *
+	 * @param build        - Jenkins build
+	 * @param workspace    - Jenkins workspace
+	 * @param content      - driver script, see {@link BatchScript#driver(java.util.List, boolean)}
+	 * @param agentMachine - running on an agent
+	 * @return driver script
+	 */
+	public static FilePath createBatchScript(Run<?, ?> build, FilePath workspace, String content, boolean agentMachine)
+			throws IOException, InterruptedException {
+
+		FilePath filePath = createTempFile(build, workspace, SQL_BATCH_SCRIPT, agentMachine);
+		filePath.write(content, StandardCharsets.UTF_8.name());
+		return filePath;
+	}
+
+	/**
+	 * Create a small script that runs the original one and exits, leaving the original untouched.
+	 *
+	 * @param build        - Jenkins build
+	 * @param workspace    - Jenkins workspace
+	 * @param script       - script to run
+	 * @param agentMachine - running on an agent
+	 * @return wrapper script
+	 */
+	public static FilePath createWrapperScript(Run<?, ?> build, FilePath workspace, FilePath script, boolean agentMachine)
+			throws IOException, InterruptedException {
+
+		FilePath filePath = createTempFile(build, workspace, SQL_WRAPPER_SCRIPT, agentMachine);
+
+		// a statement the script left unterminated is ended before exit;, as addExitInTheEnd does
+		filePath.write(MessageUtil.AT + MessageUtil.DOUBLE_QUOTES + script.getRemote() + MessageUtil.DOUBLE_QUOTES
+				+ LAST_CMD_BEFORE_EXIT + SQLPLUS_EXIT + EOL, StandardCharsets.UTF_8.name());
+
+		return filePath;
+	}
+
+	/**
+	 * Commands around a script: SQL*Plus timing on while it runs, and the session statistics
+	 * read before and after it.
+	 *
+	 * @param body     - script content, or a call to the script
+	 * @param timing   - time every statement, see {@link StatementTimer}
+	 * @param settings - file on the node keeping the session settings while statistics are read,
+	 *                 or null for no statistics, see {@link SessionStats}
+	 * @param exit     - exit; in the end
+	 * @return driver script
+	 */
+	public static String driver(String body, boolean timing, String settings, boolean exit) {
+
+		StringBuilder sb = new StringBuilder();
+		if (settings != null)
+			sb.append(SessionStats.capture(SessionStats.BEFORE, settings));
+		if (timing)
+			sb.append(StatementTimer.TIMING_ON).append(EOL);
+		sb.append(body == null ? "" : body).append(EOL);
+		if (timing)
+			sb.append(StatementTimer.TIMING_OFF).append(EOL);
+		if (settings != null)
+			sb.append(SessionStats.capture(SessionStats.AFTER, settings));
+		if (exit)
+			sb.append(SQLPLUS_EXIT).append(EOL);
+		return sb.toString();
+	}
+
+	/**
+	 * @param script - script path on the node
+	 * @return SQL*Plus command running the script
+	 */
+	public static String call(String script) {
+
+		return MessageUtil.AT + MessageUtil.DOUBLE_QUOTES + script + MessageUtil.DOUBLE_QUOTES;
+	}
+
+	/**
+	 * Create the script running another one with {@link #driver(String, boolean, String, boolean)}.
+	 *
+	 * @param build        - Jenkins build
+	 * @param workspace    - Jenkins workspace
+	 * @param content      - driver script
+	 * @param agentMachine - running on an agent
+	 * @return driver script
+	 */
+	public static FilePath createDriverScript(Run<?, ?> build, FilePath workspace, String content, boolean agentMachine)
+			throws IOException, InterruptedException {
+
+		FilePath filePath = createTempFile(build, workspace, SQL_DRIVER_SCRIPT, agentMachine);
+		filePath.write(content, StandardCharsets.UTF_8.name());
+		return filePath;
+	}
+
+	/**
+	 * Create an empty file for SQL*Plus STORE SET.
+	 *
+	 * @param build        - Jenkins build
+	 * @param workspace    - Jenkins workspace
+	 * @param agentMachine - running on an agent
+	 * @return settings file
+	 */
+	public static FilePath createSettingsFile(Run<?, ?> build, FilePath workspace, boolean agentMachine)
+			throws IOException, InterruptedException {
+
+		return createTempFile(build, workspace, SQL_SETTINGS, agentMachine);
+	}
+
+	@SuppressWarnings("static-access")
+	private static FilePath createTempFile(Run<?, ?> build, FilePath workspace, String prefix, boolean agentMachine)
+			throws IOException, InterruptedException {
+
+		if (agentMachine) {
+			return workspace.createTempFile(prefix + System.currentTimeMillis(), SQL_PREFIX);
+		}
+		return new FilePath(build.getRootDir().createTempFile(prefix + System.currentTimeMillis(), SQL_PREFIX));
+	}
+
+	/**
+	 * @deprecated use {@link FileLocator#find(String, java.nio.file.Path)}, which returns the file found
+	 */
+	@Deprecated
 	public static boolean findFile(String name, File file) {
 
-		boolean found = false;
-		File[] list = file.listFiles();
-		if (list != null)
-			for (File fil : list) {
-				if (fil.isDirectory()) {
-					findFile(name, fil);
-				} else if (name.equalsIgnoreCase(fil.getName())) {
-					found = true;
-				}
-			}
-		return found;
+		try {
+			return FileLocator.find(name, file.toPath()) != null;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	private static final class ExitCodeDetector extends MasterToSlaveFileCallable<Boolean> {
+
+		private static final long serialVersionUID = 6049125498374621047L;
+
+		@Override
+		public Boolean invoke(File f, VirtualChannel channel) throws IOException {
+			return hasExitCode(f);
+		}
 	}
 
 }
@@ -4,6 +4,14 @@ public class MessageUtil {
 
 	// console messages
 	public static final String MSG_TEMP_SCRIPT = Messages.SQLPlusRunner_tempScript();
+	public static final String MSG_WRAPPER_SCRIPT = Messages.SQLPlusRunner_wrapperScript();
+	public static final String MSG_STREAMING_SCRIPT = Messages.SQLPlusRunner_streamingScript();
+	public static final String MSG_NEW_SESSION = Messages.SQLPlusRunner_newSession();
+	public static final String MSG_POOLED_SESSION = Messages.SQLPlusRunner_pooledSession();
+	public static final String MSG_SESSION_ENDED = Messages.SQLPlusRunner_sessionEnded();
+	public static final String MSG_SUCCESS = Messages.SQLPlusRunner_success();
+	public static final String MSG_FAILED = Messages.SQLPlusRunner_failed();
+	public static final String MSG_SKIPPED = Messages.SQLPlusRunner_skipped();
 	public static final String ON = Messages.SQLPlusRunner_on();
 	public static final String FOUND_SQL_PLUS_ON = "found SQL*Plus on ";
 	public static final String WINDOWS_FILE_SEPARATOR = "\\";	
@@ -48,6 +56,8 @@ public class MessageUtil {
 	public static final String MSG_DEBUG_ENV_NLS_LANG = Messages.SQLPlusRunner_debugEnvNLSLang();
 	public static final String MSG_DEBUG_ENV_SQLPATH = Messages.SQLPlusRunner_debugEnvSQLPath();
 	public static final String MSG_DEBUG_FOUND_TNSNAMES = Messages.SQLPlusRunner_debugFoundTnsNames();  
+	public static final String MSG_DEBUG_CACHED_DISCOVERY = Messages.SQLPlusRunner_debugCachedDiscovery();
+	public static final String MSG_DEBUG_CACHED_VERSION = Messages.SQLPlusRunner_debugCachedVersion();
 	public static final String MSG_EXIT_CODE = Messages.SQLPlusRunner_exitCode(); 
 	public static final String MSG_EQUALS = " = ";
 	public static final String MSG_SPACE = " ";
@@ -67,6 +77,7 @@ public class MessageUtil {
 	public static final String ENV_TNS_ADMIN = "TNS_ADMIN";
 	public static final String ENV_NLS_LANG = "NLS_LANG";
 	public static final String ENV_SQLPATH = "SQLPATH";
+	public static final String ENV_ORACLE_SID = "ORACLE_SID";
 
 	// for SQL*Plus
 	public static final String SQLPLUS_TRY_LOGIN_JUST_ONCE = "-L";
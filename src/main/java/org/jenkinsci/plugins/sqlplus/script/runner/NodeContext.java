@@ -0,0 +1,127 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.io.Serializable;
+
+/**
+ * Everything {@link SQLPlusRunner} needs to know about the node running SQL*Plus,
+ * resolved on that node by {@link NodeDiscovery}.
+ */
+public final class NodeContext implements Serializable {
+
+	private static final long serialVersionUID = -6112374902163427580L;
+
+	private final boolean windows;
+
+	private final String hostName;
+
+	private final String fileSeparator;
+
+	private final String pathSeparator;
+
+	private final String sqlPlusName;
+
+	private final boolean oracleHomeExists;
+
+	private final Discovery discovery;
+
+	private final boolean cachedDiscovery;
+
+	private final long sqlPlusTimestamp;
+
+	private final String script;
+
+	private final boolean scriptExists;
+
+	private final boolean scriptHasExit;
+
+	NodeContext(boolean windows, String hostName, String fileSeparator, String pathSeparator, String sqlPlusName,
+			boolean oracleHomeExists, Discovery discovery, boolean cachedDiscovery, long sqlPlusTimestamp,
+			String script, boolean scriptExists, boolean scriptHasExit) {
+		this.windows = windows;
+		this.hostName = hostName;
+		this.fileSeparator = fileSeparator;
+		this.pathSeparator = pathSeparator;
+		this.sqlPlusName = sqlPlusName;
+		this.oracleHomeExists = oracleHomeExists;
+		this.discovery = discovery;
+		this.cachedDiscovery = cachedDiscovery;
+		this.sqlPlusTimestamp = sqlPlusTimestamp;
+		this.script = script;
+		this.scriptExists = scriptExists;
+		this.scriptHasExit = scriptHasExit;
+	}
+
+	public boolean isWindows() {
+		return windows;
+	}
+
+	public String getHostName() {
+		return hostName;
+	}
+
+	public String getFileSeparator() {
+		return fileSeparator;
+	}
+
+	public String getPathSeparator() {
+		return pathSeparator;
+	}
+
+	/**
+	 * @return sqlplus or sqlplus.exe
+	 */
+	public String getSqlPlusName() {
+		return sqlPlusName;
+	}
+
+	public boolean isOracleHomeExists() {
+		return oracleHomeExists;
+	}
+
+	public Discovery getDiscovery() {
+		return discovery;
+	}
+
+	/**
+	 * @return true if the cached discovery sent to the node was still valid
+	 */
+	public boolean isCachedDiscovery() {
+		return cachedDiscovery;
+	}
+
+	/**
+	 * @return last modified time of the SQL*Plus executable that will be used
+	 */
+	public long getSqlPlusTimestamp() {
+		return sqlPlusTimestamp;
+	}
+
+	/**
+	 * @return path of the file script on the node, or null for user defined scripts
+	 */
+	public String getScript() {
+		return script;
+	}
+
+	public boolean isScriptExists() {
+		return scriptExists;
+	}
+
+	public boolean isScriptHasExit() {
+		return scriptHasExit;
+	}
+
+	/**
+	 * Same node, another file script, so scripts found together need a single discovery.
+	 *
+	 * @param path    - path of the file script on the node
+	 * @param exists  - true if the script is a file
+	 * @param hasExit - true if the script already ends with exit
+	 * @return copy of this context
+	 */
+	public NodeContext withScript(String path, boolean exists, boolean hasExit) {
+		return new NodeContext(windows, hostName, fileSeparator, pathSeparator, sqlPlusName, oracleHomeExists, discovery,
+				cachedDiscovery, sqlPlusTimestamp, path, exists, hasExit);
+	}
+
+}
@@ -0,0 +1,129 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import jenkins.security.MasterToSlaveCallable;
+
+/**
+ * Resolve OS, host name, SQL*Plus, TNSNAMES.ORA and script on the node running SQL*Plus,
+ * in a single remote call.
+ */
+public class NodeDiscovery extends MasterToSlaveCallable<NodeContext, IOException> {
+
+	private static final long serialVersionUID = 4471625039187524409L;
+
+	private static final String WINDOWS_OS = "win";
+
+	private static final String OPERATION_SYSTEM = "os.name";
+
+	private final String oracleHome;
+
+	private final String customSQLPlusHome;
+
+	private final String tnsAdmin;
+
+	private final String scriptDir;
+
+	private final String script;
+
+	private final Discovery cached;
+
+	/**
+	 * @param oracleHome        - Oracle Home
+	 * @param customSQLPlusHome - custom SQL*Plus executable, or null
+	 * @param tnsAdmin          - custom TNS_ADMIN, or null
+	 * @param scriptDir         - directory of the file script
+	 * @param script            - file script, or null for user defined scripts
+	 * @param cached            - discovery done before on this node, or null
+	 */
+	public NodeDiscovery(String oracleHome, String customSQLPlusHome, String tnsAdmin, String scriptDir, String script,
+			Discovery cached) {
+		this.oracleHome = oracleHome;
+		this.customSQLPlusHome = customSQLPlusHome;
+		this.tnsAdmin = tnsAdmin;
+		this.scriptDir = scriptDir;
+		this.script = script;
+		this.cached = cached;
+	}
+
+	@Override
+	public NodeContext call() throws IOException {
+
+		boolean windows = System.getProperty(OPERATION_SYSTEM, "").toLowerCase(Locale.ENGLISH).contains(WINDOWS_OS);
+		String sqlplus = windows ? MessageUtil.SQLPLUS_FOR_WINDOWS : MessageUtil.SQLPLUS;
+		String fileSeparator = File.separator;
+
+		boolean cachedDiscovery = cached != null && !cached.isStale();
+		Discovery discovery = cachedDiscovery ? cached : scan(oracleHome, sqlplus, fileSeparator, tnsAdmin);
+
+		String executable = customSQLPlusHome;
+		if (executable == null) {
+			executable = discovery.getSqlPlus() != null ? discovery.getSqlPlus()
+					: oracleHome + fileSeparator + MessageUtil.BIN_DIR + fileSeparator + sqlplus;
+		}
+
+		String scriptPath = null;
+		boolean scriptExists = false;
+		boolean scriptHasExit = false;
+		if (script != null) {
+			File scriptFile = new File(scriptDir + fileSeparator + script);
+			scriptPath = scriptFile.getPath();
+			scriptExists = scriptFile.isFile();
+			scriptHasExit = scriptExists && FileUtil.hasExitCode(scriptFile);
+		}
+
+		return new NodeContext(windows, NetUtil.getHostName(), fileSeparator, File.pathSeparator, sqlplus,
+				new File(oracleHome).exists(), discovery, cachedDiscovery, new File(executable).lastModified(), scriptPath, scriptExists, scriptHasExit);
+	}
+
+	/**
+	 * Find SQL*Plus and TNSNAMES.ORA inside an Oracle Home.
+	 *
+	 * @param oracleHome    - Oracle Home
+	 * @param sqlplus       - SQL*Plus executable name
+	 * @param fileSeparator - file separator
+	 * @param tnsAdmin      - custom TNS_ADMIN, or null
+	 * @return discovered locations
+	 */
+	static Discovery scan(String oracleHome, String sqlplus, String fileSeparator, String tnsAdmin) {
+
+		String binDir = oracleHome + fileSeparator + MessageUtil.BIN_DIR;
+		String netAdminDir = oracleHome + fileSeparator + MessageUtil.NET_DIR + fileSeparator + MessageUtil.NET_ADM_DIR;
+
+		Map<String, Long> timestamps = new HashMap<>();
+		timestamps.put(oracleHome, new File(oracleHome).lastModified());
+		timestamps.put(binDir, new File(binDir).lastModified());
+
+		Path sqlPlusFound = null;
+		Path tnsNamesFound = null;
+		try {
+			sqlPlusFound = FileLocator.find(sqlplus, Paths.get(binDir), 1);
+			if (sqlPlusFound == null) {
+				sqlPlusFound = FileLocator.find(sqlplus, Paths.get(oracleHome));
+			}
+
+			if (tnsAdmin != null) {
+				timestamps.put(tnsAdmin, new File(tnsAdmin).lastModified());
+				tnsNamesFound = FileLocator.find(MessageUtil.TNSNAMES_ORA, Paths.get(tnsAdmin), 1);
+			} else {
+				timestamps.put(netAdminDir, new File(netAdminDir).lastModified());
+				tnsNamesFound = FileLocator.find(MessageUtil.TNSNAMES_ORA, Paths.get(netAdminDir), 1);
+				if (tnsNamesFound == null) {
+					tnsNamesFound = FileLocator.find(MessageUtil.TNSNAMES_ORA, Paths.get(oracleHome));
+				}
+			}
+		} catch (IOException | InvalidPathException e) {
+			// nothing found, SQLPlusRunner reports what is missing
+		}
+
+		return new Discovery(sqlPlusFound, tnsNamesFound, timestamps);
+	}
+
+}
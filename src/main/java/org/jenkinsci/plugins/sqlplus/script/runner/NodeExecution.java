@@ -0,0 +1,106 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.zip.GZIPOutputStream;
+
+import hudson.EnvVars;
+import hudson.Launcher;
+import hudson.Proc;
+import hudson.model.TaskListener;
+import hudson.util.ArgumentListBuilder;
+import jenkins.security.MasterToSlaveCallable;
+
+/**
+ * Run SQL*Plus on the node and read its output there, so only what reaches the
+ * console goes back to the controller, in large chunks through a {@link BufferedLog}.
+ */
+public class NodeExecution extends MasterToSlaveCallable<ExecutionResult, IOException> {
+
+	private static final long serialVersionUID = 7385110392864521804L;
+
+	private final ArgumentListBuilder args;
+
+	private final EnvVars envs;
+
+	private final String pwd;
+
+	private final byte[] input;
+
+	private final OutputSettings settings;
+
+	private final String spoolFile;
+
+	private final TaskListener listener;
+
+	/**
+	 * @param args      - SQL*Plus command line
+	 * @param envs      - environment
+	 * @param pwd       - working directory on the node
+	 * @param input     - standard input, or null
+	 * @param settings  - output settings
+	 * @param spoolFile - compressed file on the node getting the whole output, or null
+	 * @param listener  - build listener
+	 */
+	public NodeExecution(ArgumentListBuilder args, EnvVars envs, String pwd, byte[] input, OutputSettings settings,
+			String spoolFile, TaskListener listener) {
+		this.args = args;
+		this.envs = envs;
+		this.pwd = pwd;
+		this.input = input;
+		this.settings = settings;
+		this.spoolFile = spoolFile;
+		this.listener = listener;
+	}
+
+	@Override
+	public ExecutionResult call() throws IOException {
+
+		Charset charset = Charset.defaultCharset();
+		OutputStream spool = spoolFile == null ? null : new GZIPOutputStream(new FileOutputStream(spoolFile));
+		ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "SQLPlus Script Runner watchdog");
+			thread.setDaemon(true);
+			return thread;
+		});
+		BufferedLog log = new BufferedLog(listener.getLogger(), BufferedLog.DEFAULT_SIZE);
+		log.start(scheduler, BufferedLog.DEFAULT_INTERVAL_MILLIS);
+		Proc proc = null;
+		try (OutputFilters filters = settings.open(log, spool, charset)) {
+			Launcher.ProcStarter starter = new Launcher.LocalLauncher(listener).launch().cmds(args).envs(envs)
+					.stdout(filters.getOutput()).pwd(pwd);
+			if (input != null) {
+				starter.stdin(new ByteArrayInputStream(input));
+			}
+			proc = starter.start();
+			Proc started = proc;
+			filters.watch(scheduler, () -> scheduler.execute(() -> kill(started)));
+			return filters.finish(proc.join());
+		} catch (InterruptedException e) {
+			// the build was aborted
+			kill(proc);
+			throw new InterruptedIOException(e.getMessage());
+		} finally {
+			log.close();
+			scheduler.shutdownNow();
+		}
+	}
+
+	private static void kill(Proc proc) {
+		if (proc == null) {
+			return;
+		}
+		try {
+			proc.kill();
+		} catch (IOException | InterruptedException e) {
+			// already gone
+		}
+	}
+
+}
@@ -0,0 +1,123 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Filters between a running SQL*Plus and the console, built by {@link OutputSettings#open}.
+ */
+public class OutputFilters implements Closeable {
+
+	private final OutputSettings settings;
+
+	private final OutputStream output;
+
+	private final Watchdog watchdog;
+
+	private final BatchScript.Progress progress;
+
+	private final SessionStats stats;
+
+	private final StatementTimer timer;
+
+	private final ErrorScanner scanner;
+
+	private final Spool spool;
+
+	private boolean finished;
+
+	OutputFilters(OutputSettings settings, OutputStream output, Watchdog watchdog, BatchScript.Progress progress,
+			SessionStats stats, StatementTimer timer, ErrorScanner scanner, Spool spool) {
+		this.settings = settings;
+		this.output = output;
+		this.watchdog = watchdog;
+		this.progress = progress;
+		this.stats = stats;
+		this.timer = timer;
+		this.scanner = scanner;
+		this.spool = spool;
+	}
+
+	/**
+	 * @return where SQL*Plus output goes
+	 */
+	public OutputStream getOutput() {
+		return output;
+	}
+
+	/**
+	 * Stop SQL*Plus on the first error, when failing fast, or when the watchdog expires.
+	 *
+	 * @param scheduler - runs the watchdog checks
+	 * @param stop      - stops SQL*Plus, must not block
+	 */
+	public void watch(ScheduledExecutorService scheduler, Runnable stop) {
+		if (settings.isFailFast()) {
+			scanner.setOnFirstError(stop);
+			if (scanner.getCount() > 0) {
+				stop.run();
+			}
+		}
+		if (watchdog != null) {
+			watchdog.start(scheduler, stop);
+		}
+	}
+
+	/**
+	 * Stop watching. When SQL*Plus did not end normally, the spool is closed too,
+	 * so its last lines still reach the console.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (watchdog != null) {
+			watchdog.stop();
+		}
+		if (!finished && spool != null) {
+			finished = true;
+			spool.close();
+		}
+	}
+
+	/**
+	 * Flush every filter, in output order, and collect what they saw.
+	 *
+	 * @param exitCode - SQL*Plus exit code
+	 * @return outcome of the run
+	 */
+	public ExecutionResult finish(int exitCode) throws IOException {
+		return finish(exitCode, null);
+	}
+
+	/**
+	 * Flush every filter, in output order, and collect what they saw.
+	 *
+	 * @param exitCode - SQL*Plus exit code
+	 * @param expired  - why SQL*Plus was stopped by a watchdog outside the filters, or null
+	 * @return outcome of the run
+	 */
+	public ExecutionResult finish(int exitCode, Watchdog.Reason expired) throws IOException {
+		finished = true;
+		if (watchdog != null) {
+			watchdog.close();
+		}
+		if (progress != null) {
+			progress.close();
+		}
+		if (stats != null) {
+			stats.close();
+		}
+		if (timer != null) {
+			timer.close();
+		}
+		scanner.close();
+		if (spool != null) {
+			spool.close();
+		}
+		return new ExecutionResult(exitCode, scanner.getCount(), scanner.getErrors(),
+				watchdog == null ? expired : watchdog.getExpired(), progress, stats, timer,
+				spool == null ? -1 : spool.getLines());
+	}
+
+}
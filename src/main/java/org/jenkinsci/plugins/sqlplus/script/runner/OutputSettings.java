@@ -0,0 +1,114 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * How SQL*Plus output is checked and shown, sent to the node when the output is read there.
+ */
+public class OutputSettings implements Serializable {
+
+	private static final long serialVersionUID = 4528711308264521947L;
+
+	private final List<String> errorPatterns;
+
+	private final boolean failFast;
+
+	private final int timeoutMinutes;
+
+	private final int inactivityMinutes;
+
+	private final boolean batch;
+
+	private final int consoleLines;
+
+	private final String spoolName;
+
+	private final boolean statementTiming;
+
+	private final boolean sessionStats;
+
+	/**
+	 * @param errorPatterns     - texts that are errors too
+	 * @param failFast          - stop SQL*Plus at the first error
+	 * @param timeoutMinutes    - longest run, 0 for no limit
+	 * @param inactivityMinutes - longest time without output, 0 for no limit
+	 * @param batch             - follow the progress of a batch
+	 * @param consoleLines      - first and last lines shown when spooling
+	 * @param spoolName         - artifact holding the whole output, or null to show everything
+	 * @param statementTiming   - keep the slowest statements SQL*Plus timed
+	 * @param sessionStats      - read the session statistics printed before and after the script
+	 */
+	public OutputSettings(List<String> errorPatterns, boolean failFast, int timeoutMinutes, int inactivityMinutes,
+			boolean batch, int consoleLines, String spoolName, boolean statementTiming, boolean sessionStats) {
+		this.errorPatterns = new ArrayList<>(errorPatterns);
+		this.failFast = failFast;
+		this.timeoutMinutes = timeoutMinutes;
+		this.inactivityMinutes = inactivityMinutes;
+		this.batch = batch;
+		this.consoleLines = consoleLines;
+		this.spoolName = spoolName;
+		this.statementTiming = statementTiming;
+		this.sessionStats = sessionStats;
+	}
+
+	public boolean isFailFast() {
+		return failFast;
+	}
+
+	public boolean isSpool() {
+		return spoolName != null;
+	}
+
+	/**
+	 * Build the filters between SQL*Plus and the console:
+	 * SQL*Plus, watchdog, batch progress, session statistics, statement timer, error scanner, spool, console.
+	 *
+	 * @param console - build log
+	 * @param spool   - compressed file getting the whole output, or null
+	 * @param charset - output charset
+	 * @return filters
+	 */
+	public OutputFilters open(OutputStream console, OutputStream spool, Charset charset) {
+
+		ErrorMatcher matcher = new ErrorMatcher(charset, errorPatterns);
+		Spool spooled = null;
+		OutputStream output = console;
+		if (spool != null) {
+			spooled = new Spool(spool, console, matcher, consoleLines, spoolName, charset);
+			output = spooled;
+		}
+		ErrorScanner scanner = new ErrorScanner(output, charset, matcher);
+		output = scanner;
+
+		StatementTimer timer = null;
+		if (statementTiming) {
+			timer = new StatementTimer(output, charset);
+			output = timer;
+		}
+
+		SessionStats stats = null;
+		if (sessionStats) {
+			stats = new SessionStats(output, charset);
+			output = stats;
+		}
+
+		BatchScript.Progress progress = null;
+		if (batch) {
+			progress = new BatchScript.Progress(output, charset);
+			output = progress;
+		}
+
+		Watchdog watchdog = null;
+		if (Watchdog.isEnabled(timeoutMinutes, inactivityMinutes)) {
+			watchdog = new Watchdog(output, timeoutMinutes, inactivityMinutes);
+			output = watchdog;
+		}
+
+		return new OutputFilters(this, output, watchdog, progress, stats, timer, scanner, spooled);
+	}
+
+}
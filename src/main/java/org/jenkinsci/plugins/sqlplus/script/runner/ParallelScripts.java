@@ -0,0 +1,263 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import hudson.AbortException;
+import hudson.model.TaskListener;
+import hudson.util.StreamTaskListener;
+
+/**
+ * Run the scripts of a {@link ScriptGraph} on a pool of workers, each script in its
+ * own SQL*Plus session, as soon as everything it depends on succeeded.
+ *
+ * Among the ready scripts, the one with the longest remaining chain of work, measured
+ * with previous timings, starts first. A failed script skips only the scripts that
+ * depend on it.
+ */
+public class ParallelScripts {
+
+	public static final int DEFAULT_WORKERS = 4;
+
+	private static final long UNKNOWN_DURATION = 1;
+
+	private final int workers;
+
+	private final TaskListener listener;
+
+	public ParallelScripts(int workers, TaskListener listener) {
+		this.workers = workers > 0 ? workers : DEFAULT_WORKERS;
+		this.listener = listener;
+	}
+
+	/**
+	 * Runs one script.
+	 */
+	public interface ScriptRunner {
+		void run(String script, TaskListener listener) throws Exception;
+	}
+
+	private enum Status {
+		SUCCESS, FAILED, SKIPPED
+	}
+
+	/**
+	 * @param graph   - scripts and dependencies
+	 * @param history - previous durations in milliseconds by script
+	 * @param runner  - runs each script
+	 * @return durations of the scripts that succeeded
+	 * @throws Failed               when any script failed, with the durations of those that succeeded
+	 * @throws InterruptedException when the build or any script was aborted, the other scripts are
+	 *                              interrupted
+	 */
+	public Map<String, Long> run(ScriptGraph graph, Map<String, Long> history, ScriptRunner runner)
+			throws IOException, InterruptedException {
+
+		PrintStream logger = listener.getLogger();
+		List<String> scripts = graph.getScripts();
+		Map<String, List<String>> dependents = graph.getDependents();
+		Map<String, Long> priority = priorities(graph, dependents, history);
+
+		Map<String, Integer> pending = new HashMap<>();
+		PriorityQueue<String> ready = new PriorityQueue<>(
+				Comparator.comparing((String script) -> priority.get(script)).reversed().thenComparing(script -> script));
+		for (String script : scripts) {
+			pending.put(script, graph.getDependencies(script).size());
+			if (graph.getDependencies(script).isEmpty()) {
+				ready.add(script);
+			}
+		}
+
+		Map<String, Status> status = new TreeMap<>();
+		Map<String, String> errors = new HashMap<>();
+		Map<String, Long> durations = new HashMap<>();
+		int width = scripts.stream().mapToInt(String::length).max().orElse(0);
+
+		AtomicInteger threads = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(workers, scripts.size())), r -> {
+			Thread thread = new Thread(r, "SQLPlus Script Runner worker " + threads.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		CompletionService<Outcome> completion = new ExecutorCompletionService<>(executor);
+		try {
+			int running = 0;
+			while (running > 0 || !ready.isEmpty()) {
+				while (running < workers && !ready.isEmpty()) {
+					String script = ready.poll();
+					completion.submit(() -> run(script, graph, runner, logger));
+					running++;
+				}
+
+				Outcome outcome = completion.take().get();
+				running--;
+				if (outcome.error == null) {
+					status.put(outcome.script, Status.SUCCESS);
+					durations.put(outcome.script, outcome.millis);
+					for (String dependent : dependents.get(outcome.script)) {
+						if (pending.merge(dependent, -1, Integer::sum) == 0 && !status.containsKey(dependent)) {
+							ready.add(dependent);
+						}
+					}
+				} else {
+					status.put(outcome.script, Status.FAILED);
+					errors.put(outcome.script, outcome.error);
+					durations.remove(outcome.script);
+					skip(outcome.script, dependents, status, errors);
+				}
+			}
+		} catch (ExecutionException e) {
+			throw FanOut.aborted(e);
+		} finally {
+			// interrupts the scripts still running when one of them was aborted
+			executor.shutdownNow();
+		}
+
+		int failed = 0;
+		logger.println(MessageUtil.LINE);
+		logger.println(Messages.SQLPlusRunner_directorySummary(scripts.size()));
+		for (String script : scripts) {
+			Status scriptStatus = status.get(script);
+			String label = scriptStatus == Status.SUCCESS ? MessageUtil.MSG_SUCCESS
+					: scriptStatus == Status.FAILED ? MessageUtil.MSG_FAILED : MessageUtil.MSG_SKIPPED;
+			Long millis = durations.get(script);
+			logger.printf("%-" + width + "s  %-7s  %s%s%n", script, label,
+					millis == null ? "" : String.format("%6.1f s", millis / 1000.0),
+					errors.containsKey(script) ? "  " + errors.get(script) : "");
+			if (scriptStatus != Status.SUCCESS) {
+				failed++;
+			}
+		}
+		logger.println(MessageUtil.LINE);
+
+		if (failed > 0) {
+			throw new Failed(Messages.SQLPlusRunner_directoryFailed(failed, scripts.size()), durations);
+		}
+		return durations;
+	}
+
+	/**
+	 * Some scripts failed, or were skipped for it.
+	 */
+	public static final class Failed extends AbortException {
+
+		private static final long serialVersionUID = 4630978125331906718L;
+
+		private final Map<String, Long> durations;
+
+		Failed(String message, Map<String, Long> durations) {
+			super(message);
+			this.durations = new HashMap<>(durations);
+		}
+
+		/**
+		 * @return durations of the scripts that succeeded, in milliseconds
+		 */
+		public Map<String, Long> getDurations() {
+			return Collections.unmodifiableMap(durations);
+		}
+	}
+
+	/**
+	 * Priority of a script: its own duration plus the longest chain of scripts that
+	 * depend on it, so the critical path starts first.
+	 */
+	static Map<String, Long> priorities(ScriptGraph graph, Map<String, List<String>> dependents,
+			Map<String, Long> history) {
+
+		Map<String, Long> priority = new HashMap<>();
+		Deque<String> stack = new ArrayDeque<>(graph.getScripts());
+		while (!stack.isEmpty()) {
+			String script = stack.peek();
+			if (priority.containsKey(script)) {
+				stack.pop();
+				continue;
+			}
+			long longest = 0;
+			boolean complete = true;
+			for (String dependent : dependents.get(script)) {
+				Long value = priority.get(dependent);
+				if (value == null) {
+					stack.push(dependent);
+					complete = false;
+				} else {
+					longest = Math.max(longest, value);
+				}
+			}
+			if (complete) {
+				stack.pop();
+				priority.put(script, history.getOrDefault(script, UNKNOWN_DURATION) + longest);
+			}
+		}
+		return priority;
+	}
+
+	private static void skip(String failed, Map<String, List<String>> dependents, Map<String, Status> status,
+			Map<String, String> errors) {
+		Deque<String> queue = new ArrayDeque<>(dependents.get(failed));
+		while (!queue.isEmpty()) {
+			String script = queue.poll();
+			if (!status.containsKey(script)) {
+				status.put(script, Status.SKIPPED);
+				errors.put(script, Messages.SQLPlusRunner_skippedScript(failed));
+				queue.addAll(dependents.get(script));
+			}
+		}
+	}
+
+	private static Outcome run(String script, ScriptGraph graph, ScriptRunner runner, PrintStream logger)
+			throws InterruptedException {
+
+		long start = System.currentTimeMillis();
+		FanOut.LabelledOutputStream out = new FanOut.LabelledOutputStream(logger, script);
+		StreamTaskListener scriptListener = new StreamTaskListener(out, Charset.defaultCharset());
+		String error = null;
+		try {
+			runner.run(script, scriptListener);
+		} catch (InterruptedException e) {
+			scriptListener.getLogger().println(e.getMessage() == null ? e.toString() : e.getMessage());
+			throw e;
+		} catch (Exception e) {
+			error = e.getMessage() == null ? e.toString() : e.getMessage();
+			e.printStackTrace(scriptListener.getLogger());
+		} finally {
+			scriptListener.getLogger().flush();
+			try {
+				out.close();
+			} catch (IOException e) {
+				// the build log is gone
+			}
+		}
+		return new Outcome(script, error, System.currentTimeMillis() - start);
+	}
+
+	private static final class Outcome {
+
+		private final String script;
+		private final String error;
+		private final long millis;
+
+		private Outcome(String script, String error, long millis) {
+			this.script = script;
+			this.error = error;
+			this.millis = millis;
+		}
+	}
+
+}
@@ -0,0 +1,80 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.io.Serializable;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Time spent in each phase of a SQL*Plus run, measured with {@link System#nanoTime()}.
+ *
+ * Starting a phase ends the current one; a phase started again adds to its time.
+ */
+public class PhaseTimer implements Serializable {
+
+	private static final long serialVersionUID = 2905671436201187365L;
+
+	/**
+	 * Phases of a run, only {@link #EXECUTION} is database time.
+	 */
+	public enum Phase {
+		DISCOVERY(false), VERSION(false), SCRIPT(false), ENVIRONMENT(false), EXECUTION(true), CLEANUP(false);
+
+		private final boolean database;
+
+		Phase(boolean database) {
+			this.database = database;
+		}
+
+		public boolean isDatabase() {
+			return database;
+		}
+	}
+
+	private final Map<Phase, Long> nanos = new EnumMap<>(Phase.class);
+
+	private Phase current;
+
+	private long started;
+
+	/**
+	 * @param phase - phase starting now, ending the current one
+	 */
+	public synchronized void start(Phase phase) {
+		long now = System.nanoTime();
+		end(now);
+		current = phase;
+		started = now;
+	}
+
+	/**
+	 * Add time measured elsewhere, like across a restart of the controller.
+	 *
+	 * @param phase - phase
+	 * @param time  - nanoseconds
+	 */
+	public synchronized void add(Phase phase, long time) {
+		nanos.merge(phase, time, Long::sum);
+	}
+
+	/**
+	 * End the current phase.
+	 */
+	public synchronized void stop() {
+		end(System.nanoTime());
+		current = null;
+	}
+
+	private void end(long now) {
+		if (current != null) {
+			nanos.merge(current, now - started, Long::sum);
+		}
+	}
+
+	/**
+	 * @return nanoseconds by ended phase
+	 */
+	public synchronized Map<Phase, Long> getNanos() {
+		return new EnumMap<>(nanos);
+	}
+
+}
@@ -0,0 +1,186 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+import hudson.model.Action;
+import hudson.model.Api;
+import hudson.model.Run;
+
+/**
+ * How long each phase of every SQL*Plus run of a build took, shown on the build page
+ * and exported by the build REST API, and by its own under {@value #URL_NAME}/api.
+ *
+ * Step overhead, everything but the SQL*Plus run, is kept apart from database time.
+ */
+@ExportedBean
+public class PhaseTimingsAction implements Action {
+
+	public static final String URL_NAME = "sqlplusTimings";
+
+	private final List<Step> steps = new ArrayList<>();
+
+	@Override
+	public String getIconFileName() {
+		return null;
+	}
+
+	@Override
+	public String getDisplayName() {
+		return Messages.PhaseTimingsAction_displayName();
+	}
+
+	@Override
+	public String getUrlName() {
+		return URL_NAME;
+	}
+
+	public Api getApi() {
+		return new Api(this);
+	}
+
+	@Exported(inline = true)
+	public synchronized List<Step> getSteps() {
+		return Collections.unmodifiableList(new ArrayList<>(steps));
+	}
+
+	@Exported
+	public synchronized double getOverheadMillis() {
+		long total = 0;
+		for (Step step : steps) {
+			total += step.overhead;
+		}
+		return millis(total);
+	}
+
+	@Exported
+	public synchronized double getDatabaseMillis() {
+		long total = 0;
+		for (Step step : steps) {
+			total += step.database;
+		}
+		return millis(total);
+	}
+
+	/**
+	 * @return phases in run order, for the summary table
+	 */
+	public PhaseTimer.Phase[] getPhases() {
+		return PhaseTimer.Phase.values();
+	}
+
+	/**
+	 * Record the phases of a run in a build, after the runs it already has.
+	 *
+	 * @param build - Jenkins build
+	 * @param label - what was run, and where
+	 * @param timer - ended phases
+	 */
+	public static void record(Run<?, ?> build, String label, PhaseTimer timer) {
+		Step step = new Step(label, timer.getNanos());
+		synchronized (build) {
+			PhaseTimingsAction action = build.getAction(PhaseTimingsAction.class);
+			if (action == null) {
+				action = new PhaseTimingsAction();
+				build.addAction(action);
+			}
+			synchronized (action) {
+				action.steps.add(step);
+			}
+		}
+	}
+
+	/**
+	 * @param nanos - nanoseconds
+	 * @return milliseconds, with microseconds
+	 */
+	public static double millis(long nanos) {
+		return TimeUnit.NANOSECONDS.toMicros(nanos) / 1000.0;
+	}
+
+	/**
+	 * @param millis - milliseconds
+	 * @return milliseconds for the summary table
+	 */
+	public static String format(double millis) {
+		return String.format(Locale.ROOT, "%.1f", millis);
+	}
+
+	/**
+	 * Phases of a single SQL*Plus run.
+	 */
+	@ExportedBean(defaultVisibility = 2)
+	public static class Step {
+
+		private final String label;
+
+		private final Map<PhaseTimer.Phase, Long> nanos;
+
+		private final long overhead;
+
+		private final long database;
+
+		public Step(String label, Map<PhaseTimer.Phase, Long> nanos) {
+			this.label = label;
+			this.nanos = new EnumMap<>(PhaseTimer.Phase.class);
+			this.nanos.putAll(nanos);
+			long overhead = 0;
+			long database = 0;
+			for (Map.Entry<PhaseTimer.Phase, Long> phase : nanos.entrySet()) {
+				if (phase.getKey().isDatabase()) {
+					database += phase.getValue();
+				} else {
+					overhead += phase.getValue();
+				}
+			}
+			this.overhead = overhead;
+			this.database = database;
+		}
+
+		@Exported
+		public String getLabel() {
+			return label;
+		}
+
+		/**
+		 * @return milliseconds by phase name, ended phases only
+		 */
+		@Exported
+		public Map<String, Double> getPhases() {
+			Map<String, Double> phases = new LinkedHashMap<>();
+			for (Map.Entry<PhaseTimer.Phase, Long> phase : nanos.entrySet()) {
+				phases.put(phase.getKey().name().toLowerCase(Locale.ROOT), millis(phase.getValue()));
+			}
+			return phases;
+		}
+
+		/**
+		 * @param phase - phase
+		 * @return milliseconds, 0 if the phase did not run
+		 */
+		public double getMillis(PhaseTimer.Phase phase) {
+			Long value = nanos.get(phase);
+			return value == null ? 0 : millis(value);
+		}
+
+		@Exported
+		public double getOverheadMillis() {
+			return millis(overhead);
+		}
+
+		@Exported
+		public double getDatabaseMillis() {
+			return millis(database);
+		}
+	}
+
+}
@@ -0,0 +1,166 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import hudson.model.Run;
+
+/**
+ * Compares the timings of a run with the median of the same timings in the last
+ * successful builds of the job.
+ *
+ * A script, or a statement, regressed when it got slower than its baseline by more than
+ * both thresholds; a threshold of 0 is not checked.
+ */
+public class RegressionGate implements Serializable {
+
+	private static final long serialVersionUID = 8127393057215480663L;
+
+	public static final int DEFAULT_PERCENT = 50;
+
+	public static final int DEFAULT_MILLIS = 1000;
+
+	private final int builds;
+
+	private final int percent;
+
+	private final long millis;
+
+	/**
+	 * @param builds  - successful builds in the baseline, 0 to turn the gate off
+	 * @param percent - slowdown allowed, in percent of the baseline
+	 * @param millis  - slowdown allowed, in milliseconds
+	 */
+	public RegressionGate(int builds, int percent, long millis) {
+		this.builds = Math.max(builds, 0);
+		this.percent = Math.max(percent, 0);
+		this.millis = Math.max(millis, 0);
+	}
+
+	public boolean isEnabled() {
+		return builds > 0 && (percent > 0 || millis > 0);
+	}
+
+	/**
+	 * Check a run against the baseline.
+	 *
+	 * Every timed statement is compared, through the {@link StatementDigest} of the run, with the same
+	 * statement in each baseline build, found by {@link StatementDigest#align(StatementDigest)} so
+	 * statements added or removed since do not shift the others. Builds recorded before digests were
+	 * kept only give a baseline for the statements among their slowest, at the same position.
+	 *
+	 * @param build          - Jenkins build
+	 * @param step           - what was run, and where, see {@link PhaseTimingsAction}
+	 * @param databaseMillis - SQL*Plus run time
+	 * @param statements     - slowest timed statements of the run, may be empty
+	 * @param digest         - every timed statement of the run
+	 * @return one description per regression
+	 */
+	public List<String> check(Run<?, ?> build, String step, double databaseMillis, List<StatementTiming> statements,
+			StatementDigest digest) {
+
+		List<Double> script = new ArrayList<>();
+		List<StatementDigest> digests = new ArrayList<>();
+		List<int[]> alignments = new ArrayList<>();
+		Map<String, List<Double>> slowestBaseline = new HashMap<>();
+		int found = 0;
+		Run<?, ?> previous = build.getPreviousSuccessfulBuild();
+		for (; previous != null && found < builds; previous = previous.getPreviousSuccessfulBuild()) {
+			found++;
+			PhaseTimingsAction phases = previous.getAction(PhaseTimingsAction.class);
+			if (phases != null) {
+				for (PhaseTimingsAction.Step timed : phases.getSteps()) {
+					if (step.equals(timed.getLabel())) {
+						script.add(timed.getDatabaseMillis());
+						break;
+					}
+				}
+			}
+			StatementTimingsAction timings = previous.getAction(StatementTimingsAction.class);
+			if (timings == null) {
+				continue;
+			}
+			StatementDigest previousDigest = timings.getDigest(step);
+			if (previousDigest != null) {
+				digests.add(previousDigest);
+				alignments.add(digest.align(previousDigest));
+				continue;
+			}
+			for (StatementTiming statement : timings.getStatements()) {
+				if (step.equals(statement.getStep())) {
+					slowestBaseline.computeIfAbsent(key(statement.getOrdinal(), StatementDigest.hash(statement.getStatement())),
+							k -> new ArrayList<>()).add((double) statement.getMillis());
+				}
+			}
+		}
+
+		List<String> regressions = new ArrayList<>();
+		if (!script.isEmpty() && isSlower(median(script), databaseMillis)) {
+			regressions.add(Messages.SQLPlusRunner_regression(step, Math.round(databaseMillis),
+					Math.round(median(script)), script.size()));
+		}
+		if (digests.isEmpty() && slowestBaseline.isEmpty()) {
+			return regressions;
+		}
+		Map<Integer, String> texts = new HashMap<>();
+		for (StatementTiming statement : statements) {
+			texts.put(statement.getOrdinal(), statement.getStatement());
+		}
+		for (int ordinal = 1; ordinal <= digest.size(); ordinal++) {
+			int hash = digest.getHash(ordinal);
+			List<Double> baseline = new ArrayList<>(
+					slowestBaseline.getOrDefault(key(ordinal, hash), Collections.emptyList()));
+			for (int i = 0; i < digests.size(); i++) {
+				int previousOrdinal = alignments.get(i)[ordinal - 1];
+				if (previousOrdinal > 0) {
+					baseline.add((double) digests.get(i).getMillis(previousOrdinal));
+				}
+			}
+			long millis = digest.getMillis(ordinal);
+			if (!baseline.isEmpty() && isSlower(median(baseline), millis)) {
+				String what = step + " #" + ordinal + " " + Objects.toString(texts.get(ordinal), "");
+				regressions.add(Messages.SQLPlusRunner_regression(what.trim(), millis, Math.round(median(baseline)),
+						baseline.size()));
+			}
+		}
+		return regressions;
+	}
+
+	/**
+	 * @param baseline - baseline milliseconds
+	 * @param current  - current milliseconds
+	 * @return true if current is slower than baseline by more than both thresholds
+	 */
+	public boolean isSlower(double baseline, double current) {
+		if (!isEnabled()) {
+			return false;
+		}
+		double slowdown = current - baseline;
+		return slowdown > millis && (percent == 0 || slowdown > baseline * percent / 100);
+	}
+
+	/**
+	 * @param values - milliseconds, not empty
+	 * @return median
+	 */
+	public static double median(List<Double> values) {
+		List<Double> sorted = new ArrayList<>(values);
+		Collections.sort(sorted);
+		int middle = sorted.size() / 2;
+		return sorted.size() % 2 == 1 ? sorted.get(middle) : (sorted.get(middle - 1) + sorted.get(middle)) / 2;
+	}
+
+	/**
+	 * A statement among the slowest of an older build is the same when it has the same position and text
+	 * in the same step.
+	 */
+	private static String key(int ordinal, int hash) {
+		return ordinal + "\n" + hash;
+	}
+
+}
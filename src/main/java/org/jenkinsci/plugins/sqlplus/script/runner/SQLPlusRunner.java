@@ -1,18 +1,38 @@
 package org.jenkinsci.plugins.sqlplus.script.runner;
 
-import java.io.File;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.PrintStream;
 import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.jenkinsci.plugins.workflow.steps.FlowInterruptedException;
 
 import hudson.EnvVars;
 import hudson.FilePath;
 import hudson.Launcher;
+import hudson.Proc;
+import hudson.model.Computer;
+import hudson.model.Result;
 import hudson.model.Run;
 import hudson.model.TaskListener;
+import hudson.remoting.Channel;
+import hudson.remoting.VirtualChannel;
 import hudson.util.ArgumentListBuilder;
+import jenkins.model.Jenkins;
+import jenkins.util.BuildListenerAdapter;
+import jenkins.util.Timer;
 
 /**
  * Run SQLPlus commands on the agent, or master of Jenkins.
@@ -23,6 +43,16 @@ public class SQLPlusRunner implements Serializable {
 
 	private static final int PROCESS_EXIT_CODE_SUCCESSFUL = 0;
 
+	private static final String SPOOL_PREFIX = "sqlplus-output-";
+
+	private static final String SPOOL_SUFFIX = ".log.gz";
+
+	private static final String SPOOL_ARTIFACTS = "sqlplus/";
+
+	private static final String CONTROL_PREFIX = "sqlplus-control-";
+
+	private static final String CONTROL_SUFFIX = "";
+
 	private static final String LOGON_AS_SYSDBA = "AS  SYSDBA";
 
 	public SQLPlusRunner(Run<?, ?> build, TaskListener listener, Launcher launcher, FilePath workspace,
@@ -101,8 +131,173 @@ public class SQLPlusRunner implements Serializable {
 
 	private final boolean debug;
 
+	private boolean wrapScript;
+
+	private boolean streamScript;
+
+	private boolean pooledSessions;
+
+	private boolean failFast;
+
+	private String errorPatterns;
+
+	private int timeoutMinutes;
+
+	private int inactivityMinutes;
+
+	private boolean spoolOutput;
+
+	private int consoleLines = Spool.DEFAULT_CONSOLE_LINES;
+
+	private boolean statementTiming;
+
+	private boolean sessionStats;
+
+	private RegressionGate regressionGate;
+
+	private boolean regressionFails;
+
+	private boolean useLedger;
+
+	private transient ScriptLedger ledger;
+
+	private SQLPlusVersion sqlPlusVersion;
+
+	private NodeContext nodeContext;
+
+	private String selectedOracleHome;
+
+	private boolean hasCustomNLSLang;
+
+	private boolean hasCustomSQLPath;
+
+	private final PhaseTimer phases = new PhaseTimer();
+
+	/**
+	 * Run file scripts through a wrapper script instead of appending exit to them.
+	 *
+	 * @param wrapScript - keep file scripts untouched
+	 */
+	public void setWrapScript(boolean wrapScript) {
+		this.wrapScript = wrapScript;
+	}
+
+	/**
+	 * Send user defined scripts to SQL*Plus standard input instead of a temporary file.
+	 *
+	 * @param streamScript - use standard input
+	 */
+	public void setStreamScript(boolean streamScript) {
+		this.streamScript = streamScript;
+	}
+
 	/**
-	 * Get SQL Plus version
+	 * Run scripts on SQL*Plus sessions kept logged on between builds.
+	 *
+	 * @param pooledSessions - use {@link SessionPool}
+	 */
+	public void setPooledSessions(boolean pooledSessions) {
+		this.pooledSessions = pooledSessions;
+	}
+
+	/**
+	 * Use a node context resolved before, instead of resolving the node again.
+	 *
+	 * @param nodeContext - result of {@link #prepare()} on a runner with the same settings
+	 */
+	public void setNodeContext(NodeContext nodeContext) {
+		this.nodeContext = nodeContext;
+	}
+
+	/**
+	 * Stop SQL*Plus at the first error found in its output, instead of only reporting the errors at the end.
+	 *
+	 * @param failFast - kill SQL*Plus at the first error
+	 */
+	public void setFailFast(boolean failFast) {
+		this.failFast = failFast;
+	}
+
+	/**
+	 * @param errorPatterns - texts that are errors too, besides ORA-, SP2- and PLS-, one per line
+	 */
+	public void setErrorPatterns(String errorPatterns) {
+		this.errorPatterns = errorPatterns;
+	}
+
+	/**
+	 * Kill SQL*Plus when it runs too long, or prints nothing for too long. The run then ends as aborted.
+	 *
+	 * @param timeoutMinutes    - longest run, 0 for no limit
+	 * @param inactivityMinutes - longest time without output, 0 for no limit
+	 */
+	public void setTimeouts(int timeoutMinutes, int inactivityMinutes) {
+		this.timeoutMinutes = timeoutMinutes;
+		this.inactivityMinutes = inactivityMinutes;
+	}
+
+	/**
+	 * Write the whole output to a compressed build artifact, and only its first and last lines,
+	 * plus the errors, to the console.
+	 *
+	 * @param spoolOutput  - spool the output
+	 * @param consoleLines - first and last lines shown on the console
+	 */
+	public void setSpoolOutput(boolean spoolOutput, int consoleLines) {
+		this.spoolOutput = spoolOutput;
+		this.consoleLines = consoleLines;
+	}
+
+	/**
+	 * Turn SQL*Plus timing on and keep the slowest statements in a build report.
+	 *
+	 * @param statementTiming - time every statement
+	 */
+	public void setStatementTiming(boolean statementTiming) {
+		this.statementTiming = statementTiming;
+	}
+
+	/**
+	 * Read the Oracle statistics of the session before and after the script, in the same session,
+	 * and keep what the script used with the build.
+	 *
+	 * @param sessionStats - read session statistics
+	 */
+	public void setSessionStats(boolean sessionStats) {
+		this.sessionStats = sessionStats;
+	}
+
+	/**
+	 * Compare the run with the last successful builds, marking the build unstable, or failing it,
+	 * when the script or a statement got slower.
+	 *
+	 * @param regressionGate  - baseline and thresholds, or null
+	 * @param regressionFails - fail instead of marking the build unstable
+	 */
+	public void setRegressionGate(RegressionGate regressionGate, boolean regressionFails) {
+		this.regressionGate = regressionGate;
+		this.regressionFails = regressionFails;
+	}
+
+	/**
+	 * @return SQL*Plus version found by the last version check, or null when it was not checked
+	 */
+	public SQLPlusVersion getSQLPlusVersion() {
+		return sqlPlusVersion;
+	}
+
+	/**
+	 * Skip the file scripts the ledger of the schema shows as applied, and record the outcome of the others.
+	 * The ledger is found once the node is known, see {@link ScriptLedger#identity}.
+	 *
+	 * @param useLedger - true to keep a ledger
+	 */
+	public void setLedger(boolean useLedger) {
+		this.useLedger = useLedger;
+	}
+
+	/**
+	 * Get SQL Plus version, launching SQL*Plus only once per node and ORACLE_HOME
 	 *
 	 * @param customSQLPlusHome - custom SQL*Plus home
 	 * @param oracleHome        - Oracle Home
@@ -115,19 +310,30 @@ public class SQLPlusRunner implements Serializable {
 			throw new RuntimeException(MessageUtil.MSG_ORACLE_HOME_MISSING);
 		}
 
+		try {
+			NodeContext context = resolveContext(oracleHome, customSQLPlusHome, false);
+			runGetSQLPLusVersion(customSQLPlusHome, oracleHome, context, build.getEnvironment(listener));
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			log(MessageUtil.MSG_ERROR + e.getMessage());
+			throw new RuntimeException(e);
+		}
+	}
+
+	private void runGetSQLPLusVersion(String customSQLPlusHome, String oracleHome, NodeContext context,
+			EnvVars environment) {
+
 		boolean agentMachine = EnvUtil.isAgentMachine(launcher);
 		if (debug) {
-			log(MessageUtil.MSG_DEBUG_DETECTED_HOST + MessageUtil.MSG_EQUALS + NetUtil.getHostName());
+			log(MessageUtil.MSG_DEBUG_DETECTED_HOST + MessageUtil.MSG_EQUALS + context.getHostName());
 			log(MessageUtil.MSG_DEBUG_AGENT_MACHINE + MessageUtil.MSG_COLON + agentMachine);
 		}
 
 		boolean hasCustomSQLPlusHome = customSQLPlusHome != null && customSQLPlusHome.length() > 0;
 
-		if (!agentMachine && !hasCustomSQLPlusHome) {
-			File directoryAccessTest = new File(oracleHome);
-			if (!directoryAccessTest.exists()) {
-				throw new RuntimeException(Messages.SQLPlusRunner_wrongOracleHome(oracleHome));
-			}
+		if (!hasCustomSQLPlusHome && !context.isOracleHomeExists()) {
+			throw new RuntimeException(Messages.SQLPlusRunner_wrongOracleHome(oracleHome));
 		}
 
 		line();
@@ -135,12 +341,8 @@ public class SQLPlusRunner implements Serializable {
 		line();
 		log(MessageUtil.MSG_GET_SQL_PLUS_VERSION);
 		try {
-			String sqlplus = MessageUtil.SQLPLUS;
-			String fileSeparator = File.separator;
-			if (EnvUtil.isWindowsOS(agentMachine, listener, build)) {
-				sqlplus = MessageUtil.SQLPLUS_FOR_WINDOWS;
-				fileSeparator = MessageUtil.WINDOWS_FILE_SEPARATOR;
-			}
+			String sqlplus = context.getSqlPlusName();
+			String fileSeparator = context.getFileSeparator();
 
 			EnvVars envVars = new EnvVars();
 			envVars.put(MessageUtil.ENV_ORACLE_HOME, oracleHome);
@@ -156,14 +358,10 @@ public class SQLPlusRunner implements Serializable {
 			if (hasCustomSQLPlusHome) {
 				args.add(customSQLPlusHome);
 			} else {
-				boolean findSQLPlusOnOracleHomeBin = FileUtil.findFile(sqlplus,new File(oracleHome + fileSeparator + MessageUtil.BIN_DIR));
-				boolean findSQLPlusOnOracleHome = FileUtil.findFile(sqlplus, new File(oracleHome));
-				if (findSQLPlusOnOracleHomeBin) {
-					log(MessageUtil.FOUND_SQL_PLUS_ON	+ new File(oracleHome + fileSeparator + MessageUtil.BIN_DIR).getAbsolutePath());
-					args.add(oracleHome + fileSeparator + MessageUtil.BIN_DIR + fileSeparator + sqlplus);
-				} else if (findSQLPlusOnOracleHome) {
-					log(MessageUtil.FOUND_SQL_PLUS_ON + new File(oracleHome).getAbsolutePath());
-					args.add(oracleHome + fileSeparator + sqlplus);
+				Discovery discovery = context.getDiscovery();
+				if (Objects.nonNull(discovery.getSqlPlus())) {
+					log(MessageUtil.FOUND_SQL_PLUS_ON + discovery.getSqlPlusDir());
+					args.add(discovery.getSqlPlus());
 				} else if (agentMachine) {
 					log(MessageUtil.MSG_DEBUG_EXEC_DIR + MessageUtil.MSG_COLON + oracleHome+ fileSeparator + MessageUtil.BIN_DIR);
 					args.add(oracleHome + fileSeparator + MessageUtil.BIN_DIR + fileSeparator + sqlplus);
@@ -172,6 +370,17 @@ public class SQLPlusRunner implements Serializable {
 				}
 			}
 
+			String node = EnvUtil.getNodeName(workspace);
+			String executable = args.toList().get(0);
+			SQLPlusVersion cachedVersion = DiscoveryCache.getVersion(node, oracleHome, executable, context.getSqlPlusTimestamp());
+			if (Objects.nonNull(cachedVersion)) {
+				logDebug(MessageUtil.MSG_DEBUG + MessageUtil.MSG_DEBUG_CACHED_VERSION + MessageUtil.MSG_COLON + executable);
+				listener.getLogger().print(cachedVersion.getOutput());
+				sqlPlusVersion = cachedVersion;
+				line();
+				return;
+			}
+
 			args.add(MessageUtil.SQLPLUS_VERSION);
 
 			if (debug) {
@@ -184,10 +393,18 @@ public class SQLPlusRunner implements Serializable {
 				line();
 			}
 
+			ByteArrayOutputStream output = new ByteArrayOutputStream();
 			int exitCode;
-			exitCode = launcher.launch().cmds(args).envs(build.getEnvironment(listener).overrideAll(envVars)).stdout(listener).pwd(workspace).join();
+			exitCode = launcher.launch().cmds(args).envs(new EnvVars(environment).overrideAll(envVars)).stdout(output).pwd(workspace).join();
+			output.writeTo(listener.getLogger());
 			listener.getLogger().printf(Messages.SQLPlusRunner_processEnd() + " %d%n", exitCode);
 
+			sqlPlusVersion = SQLPlusVersion.parse(output.toString(Charset.defaultCharset()));
+			logDebug(MessageUtil.MSG_DEBUG + MessageUtil.MSG_GET_SQL_PLUS_VERSION + MessageUtil.MSG_EQUALS + sqlPlusVersion);
+			if (exitCode == PROCESS_EXIT_CODE_SUCCESSFUL && sqlPlusVersion.isKnown()) {
+				DiscoveryCache.putVersion(node, oracleHome, executable, context.getSqlPlusTimestamp(), sqlPlusVersion);
+			}
+
 		} catch (RuntimeException e) {
 			log(MessageUtil.MSG_ERROR + e.getMessage());
 			throw e;
@@ -199,14 +416,23 @@ public class SQLPlusRunner implements Serializable {
 	}
 
 	/**
-	 * Main process to run SQLPlus
+	 * Select ORACLE_HOME and the custom or global settings, then resolve the node
+	 * and check SQL*Plus version, without running any script.
+	 *
+	 * The result can be given to other runners of the same build step with
+	 * {@link #setNodeContext(NodeContext)}, so the node is resolved only once.
+	 *
+	 * @return node context
 	 */
-	public void run() throws IOException, InterruptedException {
+	public NodeContext prepare() throws IOException, InterruptedException {
+		return prepare(build.getEnvironment(listener));
+	}
+
+	private NodeContext prepare(EnvVars environment) throws IOException, InterruptedException {
 
-		String selectedOracleHome;
 		String detectedOracleHome;
-		boolean agentMachine = EnvUtil.isAgentMachine(launcher);
 
+		phases.start(PhaseTimer.Phase.DISCOVERY);
 		line();
 		log(MessageUtil.MSG_GET_ORACLE_HOME);
 
@@ -222,22 +448,19 @@ public class SQLPlusRunner implements Serializable {
 		}
 
 		// custom TNS_ADMIN
-		boolean hasCustomTNSAdmin = false;
 		if (Objects.nonNull(customTNSAdmin ) && !customTNSAdmin.isEmpty()) {
 			log(MessageUtil.MSG_CUSTOM_TNS_ADMIN);
 			log(MessageUtil.MSG_DEBUG_ENV_TNS_ADMIN + MessageUtil.MSG_COLON + customTNSAdmin);
-			hasCustomTNSAdmin = true;
 		} else if (Objects.nonNull(globalTNSAdmin ) && !globalTNSAdmin.isEmpty()) {
 			logDebug(MessageUtil.MSG_DEBUG + MessageUtil.MSG_GLOBAL_TNS_ADMIN_SELECTED);
 			line();
 			log(MessageUtil.MSG_GLOBAL_TNS_ADMIN);
 			customTNSAdmin = globalTNSAdmin;
-			hasCustomTNSAdmin = true;
 			log(MessageUtil.MSG_DEBUG_ENV_TNS_ADMIN + MessageUtil.MSG_COLON + customTNSAdmin);
 		}
 
 		// custom NLS_LANG
-		boolean hasCustomNLSLang = false;
+		hasCustomNLSLang = false;
 		if (Objects.nonNull(customNLSLang ) && customNLSLang.isEmpty()) {
 			log(MessageUtil.MSG_CUSTOM_NLS_LANG);
 			log(MessageUtil.MSG_DEBUG_ENV_NLS_LANG + MessageUtil.MSG_COLON + customNLSLang);
@@ -252,7 +475,7 @@ public class SQLPlusRunner implements Serializable {
 		}
 
 		// custom SQLPATH
-		boolean hasCustomSQLPath = false;
+		hasCustomSQLPath = false;
 		if (Objects.nonNull(customSQLPath) && !customSQLPath.isEmpty()) {
 			log(MessageUtil.MSG_CUSTOM_SQLPATH);
 			log(MessageUtil.MSG_DEBUG_ENV_SQLPATH + MessageUtil.MSG_COLON + customSQLPath);
@@ -267,7 +490,7 @@ public class SQLPlusRunner implements Serializable {
 		}
 
 		// custom ORACLE_HOME overrides everything
-		detectedOracleHome = build.getEnvironment(listener).get(MessageUtil.ENV_ORACLE_HOME);
+		detectedOracleHome = environment.get(MessageUtil.ENV_ORACLE_HOME);
 		if (Objects.nonNull(customOracleHome )&& !customOracleHome.isEmpty()) {
 			logDebug(MessageUtil.MSG_DEBUG + MessageUtil.MSG_CUSTOM_ORACLE_HOME);
 			line();
@@ -291,28 +514,105 @@ public class SQLPlusRunner implements Serializable {
 			selectedOracleHome = globalOracleHome;
 		}
 
-		if (!isHideSQLPlusVersion) {
-			runGetSQLPLusVersion(customSQLPlusHome, selectedOracleHome, listener, launcher);
-		}
-
-		logDebug(MessageUtil.MSG_DEBUG_DETECTED_HOST + MessageUtil.MSG_EQUALS + NetUtil.getHostName());
-
 		// can't find Oracle Home!
 		if (Objects. isNull(selectedOracleHome) || selectedOracleHome.isEmpty()) {
 			throw new RuntimeException(MessageUtil.MSG_ORACLE_HOME_MISSING);
 		}
 
+		// everything about the node in a single call, unless it was given
+		boolean fileScript = !ScriptType.userDefined.name().equals(scriptType) && !ScriptType.batch.name().equals(scriptType)
+				&& !ScriptType.directory.name().equals(scriptType);
+		NodeContext context = Objects.nonNull(nodeContext) ? nodeContext : resolveContext(selectedOracleHome, customSQLPlusHome, fileScript);
+		nodeContext = context;
+
+		if (!isHideSQLPlusVersion) {
+			phases.start(PhaseTimer.Phase.VERSION);
+			runGetSQLPLusVersion(customSQLPlusHome, selectedOracleHome, context, environment);
+			phases.start(PhaseTimer.Phase.DISCOVERY);
+		}
+
+		logDebug(MessageUtil.MSG_DEBUG_DETECTED_HOST + MessageUtil.MSG_EQUALS + context.getHostName());
+
 		// finding SQL*Plus
 		boolean hasCustomSQLPlusHome = Objects.nonNull(customSQLPlusHome) && !customSQLPlusHome.isEmpty();
 
-		if (!agentMachine && !hasCustomSQLPlusHome) {
-			File directoryAccessTest = new File(selectedOracleHome);
-			logDebug(MessageUtil.MSG_DEBUG + MessageUtil.MSG_DEBUG_TEST_DIR+ MessageUtil.MSG_COLON + directoryAccessTest.getAbsolutePath());
-			if (!directoryAccessTest.exists()) {
+		if (!hasCustomSQLPlusHome) {
+			logDebug(MessageUtil.MSG_DEBUG + MessageUtil.MSG_DEBUG_TEST_DIR+ MessageUtil.MSG_COLON + selectedOracleHome);
+			if (!context.isOracleHomeExists()) {
 				throw new RuntimeException(Messages.SQLPlusRunner_wrongOracleHome(selectedOracleHome));
 			}
 		}
 
+		return context;
+	}
+
+	/**
+	 * @param discovery    - what was found on the node
+	 * @param agentMachine - true on an agent
+	 * @return TNS_ADMIN: the directory of the TNSNAMES.ORA found on the node, in the custom TNS_ADMIN when there
+	 *         is one, or on agents the custom TNS_ADMIN or ORACLE_HOME, which EZConnect, LDAP or sqlnet.ora only
+	 *         setups need; null when the controller has no TNSNAMES.ORA
+	 */
+	private String tnsAdmin(Discovery discovery, boolean agentMachine) {
+		if (Objects.nonNull(discovery.getTnsNamesDir())) {
+			return discovery.getTnsNamesDir();
+		} else if (agentMachine) {
+			return Objects.nonNull(customTNSAdmin) && !customTNSAdmin.isEmpty() ? customTNSAdmin : selectedOracleHome;
+		}
+		return null;
+	}
+
+	/**
+	 * Main process to run SQLPlus
+	 */
+	public void run() throws IOException, InterruptedException {
+
+		Launch launch = start();
+		if (Objects.isNull(launch)) {
+			return;
+		}
+		ExecutionResult result;
+		try {
+			result = launch.execute();
+		} catch (RuntimeException e) {
+			launch.cleanUp();
+			throw e;
+		} catch (InterruptedException | InterruptedIOException e) {
+			launch.fail(e);
+			throw interrupted(e);
+		} catch (Exception e) {
+			launch.fail(e);
+			throw new RuntimeException(e);
+		}
+		launch.finish(result);
+	}
+
+	/**
+	 * @param e - interruption, maybe of I/O
+	 * @return the interruption, so the build is aborted rather than failed
+	 */
+	private static InterruptedException interrupted(Exception e) {
+		if (e instanceof InterruptedException) {
+			return (InterruptedException) e;
+		}
+		InterruptedException interrupted = new InterruptedException(e.getMessage());
+		interrupted.initCause(e);
+		return interrupted;
+	}
+
+	/**
+	 * Everything before SQL*Plus runs: node, scripts, environment and command line.
+	 *
+	 * @return SQL*Plus ready to run, whose files are removed once it ran, or null when the ledger shows
+	 *         every script as applied
+	 */
+	public Launch start() throws IOException, InterruptedException {
+
+		boolean agentMachine = EnvUtil.isAgentMachine(launcher);
+		EnvVars environment = build.getEnvironment(listener);
+		NodeContext context = prepare(environment);
+		boolean hasCustomSQLPlusHome = Objects.nonNull(customSQLPlusHome) && !customSQLPlusHome.isEmpty();
+
 		// validating SQL script name
 		if (Objects. isNull(script) || script.isEmpty()) {
 			line();
@@ -324,65 +624,120 @@ public class SQLPlusRunner implements Serializable {
 		if (Objects.nonNull(instance )) {
 			instanceStr = instance;
 		}
+		String what = ScriptType.userDefined.name().equals(scriptType) ? scriptType : script;
 
 		line();
 		log(MessageUtil.MSG_ORACLE_HOME + selectedOracleHome);
 		line();
 
-		String sqlplus = MessageUtil.SQLPLUS;
-		String fileSeparator = File.separator;
-		if (EnvUtil.isWindowsOS(agentMachine, listener, build)) {
-			sqlplus = MessageUtil.SQLPLUS_FOR_WINDOWS;
-			fileSeparator = MessageUtil.WINDOWS_FILE_SEPARATOR;
-		}
+		String sqlplus = context.getSqlPlusName();
+		String fileSeparator = context.getFileSeparator();
+		Discovery discovery = context.getDiscovery();
+		String tnsAdmin = tnsAdmin(discovery, agentMachine);
 
+		phases.start(PhaseTimer.Phase.SCRIPT);
+		if (useLedger) {
+			ledger = ScriptLedger.of(ScriptLedger.identity(EnvUtil.getNodeName(workspace), selectedOracleHome, tnsAdmin,
+					environment.get(MessageUtil.ENV_ORACLE_SID), user, instance), user + MessageUtil.AT + instanceStr
+					+ MessageUtil.MSG_SPACE + MessageUtil.ON + MessageUtil.MSG_SPACE + EnvUtil.getNodeName(workspace));
+		}
+		List<String> batch = new ArrayList<>();
+		List<FilePath> batchScripts = ScriptType.batch.name().equals(scriptType)
+				? BatchScript.resolve(getScriptDir(), script) : Collections.emptyList();
+		for (FilePath batchScript : batchScripts) {
+			batch.add(batchScript.getRemote());
+		}
+		// scripts already applied are skipped, before anything is written for them
+		Map<String, String> ledgered = new LinkedHashMap<>();
+		if (Objects.nonNull(ledger)) {
+			List<String> scripts = batch;
+			if (ScriptType.file.name().equals(scriptType) && context.isScriptExists()) {
+				scripts = Collections.singletonList(context.getScript());
+			}
+			if (!scripts.isEmpty()) {
+				ledgered = unapplied(scripts);
+				if (ledgered.isEmpty()) {
+					log(Messages.SQLPlusRunner_ledgerAllApplied(user + MessageUtil.AT + instanceStr));
+					line();
+					return null;
+				}
+				if (!batch.isEmpty()) {
+					batch = new ArrayList<>(ledgered.keySet());
+				}
+			}
+		}
+		for (FilePath batchScript : batchScripts) {
+			if (batch.contains(batchScript.getRemote())) {
+				BatchScript.checkNoExit(batchScript);
+			}
+		}
 		FilePath tempScript = null;
 		FilePath scriptFilePath = null;
+		byte[] scriptInput = null;
+		// statistics are read after the script, so it must not exit by itself
+		FilePath statsSettings = sessionStats ? FileUtil.createSettingsFile(build, workspace, agentMachine) : null;
+		String statsFile = Objects.isNull(statsSettings) ? null : statsSettings.getRemote();
 		// user defined SQL
-		if (ScriptType.userDefined.name().equals(scriptType)) {
+		if (ScriptType.userDefined.name().equals(scriptType) && pooledSessions) {
+			log(MessageUtil.MSG_DEFINED_SCRIPT + MessageUtil.MSG_SPACE + user+ MessageUtil.SLASH + MessageUtil.HIDDEN_PASSWORD + MessageUtil.AT + instanceStr);
+			// a pooled session must not exit, so the script goes as is
+			scriptFilePath = FileUtil.createSessionScript(build, workspace, script, agentMachine);
+			tempScript = scriptFilePath;
+			log(MessageUtil.MSG_TEMP_SCRIPT + MessageUtil.MSG_SPACE + scriptFilePath.getRemote());
+		} else if (ScriptType.userDefined.name().equals(scriptType) && streamScript) {
+			log(MessageUtil.MSG_DEFINED_SCRIPT + MessageUtil.MSG_SPACE + user+ MessageUtil.SLASH + MessageUtil.HIDDEN_PASSWORD + MessageUtil.AT + instanceStr);
+			log(MessageUtil.MSG_STREAMING_SCRIPT);
+			scriptInput = FileUtil.toStandardInput(FileUtil.driver(script, statementTiming, statsFile, false));
+		} else if (ScriptType.userDefined.name().equals(scriptType)) {
 			log(MessageUtil.MSG_DEFINED_SCRIPT + MessageUtil.MSG_SPACE + user+ MessageUtil.SLASH + MessageUtil.HIDDEN_PASSWORD + MessageUtil.AT + instanceStr);
-			scriptFilePath = FileUtil.createTempScript(build, workspace, script, agentMachine);
+			scriptFilePath = sessionStats ? FileUtil.createSessionScript(build, workspace, script, agentMachine)
+					: FileUtil.createTempScript(build, workspace, script, agentMachine);
 			tempScript = scriptFilePath;
 			log(MessageUtil.MSG_TEMP_SCRIPT + MessageUtil.MSG_SPACE + scriptFilePath.absolutize().toURI());
+		} else if (ScriptType.batch.name().equals(scriptType)) {
+			log(Messages.SQLPlusRunner_batchScripts(batch.size()) + MessageUtil.MSG_SPACE + MessageUtil.ON + MessageUtil.MSG_SPACE + user+ MessageUtil.SLASH + MessageUtil.HIDDEN_PASSWORD + MessageUtil.AT + instanceStr);
+			for (String batchScript : batch) {
+				log(MessageUtil.MSG_SCRIPT + MessageUtil.MSG_SPACE + batchScript);
+			}
+			scriptFilePath = FileUtil.createBatchScript(build, workspace, BatchScript.driver(batch, !pooledSessions && !sessionStats), agentMachine);
+			tempScript = scriptFilePath;
+			logDebug(MessageUtil.MSG_DEBUG + MessageUtil.MSG_TEMP_SCRIPT + MessageUtil.MSG_SPACE + scriptFilePath.getRemote());
 		} else {
 			// file script
-			String strScript = null;
-			if (agentMachine) {
-				if (hasCustomSQLPath) {
-   				  scriptFilePath = new FilePath(new File(customSQLPath + fileSeparator + script));
-				} else  {
-				  scriptFilePath = new FilePath(new File(workspace.getRemote() + fileSeparator + script));
-				}
-			} else {
-				if (hasCustomSQLPath) {
-					strScript = customSQLPath + fileSeparator + script;
-					scriptFilePath = new FilePath(new File(strScript));
-				} else if (Objects.nonNull(workspace )) {
-					strScript = workspace + fileSeparator + script;
-					scriptFilePath = new FilePath(new File(strScript));
-				}
-			}
+			scriptFilePath = new FilePath(launcher.getChannel(), context.getScript());
 
-			if (Objects.nonNull(scriptFilePath))
-				log(MessageUtil.MSG_SCRIPT + MessageUtil.MSG_SPACE + scriptFilePath.getRemote()+ MessageUtil.MSG_SPACE + MessageUtil.ON + MessageUtil.MSG_SPACE + user+ MessageUtil.SLASH + MessageUtil.HIDDEN_PASSWORD + MessageUtil.AT + instanceStr);
+			log(MessageUtil.MSG_SCRIPT + MessageUtil.MSG_SPACE + scriptFilePath.getRemote()+ MessageUtil.MSG_SPACE + MessageUtil.ON + MessageUtil.MSG_SPACE + user+ MessageUtil.SLASH + MessageUtil.HIDDEN_PASSWORD + MessageUtil.AT + instanceStr);
 
-			logDebug(MessageUtil.MSG_DEBUG + MessageUtil.MSG_DEBUG_TEST_SCRIPT+ MessageUtil.MSG_COLON + Objects.requireNonNull(scriptFilePath).getRemote());
-			if (!agentMachine && !scriptFilePath.exists()) {
+			logDebug(MessageUtil.MSG_DEBUG + MessageUtil.MSG_DEBUG_TEST_SCRIPT+ MessageUtil.MSG_COLON + scriptFilePath.getRemote());
+			if (!context.isScriptExists()) {
 				line();
 				log(MessageUtil.MSG_WARNING + Messages.SQLPlusRunner_missingScript(scriptFilePath.getRemote()));
 				line();
-			} else {
-				if (!agentMachine && scriptFilePath.exists() && !FileUtil.hasExitCode(scriptFilePath))
+			} else if (context.isScriptHasExit() && sessionStats) {
+				line();
+				log(MessageUtil.MSG_WARNING + Messages.SQLPlusRunner_statsScriptExits());
+				line();
+			} else if (!context.isScriptHasExit() && !pooledSessions && sessionStats) {
+				// the driver script calls it, reads the statistics and exits, the script is left as is
+				logDebug(MessageUtil.MSG_DEBUG + Messages.SQLPlusRunner_statsDriverExits());
+			} else if (!context.isScriptHasExit() && !pooledSessions) {
+				// a ledgered script must keep its hash, and scripts on agents are left as they are
+				if (wrapScript || Objects.nonNull(ledger) || agentMachine) {
+					tempScript = FileUtil.createWrapperScript(build, workspace, scriptFilePath, agentMachine);
+					logDebug(MessageUtil.MSG_DEBUG + MessageUtil.MSG_WRAPPER_SCRIPT + MessageUtil.MSG_SPACE + tempScript.getRemote());
+				} else {
 					FileUtil.addExitInTheEnd(scriptFilePath);
+				}
 			}
 		}
 
 		line();
 
-		// running script
-		int exitCode;
+		Launch launch = new Launch(what, instanceStr, tempScript, statsSettings);
+		launch.ledgered = ledgered;
 		try {
 			// calculating environment variables
+			phases.start(PhaseTimer.Phase.ENVIRONMENT);
 			EnvVars envVars = new EnvVars();
 			if (hasCustomNLSLang)
 				envVars.put(MessageUtil.ENV_NLS_LANG, customNLSLang);
@@ -391,40 +746,18 @@ public class SQLPlusRunner implements Serializable {
 
 			envVars.put(MessageUtil.ENV_ORACLE_HOME, selectedOracleHome);
 			logDebug(MessageUtil.MSG_DEBUG + MessageUtil.MSG_DEBUG_ENV_ORACLE_HOME+ MessageUtil.MSG_EQUALS + selectedOracleHome);
-			envVars.put(MessageUtil.ENV_LD_LIBRARY_PATH,	selectedOracleHome + fileSeparator + MessageUtil.LIB_DIR + File.pathSeparator + selectedOracleHome);
-			logDebug(MessageUtil.MSG_DEBUG + MessageUtil.MSG_DEBUG_ENV_LD_LIBRARY_PATH+ MessageUtil.MSG_EQUALS + selectedOracleHome + fileSeparator + MessageUtil.LIB_DIR+ File.pathSeparator + selectedOracleHome);
-
-			if (hasCustomTNSAdmin && !agentMachine) {
-				envVars.put(MessageUtil.ENV_TNS_ADMIN, customTNSAdmin);
-				boolean findTNSNAMES = FileUtil.findFile(MessageUtil.TNSNAMES_ORA, new File(customTNSAdmin));
-				if (findTNSNAMES) {
-					logDebug(MessageUtil.MSG_DEBUG + MessageUtil.MSG_DEBUG_FOUND_TNSNAMES+ MessageUtil.MSG_COLON + new File(customTNSAdmin).getAbsolutePath());
-				} else {
-					throw new RuntimeException(Messages.SQLPlusRunner_missingTNSNAMES());
-				}
-			} else if (agentMachine) {
-				if (hasCustomTNSAdmin)
-					envVars.put(MessageUtil.ENV_TNS_ADMIN, customTNSAdmin);
-				else
-					envVars.put(MessageUtil.ENV_TNS_ADMIN, selectedOracleHome);
-				logDebug(MessageUtil.MSG_DEBUG + MessageUtil.MSG_DEBUG_ENV_TNS_ADMIN	+ MessageUtil.MSG_EQUALS + selectedOracleHome);
+			envVars.put(MessageUtil.ENV_LD_LIBRARY_PATH,	selectedOracleHome + fileSeparator + MessageUtil.LIB_DIR + context.getPathSeparator() + selectedOracleHome);
+			logDebug(MessageUtil.MSG_DEBUG + MessageUtil.MSG_DEBUG_ENV_LD_LIBRARY_PATH+ MessageUtil.MSG_EQUALS + selectedOracleHome + fileSeparator + MessageUtil.LIB_DIR+ context.getPathSeparator() + selectedOracleHome);
 
+			if (Objects.isNull(tnsAdmin)) {
+				throw new RuntimeException(Messages.SQLPlusRunner_missingTNSNAMES());
+			} else if (Objects.nonNull(discovery.getTnsNamesDir())) {
+				logDebug(MessageUtil.MSG_DEBUG + MessageUtil.MSG_DEBUG_FOUND_TNSNAMES+ MessageUtil.MSG_COLON + discovery.getTnsNames());
 			} else {
-				boolean findTNSNAMESOracleHome = FileUtil.findFile(MessageUtil.TNSNAMES_ORA,new File(selectedOracleHome));
-				final var tnsnames = new File(selectedOracleHome + fileSeparator + MessageUtil.NET_DIR + fileSeparator+ MessageUtil.NET_ADM_DIR);
-				boolean findTNSNAMESOracleHomeNetworkAdmin = FileUtil.findFile(MessageUtil.TNSNAMES_ORA,	tnsnames);
-				if (findTNSNAMESOracleHomeNetworkAdmin) {
-					envVars.put(MessageUtil.ENV_TNS_ADMIN, selectedOracleHome + fileSeparator + MessageUtil.NET_DIR+ fileSeparator + MessageUtil.NET_ADM_DIR);
-					logDebug(MessageUtil.MSG_DEBUG + MessageUtil.MSG_DEBUG_FOUND_TNSNAMES+ MessageUtil.MSG_COLON+ tnsnames.getAbsolutePath());
-					logDebug(MessageUtil.MSG_DEBUG + MessageUtil.MSG_DEBUG_ENV_TNS_ADMIN+ MessageUtil.MSG_EQUALS + selectedOracleHome + fileSeparator+ MessageUtil.NET_DIR + fileSeparator + MessageUtil.NET_ADM_DIR);
-				} else if (findTNSNAMESOracleHome) {
-					envVars.put(MessageUtil.ENV_TNS_ADMIN, selectedOracleHome);
-					logDebug(MessageUtil.MSG_DEBUG + MessageUtil.MSG_DEBUG_FOUND_TNSNAMES+ MessageUtil.MSG_COLON + new File(selectedOracleHome).getAbsolutePath());
-					logDebug(MessageUtil.MSG_DEBUG + MessageUtil.MSG_DEBUG_ENV_TNS_ADMIN	+ MessageUtil.MSG_EQUALS + selectedOracleHome);
-				} else {
-					throw new RuntimeException(Messages.SQLPlusRunner_missingTNSNAMES());
-				}
+				log(MessageUtil.MSG_WARNING + Messages.SQLPlusRunner_missingTNSNAMESFallback(tnsAdmin));
 			}
+			envVars.put(MessageUtil.ENV_TNS_ADMIN, tnsAdmin);
+			logDebug(MessageUtil.MSG_DEBUG + MessageUtil.MSG_DEBUG_ENV_TNS_ADMIN	+ MessageUtil.MSG_EQUALS + tnsAdmin);
 
 			// create command arguments
 			ArgumentListBuilder args = new ArgumentListBuilder();
@@ -434,8 +767,6 @@ public class SQLPlusRunner implements Serializable {
 				argUserPasswordInstance = argUserPasswordInstance + MessageUtil.AT + instance.trim();
 			}
 
-			String argSQLscript = scriptFilePath.getRemote();
-
 			logDebug(MessageUtil.MSG_DEBUG_WORK_DIR + MessageUtil.MSG_EQUALS + workspace);
 
 			if (hasCustomSQLPlusHome) {
@@ -444,15 +775,9 @@ public class SQLPlusRunner implements Serializable {
 
 				log(MessageUtil.MSG_DEBUG_EXEC_FILE + MessageUtil.MSG_EQUALS + sqlplus);
 
-				boolean findSQLPlusOnOracleHomeBin = FileUtil.findFile(sqlplus,new File(selectedOracleHome + fileSeparator + MessageUtil.BIN_DIR));
-				boolean findSQLPlusOnOracleHome = FileUtil.findFile(sqlplus, new File(selectedOracleHome));
-
-				if (findSQLPlusOnOracleHomeBin) {
-					logDebug(MessageUtil.MSG_DEBUG + MessageUtil.FOUND_SQL_PLUS_ON+ new File(selectedOracleHome + fileSeparator + MessageUtil.BIN_DIR).getAbsolutePath());
-					args.add(selectedOracleHome + fileSeparator + MessageUtil.BIN_DIR + fileSeparator + sqlplus);
-				} else if (findSQLPlusOnOracleHome) {
-					logDebug(MessageUtil.MSG_DEBUG + MessageUtil.FOUND_SQL_PLUS_ON+ new File(selectedOracleHome).getAbsolutePath());
-					args.add(selectedOracleHome + fileSeparator + sqlplus);
+				if (Objects.nonNull(discovery.getSqlPlus())) {
+					logDebug(MessageUtil.MSG_DEBUG + MessageUtil.FOUND_SQL_PLUS_ON+ discovery.getSqlPlusDir());
+					args.add(discovery.getSqlPlus());
 				} else if (agentMachine) {
 					log(MessageUtil.MSG_DEBUG_EXEC_DIR + MessageUtil.MSG_COLON	+ selectedOracleHome + fileSeparator + MessageUtil.BIN_DIR);
 					args.add(selectedOracleHome + fileSeparator + MessageUtil.BIN_DIR + fileSeparator + sqlplus);
@@ -466,38 +791,628 @@ public class SQLPlusRunner implements Serializable {
 			if (isSysdba) {
 				args.add(LOGON_AS_SYSDBA);	
 			}
-			args.add(MessageUtil.AT + argSQLscript);
-
-			// launch SQL*Plus with arguments
-			exitCode = launcher.launch().cmds(args).envs(build.getEnvironment(listener).overrideAll(envVars)).stdout(listener).pwd(workspace).join();
-
-			listener.getLogger().printf(Messages.SQLPlusRunner_processEnd() + " %d%n", exitCode);
+			String argSQLscript = Objects.nonNull(tempScript) ? tempScript.getRemote() : scriptFilePath.getRemote();
+			if ((statementTiming || sessionStats) && Objects.isNull(scriptInput)) {
+				launch.driverScript = FileUtil.createDriverScript(build, workspace, FileUtil.driver(FileUtil.call(argSQLscript),
+						statementTiming, statsFile, sessionStats && !pooledSessions), agentMachine);
+				argSQLscript = launch.driverScript.getRemote();
+			}
+			if (!pooledSessions && Objects.isNull(scriptInput)) {
+				args.add(MessageUtil.AT + argSQLscript);
+			}
+			if (spoolOutput) {
+				launch.spoolFile = workspace.createTempFile(SPOOL_PREFIX, SPOOL_SUFFIX);
+			}
+			launch.args = args;
+			launch.envs = environment.overrideAll(envVars);
+			launch.script = argSQLscript;
+			launch.input = scriptInput;
+			launch.settings = new OutputSettings(ErrorScanner.patterns(errorPatterns), failFast, timeoutMinutes,
+					inactivityMinutes, ScriptType.batch.name().equals(scriptType), consoleLines,
+					Objects.isNull(launch.spoolFile) ? null : SPOOL_ARTIFACTS + launch.spoolFile.getName(), statementTiming, sessionStats);
+			return launch;
 
 		} catch (RuntimeException e) {
+			launch.cleanUp();
 			throw e;
+		} catch (InterruptedException | InterruptedIOException e) {
+			launch.fail(e);
+			throw interrupted(e);
 		} catch (Exception e) {
-			log(MessageUtil.MSG_ERROR + e.getMessage());
+			launch.fail(e);
 			throw new RuntimeException(e);
-		} finally {
-			if (tempScript != null) {
+		}
+	}
+
+	/**
+	 * SQL*Plus ready to run, see {@link SQLPlusRunner#start()}.
+	 *
+	 * It runs at once with {@link #execute()}, or without waiting with {@link #execute(AsyncNodeExecution.Callback)}
+	 * or {@link #detach()}, then {@link #finish(ExecutionResult)} checks the outcome, or {@link #fail(Throwable)}
+	 * cleans up after a failure.
+	 */
+	public final class Launch {
+
+		private final String what;
+
+		private final String instanceStr;
+
+		private final String step;
+
+		private final FilePath tempScript;
+
+		private final FilePath statsSettings;
+
+		private FilePath driverScript;
+
+		private FilePath spoolFile;
+
+		private FilePath control;
+
+		private ArgumentListBuilder args;
+
+		private EnvVars envs;
+
+		private String script;
+
+		private byte[] input;
+
+		private OutputSettings settings;
+
+		private Map<String, String> ledgered = new LinkedHashMap<>();
+
+		private boolean async;
+
+		private boolean cleaned;
+
+		private Launch(String what, String instanceStr, FilePath tempScript, FilePath statsSettings) {
+			this.what = what;
+			this.instanceStr = instanceStr;
+			this.step = what + MessageUtil.AT + instanceStr;
+			this.tempScript = tempScript;
+			this.statsSettings = statsSettings;
+		}
+
+		/**
+		 * Run SQL*Plus and wait for it.
+		 *
+		 * @return outcome of the run
+		 */
+		public ExecutionResult execute() throws IOException, InterruptedException {
+
+			phases.start(PhaseTimer.Phase.EXECUTION);
+			if (pooledSessions) {
+				return runPooled(args, envs, script, settings, spoolFile);
+			}
+			NodeExecution execution = nodeExecution();
+			if (Objects.isNull(execution)) {
+				return launch(args, envs, input, settings, spoolFile);
+			}
+			// output read on the node, only what reaches the console comes back, in large chunks
+			VirtualChannel channel = launcher.getChannel();
+			ExecutionResult result = channel.call(execution);
+			syncIO();
+			return result;
+		}
+
+		/**
+		 * Start SQL*Plus on the node and return at once, no thread here waits for it.
+		 *
+		 * @param callback - gets the outcome once SQL*Plus exited
+		 * @return stops the run, or null when SQL*Plus can only run with {@link #execute()}:
+		 *         on a pooled session or through a custom launcher
+		 */
+		public AsyncNodeExecution.Handle execute(AsyncNodeExecution.Callback callback) throws IOException, InterruptedException {
+
+			NodeExecution execution = nodeExecution();
+			if (Objects.isNull(execution)) {
+				return null;
+			}
+			phases.start(PhaseTimer.Phase.EXECUTION);
+			async = true;
+			return AsyncNodeExecution.start(launcher.getChannel(), execution, callback);
+		}
+
+		/**
+		 * Start SQL*Plus detached from the agent, see {@link DurableExecution}, and return at once.
+		 *
+		 * @return what to keep to find SQL*Plus again, or null when SQL*Plus cannot run detached:
+		 *         on Windows, on a pooled session or through a custom launcher
+		 */
+		public Detached detach() throws IOException, InterruptedException {
+
+			if (Objects.isNull(nodeExecution()) || !launcher.isUnix()) {
+				return null;
+			}
+			phases.start(PhaseTimer.Phase.EXECUTION);
+			async = true;
+			control = workspace.createTempDir(CONTROL_PREFIX, CONTROL_SUFFIX);
+			control.act(new DurableExecution(args, envs, workspace.getRemote(), input));
+			log(Messages.SQLPlusRunner_detached(control.getRemote()));
+			return new Detached(EnvUtil.getNodeName(workspace), control.getRemote(), System.currentTimeMillis(), what,
+					instanceStr, remote(tempScript), remote(driverScript), remote(statsSettings), remote(spoolFile), settings,
+					ledgered, Objects.isNull(ledger) ? null : ledger.getIdentity());
+		}
+
+		private NodeExecution nodeExecution() {
+			if (pooledSessions || !EnvUtil.isPlainLauncher(launcher)) {
+				return null;
+			}
+			return new NodeExecution(args, envs, workspace.getRemote(), input, settings,
+					Objects.isNull(spoolFile) ? null : spoolFile.getRemote(), listener);
+		}
+
+		private void syncIO() throws InterruptedException {
+			VirtualChannel channel = launcher.getChannel();
+			if (channel instanceof Channel) {
+				// the last output chunks are written before anything else is logged
+				((Channel) channel).syncIO();
+			}
+		}
+
+		/**
+		 * Clean up after SQL*Plus could not run, or was stopped.
+		 *
+		 * @param cause - why
+		 */
+		public void fail(Throwable cause) {
+			log(MessageUtil.MSG_ERROR + cause.getMessage());
+			cleanUp();
+		}
+
+		/**
+		 * Archive the spooled output, remove the temporary files and record the phase timings, once.
+		 */
+		public synchronized void cleanUp() {
+			if (cleaned) {
+				return;
+			}
+			cleaned = true;
+			phases.start(PhaseTimer.Phase.CLEANUP);
+			if (Objects.nonNull(spoolFile)) {
+				archiveSpool(spoolFile);
+			}
+			if (Objects.nonNull(control)) {
 				try {
-					boolean removed = tempScript.delete();
-					if (!removed)
-						listener.getLogger().printf(Messages.SQLPlusRunner_tempFileNotRemoved());
+					control.deleteRecursive();
 				} catch (Exception e) {
 					log(MessageUtil.MSG_ERROR + e.getMessage());
 				}
 			}
+			for (FilePath temp : new FilePath[] { tempScript, driverScript, statsSettings }) {
+				if (temp != null) {
+					try {
+						boolean removed = temp.delete();
+						if (!removed)
+							listener.getLogger().printf(Messages.SQLPlusRunner_tempFileNotRemoved());
+					} catch (Exception e) {
+						log(MessageUtil.MSG_ERROR + e.getMessage());
+					}
+				}
+			}
+			phases.stop();
+			PhaseTimingsAction.record(build, step, phases);
 		}
 
-		if (exitCode != PROCESS_EXIT_CODE_SUCCESSFUL) {
-			line();
-			log(MessageUtil.MSG_EXIT_CODE + MessageUtil.MSG_COLON + exitCode);
+		/**
+		 * Record the ledgered scripts: all of them when SQL*Plus exited with 0 and printed no error,
+		 * otherwise the script that failed, and those of a batch before it.
+		 *
+		 * @param result - outcome of the run
+		 */
+		private void record(ExecutionResult result) {
+			boolean success = result.getExitCode() == PROCESS_EXIT_CODE_SUCCESSFUL && result.getErrorCount() == 0
+					&& Objects.isNull(result.getExpired()) && Objects.isNull(result.getBatchCurrent());
+			// a batch that ran to its end with errors does not tell which script failed
+			int failed = Objects.nonNull(result.getBatchCurrent()) ? result.getBatchIndex() : ledgered.size() == 1 ? 1 : 0;
+			int index = 1;
+			try {
+				for (Map.Entry<String, String> ledgeredScript : ledgered.entrySet()) {
+					if (success || index < failed) {
+						ledger.record(ledgeredScript.getValue(), ScriptLedger.Outcome.SUCCESS, build.getExternalizableId(),
+								ledgeredScript.getKey());
+					} else if (index == failed) {
+						ledger.record(ledgeredScript.getValue(), ScriptLedger.Outcome.FAILED, build.getExternalizableId(),
+								ledgeredScript.getKey());
+					}
+					index++;
+				}
+			} catch (IOException e) {
+				log(MessageUtil.MSG_ERROR + e.getMessage());
+			}
+		}
+
+		/**
+		 * Clean up, record what SQL*Plus did and check the outcome.
+		 *
+		 * @param result - outcome of the run
+		 * @throws RuntimeException when the script failed
+		 * @throws FlowInterruptedException when SQL*Plus timed out
+		 */
+		public void finish(ExecutionResult result) throws IOException, InterruptedException {
+
+			if (async) {
+				syncIO();
+			}
+			int exitCode = result.getExitCode();
+			listener.getLogger().printf(Messages.SQLPlusRunner_processEnd() + " %d%n", exitCode);
+			cleanUp();
+
+			Long database = phases.getNanos().get(PhaseTimer.Phase.EXECUTION);
+			double databaseMillis = Objects.isNull(database) ? 0 : PhaseTimingsAction.millis(database);
+			TimingHistory.record(build, what, instanceStr, Math.round(databaseMillis), exitCode);
+			if (!ledgered.isEmpty() && Objects.nonNull(ledger)) {
+				record(result);
+			}
+
+			if (sessionStats) {
+				line();
+				if (result.getSessionStats().isEmpty() && result.isSessionStatsAfterMissing()) {
+					log(MessageUtil.MSG_WARNING + Messages.SQLPlusRunner_statsScriptExited());
+				} else if (result.getSessionStats().isEmpty()) {
+					log(MessageUtil.MSG_WARNING + Messages.SQLPlusRunner_statsMissing());
+				} else {
+					SessionStatsAction.record(build, step, result.getSessionStats());
+					log(Messages.SQLPlusRunner_statsUsed(result.getSessionStats()));
+				}
+			}
+
+			if (statementTiming) {
+				StatementTimingsAction.record(build, step, result.getStatements(), result.getStatementCount(),
+						result.getDigest());
+				if (!result.getStatements().isEmpty()) {
+					line();
+					log(Messages.SQLPlusRunner_statementsTimed(result.getStatementCount(), result.getStatements().get(0).getMillis()));
+				}
+			}
+
+			if (Objects.nonNull(result.getExpired())) {
+				String reason = result.getExpired() == Watchdog.Reason.TIMEOUT
+						? Messages.SQLPlusRunner_timedOut(timeoutMinutes)
+						: Messages.SQLPlusRunner_inactive(inactivityMinutes);
+				line();
+				log(reason);
+				line();
+				throw new FlowInterruptedException(Result.ABORTED, new Watchdog.TimedOut(reason));
+			}
+
+			if (result.getErrorCount() > 0) {
+				line();
+				log(Messages.SQLPlusRunner_errorsFound(result.getErrorCount()));
+				for (String error : result.getErrors()) {
+					log(error);
+				}
+				if (failFast) {
+					line();
+					throw new RuntimeException(Messages.SQLPlusRunner_failFastStopped(result.getErrors().get(0)));
+				}
+			}
+
+			if (Objects.nonNull(result.getBatchCurrent())) {
+				line();
+				if (exitCode != PROCESS_EXIT_CODE_SUCCESSFUL) {
+					log(Messages.SQLPlusRunner_batchFailed(result.getBatchCurrent(), result.getBatchIndex(), result.getBatchTotal()));
+				} else {
+					log(Messages.SQLPlusRunner_batchEnded(result.getBatchCurrent(), result.getBatchIndex(), result.getBatchTotal()));
+					line();
+					throw new RuntimeException(Messages.SQLPlusRunner_processErrorEnd());
+				}
+			}
+
+			if (exitCode != PROCESS_EXIT_CODE_SUCCESSFUL) {
+				line();
+				log(MessageUtil.MSG_EXIT_CODE + MessageUtil.MSG_COLON + exitCode);
+				line();
+				throw new RuntimeException(Messages.SQLPlusRunner_processErrorEnd());
+			}
+
+			if (Objects.nonNull(regressionGate) && regressionGate.isEnabled()) {
+				List<String> regressions = regressionGate.check(build, step, databaseMillis, result.getStatements(),
+						result.getDigest());
+				if (!regressions.isEmpty()) {
+					line();
+					for (String regression : regressions) {
+						log(MessageUtil.MSG_WARNING + regression);
+					}
+					if (regressionFails) {
+						line();
+						throw new RuntimeException(Messages.SQLPlusRunner_regressionFailed(regressions.size()));
+					}
+					log(Messages.SQLPlusRunner_regressionUnstable(regressions.size()));
+					build.setResult(Result.UNSTABLE);
+				}
+			}
+
 			line();
-			throw new RuntimeException(Messages.SQLPlusRunner_processErrorEnd());
 		}
+	}
 
-		line();
+	/**
+	 * SQL*Plus detached by an earlier runner of the same script, like before the controller restarted.
+	 *
+	 * @param detached - what was kept of the run
+	 * @return run to finish, or to clean up
+	 */
+	public Launch reattach(Detached detached) {
+
+		Launch launch = new Launch(detached.what, detached.instanceStr, path(detached.tempScript),
+				path(detached.statsSettings));
+		launch.driverScript = path(detached.driverScript);
+		launch.spoolFile = path(detached.spoolFile);
+		launch.control = path(detached.control);
+		launch.settings = detached.settings;
+		launch.ledgered = detached.ledgered;
+		if (Objects.nonNull(detached.ledger)) {
+			ledger = ScriptLedger.of(detached.ledger, detached.what + MessageUtil.AT + detached.instanceStr);
+		}
+		launch.async = true;
+		// measured on the controller clock, which went on while it was down
+		phases.add(PhaseTimer.Phase.EXECUTION,
+				TimeUnit.MILLISECONDS.toNanos(Math.max(System.currentTimeMillis() - detached.started, 0)));
+		return launch;
+	}
+
+	/**
+	 * Hash the scripts on the node, in a single call, and leave out those the ledger shows as applied.
+	 *
+	 * @param scripts - script paths on the node
+	 * @return hash by script still to run, in order
+	 */
+	private Map<String, String> unapplied(List<String> scripts) throws IOException, InterruptedException {
+
+		List<String> hashes = launcher.getChannel().call(new ScriptLedger.Hasher(scripts));
+		Map<String, String> unapplied = new LinkedHashMap<>();
+		for (int i = 0; i < scripts.size(); i++) {
+			if (ledger.isApplied(hashes.get(i))) {
+				log(Messages.SQLPlusRunner_ledgerApplied(scripts.get(i)));
+			} else {
+				unapplied.put(scripts.get(i), hashes.get(i));
+			}
+		}
+		return unapplied;
+	}
+
+	private FilePath path(String remote) {
+		return Objects.isNull(remote) ? null : new FilePath(launcher.getChannel(), remote);
+	}
+
+	private static String remote(FilePath path) {
+		return Objects.isNull(path) ? null : path.getRemote();
+	}
+
+	/**
+	 * What the controller keeps of SQL*Plus started with {@link Launch#detach()}, to find it again after a restart.
+	 */
+	public static final class Detached implements Serializable {
+
+		private static final long serialVersionUID = -1187265043929134702L;
+
+		private final String node;
+
+		private final String control;
+
+		private final long started;
+
+		private final String what;
+
+		private final String instanceStr;
+
+		private final String tempScript;
+
+		private final String driverScript;
+
+		private final String statsSettings;
+
+		private final String spoolFile;
+
+		private final OutputSettings settings;
+
+		private final LinkedHashMap<String, String> ledgered;
+
+		private final String ledger;
+
+		Detached(String node, String control, long started, String what, String instanceStr, String tempScript,
+				String driverScript, String statsSettings, String spoolFile, OutputSettings settings,
+				Map<String, String> ledgered, String ledger) {
+			this.node = node;
+			this.control = control;
+			this.started = started;
+			this.what = what;
+			this.instanceStr = instanceStr;
+			this.tempScript = tempScript;
+			this.driverScript = driverScript;
+			this.statsSettings = statsSettings;
+			this.spoolFile = spoolFile;
+			this.settings = settings;
+			this.ledgered = new LinkedHashMap<>(ledgered);
+			this.ledger = ledger;
+		}
+
+		/**
+		 * @return node running SQL*Plus, empty for the controller
+		 */
+		public String getNode() {
+			return node;
+		}
+
+		/**
+		 * @return control directory on the node, or null while the node is offline
+		 */
+		public FilePath getControl() {
+			Computer computer = Jenkins.get().getComputer(node);
+			VirtualChannel channel = Objects.isNull(computer) ? null : computer.getChannel();
+			return Objects.isNull(channel) ? null : new FilePath(channel, control);
+		}
+
+		/**
+		 * @return control directory path on the node
+		 */
+		public String getControlPath() {
+			return control;
+		}
+
+		public String getSpoolFile() {
+			return spoolFile;
+		}
+
+		public OutputSettings getSettings() {
+			return settings;
+		}
+	}
+
+	/**
+	 * Where file scripts are found, only known after {@link #prepare()}.
+	 *
+	 * @return custom SQLPATH on the node, or the workspace
+	 */
+	public FilePath getScriptDir() {
+		return hasCustomSQLPath ? new FilePath(launcher.getChannel(), customSQLPath) : workspace;
+	}
+
+	/**
+	 * Launch SQL*Plus and read its output here.
+	 *
+	 * @param args      - SQL*Plus command line
+	 * @param envs      - environment
+	 * @param input     - standard input, or null
+	 * @param settings  - output settings
+	 * @param spoolFile - compressed file getting the whole output, or null
+	 * @return outcome of the run
+	 */
+	private ExecutionResult launch(ArgumentListBuilder args, EnvVars envs, byte[] input, OutputSettings settings,
+			FilePath spoolFile) throws IOException, InterruptedException {
+
+		try (OutputFilters filters = settings.open(listener.getLogger(), Spool.open(spoolFile), Charset.defaultCharset())) {
+			Launcher.ProcStarter procStarter = launcher.launch().cmds(args).envs(envs).stdout(filters.getOutput()).pwd(workspace);
+			if (Objects.nonNull(input)) {
+				procStarter.stdin(new ByteArrayInputStream(input));
+			}
+			Proc proc = procStarter.start();
+			filters.watch(Timer.get(), () -> kill(proc));
+			return filters.finish(proc.join());
+		}
+	}
+
+	/**
+	 * Run the script on a pooled SQL*Plus session, opening one when none is idle.
+	 *
+	 * @param args      - SQL*Plus and logon arguments, without script
+	 * @param envs      - environment
+	 * @param script    - script path on the node
+	 * @param settings  - output settings
+	 * @param spoolFile - compressed file getting the whole output, or null
+	 * @return outcome of the run, with exit code 0, or the SQL*Plus exit code when the script ended the session
+	 */
+	private ExecutionResult runPooled(ArgumentListBuilder args, EnvVars envs, String script, OutputSettings settings,
+			FilePath spoolFile) throws IOException, InterruptedException {
+
+		// only what shapes the session, the build variables change with every build
+		String logon = SessionPool.key(null, user, password, Objects.isNull(instance) ? null : instance.trim(),
+				Boolean.toString(isSysdba)).getDigest();
+		SessionPool.Key key = SessionPool.key(EnvUtil.getNodeName(workspace), args.toList().get(0),
+				envs.get(MessageUtil.ENV_ORACLE_HOME), envs.get(MessageUtil.ENV_TNS_ADMIN),
+				envs.get(MessageUtil.ENV_NLS_LANG), envs.get(MessageUtil.ENV_SQLPATH), logon, workspace.getRemote());
+
+		SQLPlusSession session = SessionPool.acquire(key);
+		if (Objects.isNull(session)) {
+			log(MessageUtil.MSG_NEW_SESSION);
+			session = SQLPlusSession.open(key, launcher, args, envs, workspace);
+		} else {
+			log(MessageUtil.MSG_POOLED_SESSION);
+		}
+
+		try (OutputFilters filters = settings.open(listener.getLogger(), Spool.open(spoolFile), Charset.defaultCharset())) {
+			PrintStream logger = new PrintStream(filters.getOutput(), true, Charset.defaultCharset().name());
+			SQLPlusSession running = session;
+			filters.watch(Timer.get(), () -> Computer.threadPoolForRemoting.submit(running::close));
+
+			int exitCode;
+			try {
+				exitCode = session.run(script, logger);
+			} catch (IOException | InterruptedException | RuntimeException e) {
+				session.close();
+				throw e;
+			}
+			logger.flush();
+			if (!session.isAlive()) {
+				logDebug(MessageUtil.MSG_DEBUG + MessageUtil.MSG_SESSION_ENDED);
+			}
+			SessionPool.release(session);
+			return filters.finish(exitCode);
+		}
+	}
+
+	/**
+	 * Archive the whole output as a build artifact, and remove it from the workspace.
+	 *
+	 * @param spoolFile - compressed output in the workspace
+	 */
+	private void archiveSpool(FilePath spoolFile) {
+		String name = SPOOL_ARTIFACTS + spoolFile.getName();
+		try {
+			if (spoolFile.exists()) {
+				build.pickArtifactManager().archive(workspace, launcher, BuildListenerAdapter.wrap(listener),
+						Collections.singletonMap(name, spoolFile.getName()));
+				log(Messages.SQLPlusRunner_spoolArchived(name));
+				spoolFile.delete();
+			}
+		} catch (IOException | InterruptedException e) {
+			log(MessageUtil.MSG_ERROR + e.getMessage());
+		}
+	}
+
+	/**
+	 * Kill SQL*Plus and its children on the node, away from the thread copying its output.
+	 *
+	 * @param proc - SQL*Plus process
+	 */
+	private void kill(Proc proc) {
+		Computer.threadPoolForRemoting.submit(() -> {
+			try {
+				proc.kill();
+			} catch (IOException | InterruptedException e) {
+				log(MessageUtil.MSG_ERROR + e.getMessage());
+			}
+			return null;
+		});
+	}
+
+	/**
+	 * Resolve OS, SQL*Plus, TNSNAMES.ORA and the file script on the node, in a single remote call.
+	 * What was already found on this node is sent along and only scanned again when it is stale.
+	 *
+	 * @param oracleHome        - Oracle Home
+	 * @param customSQLPlusHome - custom SQL*Plus executable
+	 * @param fileScript        - resolve the file script too
+	 * @return node context
+	 */
+	private NodeContext resolveContext(String oracleHome, String customSQLPlusHome, boolean fileScript)
+			throws IOException, InterruptedException {
+
+		String tnsAdmin = null;
+		if (Objects.nonNull(customTNSAdmin) && !customTNSAdmin.isEmpty()) {
+			tnsAdmin = customTNSAdmin;
+		}
+		String sqlPlusHome = null;
+		if (Objects.nonNull(customSQLPlusHome) && !customSQLPlusHome.isEmpty()) {
+			sqlPlusHome = customSQLPlusHome;
+		}
+		String scriptDir = workspace.getRemote();
+		if (Objects.nonNull(customSQLPath) && !customSQLPath.isEmpty()) {
+			scriptDir = customSQLPath;
+		}
+
+		String node = EnvUtil.getNodeName(workspace);
+		Discovery cached = DiscoveryCache.get(node, oracleHome, customSQLPath, tnsAdmin);
+		NodeContext context = launcher.getChannel().call(new NodeDiscovery(oracleHome, sqlPlusHome, tnsAdmin,
+				scriptDir, fileScript ? script : null, cached));
+
+		if (context.isCachedDiscovery()) {
+			logDebug(MessageUtil.MSG_DEBUG + MessageUtil.MSG_DEBUG_CACHED_DISCOVERY + MessageUtil.MSG_COLON + oracleHome);
+		} else {
+			DiscoveryCache.put(node, oracleHome, customSQLPath, tnsAdmin, context.getDiscovery());
+		}
+		return context;
 	}
 
 	private void writeObject(ObjectOutputStream stream) throws IOException {
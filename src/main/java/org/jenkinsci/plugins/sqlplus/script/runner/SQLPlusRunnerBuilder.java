@@ -4,12 +4,16 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 import org.jenkinsci.Symbol;
 import org.kohsuke.stapler.AncestorInPath;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
 import org.kohsuke.stapler.StaplerRequest;
 
 import com.cloudbees.plugins.credentials.Credentials;
@@ -35,6 +39,7 @@ import hudson.security.ACL;
 import hudson.security.AccessControlled;
 import hudson.tasks.BuildStepDescriptor;
 import hudson.tasks.Builder;
+import hudson.util.FormValidation;
 import hudson.util.ListBoxModel;
 import jenkins.model.Jenkins;
 import jenkins.tasks.SimpleBuildStep;
@@ -57,6 +62,24 @@ public class SQLPlusRunnerBuilder extends Builder implements SimpleBuildStep {
 	private String customTNSAdmin;
 	private String customNLSLang;
 	private String customSQLPath;
+	private String scripts;
+	private String instances;
+	private int parallelism = FanOut.DEFAULT_PARALLELISM;
+	private String scriptDirectory;
+	private int workers = ParallelScripts.DEFAULT_WORKERS;
+	private boolean failFast;
+	private String errorPatterns;
+	private int timeoutMinutes;
+	private int inactivityMinutes;
+	private boolean spoolOutput;
+	private int consoleLines = Spool.DEFAULT_CONSOLE_LINES;
+	private boolean statementTiming;
+	private boolean sessionStats;
+	private int regressionBuilds;
+	private int regressionPercent = RegressionGate.DEFAULT_PERCENT;
+	private int regressionMillis = RegressionGate.DEFAULT_MILLIS;
+	private boolean regressionFails;
+	private boolean ledger;
 
 	@DataBoundConstructor
 	public SQLPlusRunnerBuilder(String credentialsId, String user, String password,String isSysdba, String instance, String scriptType, String script,
@@ -131,6 +154,168 @@ public class SQLPlusRunnerBuilder extends Builder implements SimpleBuildStep {
 		return scriptContent;
 	}
 
+	public String getScripts() {
+		return scripts;
+	}
+
+	@DataBoundSetter
+	public void setScripts(String scripts) {
+		this.scripts = scripts;
+	}
+
+	public String getInstances() {
+		return instances;
+	}
+
+	@DataBoundSetter
+	public void setInstances(String instances) {
+		this.instances = instances;
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	@DataBoundSetter
+	public void setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+	}
+
+	public String getScriptDirectory() {
+		return scriptDirectory;
+	}
+
+	@DataBoundSetter
+	public void setScriptDirectory(String scriptDirectory) {
+		this.scriptDirectory = scriptDirectory;
+	}
+
+	public int getWorkers() {
+		return workers;
+	}
+
+	@DataBoundSetter
+	public void setWorkers(int workers) {
+		this.workers = workers;
+	}
+
+	public boolean isFailFast() {
+		return failFast;
+	}
+
+	@DataBoundSetter
+	public void setFailFast(boolean failFast) {
+		this.failFast = failFast;
+	}
+
+	public String getErrorPatterns() {
+		return errorPatterns;
+	}
+
+	@DataBoundSetter
+	public void setErrorPatterns(String errorPatterns) {
+		this.errorPatterns = errorPatterns;
+	}
+
+	public int getTimeoutMinutes() {
+		return timeoutMinutes;
+	}
+
+	@DataBoundSetter
+	public void setTimeoutMinutes(int timeoutMinutes) {
+		this.timeoutMinutes = timeoutMinutes;
+	}
+
+	public int getInactivityMinutes() {
+		return inactivityMinutes;
+	}
+
+	@DataBoundSetter
+	public void setInactivityMinutes(int inactivityMinutes) {
+		this.inactivityMinutes = inactivityMinutes;
+	}
+
+	public boolean isSpoolOutput() {
+		return spoolOutput;
+	}
+
+	@DataBoundSetter
+	public void setSpoolOutput(boolean spoolOutput) {
+		this.spoolOutput = spoolOutput;
+	}
+
+	public int getConsoleLines() {
+		return consoleLines;
+	}
+
+	@DataBoundSetter
+	public void setConsoleLines(int consoleLines) {
+		this.consoleLines = consoleLines;
+	}
+
+	public boolean isStatementTiming() {
+		return statementTiming;
+	}
+
+	@DataBoundSetter
+	public void setStatementTiming(boolean statementTiming) {
+		this.statementTiming = statementTiming;
+	}
+
+	public boolean isSessionStats() {
+		return sessionStats;
+	}
+
+	@DataBoundSetter
+	public void setSessionStats(boolean sessionStats) {
+		this.sessionStats = sessionStats;
+	}
+
+	public int getRegressionBuilds() {
+		return regressionBuilds;
+	}
+
+	@DataBoundSetter
+	public void setRegressionBuilds(int regressionBuilds) {
+		this.regressionBuilds = regressionBuilds;
+	}
+
+	public int getRegressionPercent() {
+		return regressionPercent;
+	}
+
+	@DataBoundSetter
+	public void setRegressionPercent(int regressionPercent) {
+		this.regressionPercent = regressionPercent;
+	}
+
+	public int getRegressionMillis() {
+		return regressionMillis;
+	}
+
+	@DataBoundSetter
+	public void setRegressionMillis(int regressionMillis) {
+		this.regressionMillis = regressionMillis;
+	}
+
+	public boolean isRegressionFails() {
+		return regressionFails;
+	}
+
+	@DataBoundSetter
+	public void setRegressionFails(boolean regressionFails) {
+		this.regressionFails = regressionFails;
+	}
+
+	public boolean isLedger() {
+		return ledger;
+	}
+
+	@DataBoundSetter
+	public void setLedger(boolean ledger) {
+		this.ledger = ledger;
+	}
+
 	public String getCustomOracleHome() {
 		return customOracleHome;
 	}
@@ -169,20 +354,82 @@ public class SQLPlusRunnerBuilder extends Builder implements SimpleBuildStep {
 	public void perform(Run<?, ?> build, FilePath workspace, Launcher launcher, TaskListener listener)
 			throws InterruptedException, IOException {
 
-		String sqlScript;
+		String sqlScript = getSQLScript();
+		String[] logon = logon(build);
+		String usr = logon[0];
+		String pwd = logon[1];
+
+		boolean isConnectAsSysdba = "true".equalsIgnoreCase(isSysdba);
+		
+		EnvVars env = build.getEnvironment(listener);
+
+		if (instances != null && !instances.trim().isEmpty()) {
+			if (ScriptType.directory.name().equals(scriptType)) {
+				throw new AbortException(Messages.SQLPlusRunner_directoryInstances());
+			}
+			fanOut(build, workspace, launcher, listener, env, usr, pwd, isConnectAsSysdba, env.expand(sqlScript));
+			return;
+		}
+
+		if (ScriptType.directory.name().equals(scriptType)) {
+			runDirectory(build, workspace, launcher, listener, usr, pwd, isConnectAsSysdba, env.expand(instance),
+					env.expand(sqlScript));
+			return;
+		}
+
+		SQLPlusRunner sqlPlusRunner = createRunner(build, workspace, launcher, listener, getDescriptor().isHideSQLPlusVersion(),
+				usr, pwd, isConnectAsSysdba, env.expand(instance), scriptType, env.expand(sqlScript));
+
+		try {
+
+			sqlPlusRunner.run();
+
+		} catch (InterruptedException e) {
+			// aborted, or timed out
+			throw e;
+		} catch (Exception e) {
+
+			e.printStackTrace(listener.getLogger());
+			throw new AbortException(e.getMessage());
+		}
+
+	}
+
+	/**
+	 * Runner of the script on its instance, for the Pipeline step, which neither fans out nor runs directories.
+	 */
+	SQLPlusRunner createRunner(Run<?, ?> build, FilePath workspace, Launcher launcher, TaskListener listener)
+			throws IOException, InterruptedException {
+
+		String[] logon = logon(build);
+		EnvVars env = build.getEnvironment(listener);
+		return createRunner(build, workspace, launcher, listener, getDescriptor().isHideSQLPlusVersion(), logon[0],
+				logon[1], "true".equalsIgnoreCase(isSysdba), env.expand(instance), scriptType, env.expand(getSQLScript()));
+	}
+
+	private String getSQLScript() {
 		if (ScriptType.userDefined.name().equals(scriptType)) {
-			sqlScript = scriptContent;
-		} else {
-			sqlScript = script;
+			return scriptContent;
+		} else if (ScriptType.batch.name().equals(scriptType)) {
+			return scripts;
+		} else if (ScriptType.directory.name().equals(scriptType)) {
+			return scriptDirectory;
 		}
+		return script;
+	}
+
+	/**
+	 * @return user and password, from the credentials when there are any
+	 */
+	private String[] logon(Run<?, ?> build) throws AbortException {
 
 		String usr = this.user;
 		String pwd = this.password;
 
 		if(credentialsId != null){
 			final UsernamePasswordCredentials credentials =  CredentialsProvider.findCredentialById(credentialsId,
-																	 StandardUsernamePasswordCredentials.class,
-																	 build, null, null);
+																			 StandardUsernamePasswordCredentials.class,
+																			 build, null, null);
 			if (credentials != null){
 				usr = credentials.getUsername();
 				pwd = credentials.getPassword().getPlainText();
@@ -192,27 +439,109 @@ public class SQLPlusRunnerBuilder extends Builder implements SimpleBuildStep {
 		if (usr == null || pwd == null) {
 			throw new AbortException(Messages.SQLPlusRunner_errorInvalidCredentials(credentialsId));
 		}
+		return new String[] { usr, pwd };
+	}
 
-		boolean isConnectAsSysdba = "true".equalsIgnoreCase(isSysdba);
-		
-		EnvVars env = build.getEnvironment(listener);
-
-		SQLPlusRunner sqlPlusRunner = new SQLPlusRunner(build, listener, launcher, workspace,
-				getDescriptor().isHideSQLPlusVersion(), usr, pwd, isConnectAsSysdba, env.expand(instance), env.expand(sqlScript),
-				getDescriptor().globalOracleHome, getDescriptor().globalSQLPlusHome, getDescriptor().globalTNSAdmin, getDescriptor().globalNLSLang, getDescriptor().getGlobalSQLPath(),
-				scriptType, customOracleHome, customSQLPlusHome, customTNSAdmin, customNLSLang, customSQLPath, getDescriptor().tryToDetectOracleHome,
-				getDescriptor().isDebug());
+	/**
+	 * Run the script on every instance, resolving the node only once.
+	 */
+	private void fanOut(Run<?, ?> build, FilePath workspace, Launcher launcher, TaskListener listener, EnvVars env,
+			String usr, String pwd, boolean isConnectAsSysdba, String sqlScript) throws IOException, InterruptedException {
 
+		SQLPlusRunner probe = createRunner(build, workspace, launcher, listener, getDescriptor().isHideSQLPlusVersion(),
+				usr, pwd, isConnectAsSysdba, null, scriptType, sqlScript);
+		NodeContext context;
 		try {
+			context = probe.prepare();
+		} catch (RuntimeException e) {
+			e.printStackTrace(listener.getLogger());
+			throw new AbortException(e.getMessage());
+		}
 
-			sqlPlusRunner.run();
+		String expandedInstances = env.expand(instances);
+		List<String> aliases = new ArrayList<>();
+		String tnsNames = context.getDiscovery().getTnsNames();
+		if (BatchScript.split(expandedInstances).stream().anyMatch(FanOut::isPattern) && tnsNames != null) {
+			aliases = TnsNames.aliases(new FilePath(launcher.getChannel(), tnsNames).readToString());
+		}
+		List<String> resolved = FanOut.resolve(expandedInstances, aliases);
+
+		int threads = parallelism > 0 ? parallelism : FanOut.DEFAULT_PARALLELISM;
+		listener.getLogger().println(Messages.SQLPlusRunner_fanOutInstances(resolved.size(), threads));
+
+		new FanOut(threads, listener).run(resolved, (inst, instanceListener) -> {
+			SQLPlusRunner runner = createRunner(build, workspace, launcher, instanceListener, true, usr, pwd,
+					isConnectAsSysdba, inst, scriptType, sqlScript);
+			runner.setNodeContext(context);
+			// instances run at once, so the script file itself is never changed
+			runner.setWrapScript(true);
+			return runner;
+		});
+	}
 
-		} catch (Exception e) {
+	/**
+	 * Run every script of a directory, each in its own session, once the scripts it depends on succeeded.
+	 */
+	private void runDirectory(Run<?, ?> build, FilePath workspace, Launcher launcher, TaskListener listener,
+			String usr, String pwd, boolean isConnectAsSysdba, String inst, String directory)
+			throws IOException, InterruptedException {
 
+		SQLPlusRunner probe = createRunner(build, workspace, launcher, listener, getDescriptor().isHideSQLPlusVersion(),
+				usr, pwd, isConnectAsSysdba, inst, scriptType, directory);
+		NodeContext context;
+		try {
+			context = probe.prepare();
+		} catch (RuntimeException e) {
 			e.printStackTrace(listener.getLogger());
 			throw new AbortException(e.getMessage());
 		}
 
+		ScriptGraph graph = ScriptGraph.scan(probe.getScriptDir().child(directory));
+		int threads = workers > 0 ? workers : ParallelScripts.DEFAULT_WORKERS;
+		listener.getLogger().println(Messages.SQLPlusRunner_directoryScripts(graph.getScripts().size(), threads));
+
+		Map<String, Long> durations;
+		try {
+			durations = new ParallelScripts(threads, listener).run(graph,
+				ScriptTimingsAction.previous(build), (name, scriptListener) -> {
+					String path = graph.getPath(name);
+					SQLPlusRunner runner = createRunner(build, workspace, launcher, scriptListener, true, usr, pwd,
+							isConnectAsSysdba, inst, ScriptType.file.name(), path);
+					runner.setNodeContext(context.withScript(path, true, graph.hasExit(name)));
+					// scripts run at once, so no script file is ever changed
+					runner.setWrapScript(true);
+					runner.run();
+				});
+		} catch (ParallelScripts.Failed e) {
+			// the scripts that succeeded still order the next run
+			ScriptTimingsAction.record(build, e.getDurations());
+			throw e;
+		}
+		ScriptTimingsAction.record(build, durations);
+	}
+
+	private SQLPlusRunner createRunner(Run<?, ?> build, FilePath workspace, Launcher launcher, TaskListener listener,
+			boolean hideSQLPlusVersion, String usr, String pwd, boolean isConnectAsSysdba, String inst, String type,
+			String sqlScript) {
+
+		SQLPlusRunner sqlPlusRunner = new SQLPlusRunner(build, listener, launcher, workspace,
+				hideSQLPlusVersion, usr, pwd, isConnectAsSysdba, inst, sqlScript,
+				getDescriptor().globalOracleHome, getDescriptor().globalSQLPlusHome, getDescriptor().globalTNSAdmin, getDescriptor().globalNLSLang, getDescriptor().getGlobalSQLPath(),
+				type, customOracleHome, customSQLPlusHome, customTNSAdmin, customNLSLang, customSQLPath, getDescriptor().tryToDetectOracleHome,
+				getDescriptor().isDebug());
+		sqlPlusRunner.setWrapScript(getDescriptor().isWrapScript());
+		sqlPlusRunner.setStreamScript(getDescriptor().isStreamScript());
+		sqlPlusRunner.setPooledSessions(getDescriptor().isPooledSessions());
+		sqlPlusRunner.setFailFast(failFast);
+		sqlPlusRunner.setErrorPatterns(errorPatterns);
+		sqlPlusRunner.setTimeouts(timeoutMinutes, inactivityMinutes);
+		sqlPlusRunner.setSpoolOutput(spoolOutput, consoleLines);
+		sqlPlusRunner.setStatementTiming(statementTiming);
+		sqlPlusRunner.setSessionStats(sessionStats);
+		sqlPlusRunner.setRegressionGate(new RegressionGate(regressionBuilds, regressionPercent, regressionMillis),
+				regressionFails);
+		sqlPlusRunner.setLedger(ledger);
+		return sqlPlusRunner;
 	}
 
 	@Override
@@ -234,9 +563,19 @@ public class SQLPlusRunnerBuilder extends Builder implements SimpleBuildStep {
 		private static final String HIDE_SQL_PLUS_VERSION = "hideSQLPlusVersion";
 		private static final String TRY_TO_DETECT_ORACLE_HOME = "tryToDetectOracleHome";
 		private static final String DEBUG = "debug";
+		private static final String WRAP_SCRIPT = "wrapScript";
+		private static final String STREAM_SCRIPT = "streamScript";
+		private static final String POOLED_SESSIONS = "pooledSessions";
+		private static final String POOL_MAX_SIZE = "poolMaxSize";
+		private static final String POOL_IDLE_MINUTES = "poolIdleMinutes";
 		private boolean hideSQLPlusVersion;
 		private boolean tryToDetectOracleHome;
 		private boolean debug;
+		private boolean wrapScript;
+		private boolean streamScript;
+		private boolean pooledSessions;
+		private int poolMaxSize = SessionPool.DEFAULT_MAX_SIZE;
+		private int poolIdleMinutes = SessionPool.DEFAULT_IDLE_MINUTES;
 		private String globalOracleHome;
 		private String globalSQLPlusHome;
 		private String globalTNSAdmin;
@@ -268,6 +607,11 @@ public class SQLPlusRunnerBuilder extends Builder implements SimpleBuildStep {
 			globalSQLPath = formData.getString(GLOBAL_SQL_PATH);
 			tryToDetectOracleHome = formData.getBoolean(TRY_TO_DETECT_ORACLE_HOME);
 			debug = formData.getBoolean(DEBUG);
+			wrapScript = formData.getBoolean(WRAP_SCRIPT);
+			streamScript = formData.getBoolean(STREAM_SCRIPT);
+			pooledSessions = formData.getBoolean(POOLED_SESSIONS);
+			poolMaxSize = formData.optInt(POOL_MAX_SIZE, SessionPool.DEFAULT_MAX_SIZE);
+			poolIdleMinutes = formData.optInt(POOL_IDLE_MINUTES, SessionPool.DEFAULT_IDLE_MINUTES);
 			save();
 			return super.configure(req, formData);
 		}
@@ -296,6 +640,46 @@ public class SQLPlusRunnerBuilder extends Builder implements SimpleBuildStep {
 			this.debug = debug;
 		}
 
+		public boolean isWrapScript() {
+			return wrapScript;
+		}
+
+		public void setWrapScript(boolean wrapScript) {
+			this.wrapScript = wrapScript;
+		}
+
+		public boolean isStreamScript() {
+			return streamScript;
+		}
+
+		public void setStreamScript(boolean streamScript) {
+			this.streamScript = streamScript;
+		}
+
+		public boolean isPooledSessions() {
+			return pooledSessions;
+		}
+
+		public void setPooledSessions(boolean pooledSessions) {
+			this.pooledSessions = pooledSessions;
+		}
+
+		public int getPoolMaxSize() {
+			return poolMaxSize;
+		}
+
+		public void setPoolMaxSize(int poolMaxSize) {
+			this.poolMaxSize = poolMaxSize;
+		}
+
+		public int getPoolIdleMinutes() {
+			return poolIdleMinutes;
+		}
+
+		public void setPoolIdleMinutes(int poolIdleMinutes) {
+			this.poolIdleMinutes = poolIdleMinutes;
+		}
+
 		public String getOracleHome() {
 			return globalOracleHome;
 		}
@@ -344,6 +728,13 @@ public class SQLPlusRunnerBuilder extends Builder implements SimpleBuildStep {
 			this.globalOracleHome = globalOracleHome;
 		}
 
+		public FormValidation doCheckInstances(@QueryParameter String instances, @QueryParameter String scriptType) {
+			if (instances != null && !instances.trim().isEmpty() && ScriptType.directory.name().equals(scriptType)) {
+				return FormValidation.error(Messages.SQLPlusRunner_directoryInstances());
+			}
+			return FormValidation.ok();
+		}
+
 		@SuppressWarnings("deprecation")
 		public ListBoxModel doFillCredentialsIdItems(@AncestorInPath ItemGroup<?> context) {
 			if (!(Objects.requireNonNull(context instanceof AccessControlled ? (AccessControlled) context : Jenkins.getInstance()))
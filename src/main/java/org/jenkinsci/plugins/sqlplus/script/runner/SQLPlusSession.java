@@ -0,0 +1,201 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import hudson.EnvVars;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.Proc;
+import hudson.util.ArgumentListBuilder;
+
+/**
+ * A long-lived SQL*Plus process that runs one script after another.
+ *
+ * Every script is sent through standard input as <i>@"script"</i>, followed by a terminator for a
+ * statement the script left open, a rollback of what the script did not commit, WHENEVER resets and a
+ * <i>PROMPT</i> with a unique marker, so the next script starts with no pending transaction. Everything printed before the
+ * marker is the script output. If SQL*Plus ends before the marker, the script ended the
+ * session (exit; or WHENEVER ... EXIT) and its exit code is the one of the process.
+ */
+public class SQLPlusSession {
+
+	private static final Logger LOGGER = Logger.getLogger(SQLPlusSession.class.getName());
+
+	private static final String EOL = "\n";
+
+	private static final String EXIT = "exit;";
+
+	private static final String MARKER_PREFIX = "SQLPLUS-RUNNER-";
+
+	private static final String SETUP = "SET SQLPROMPT \"\"";
+
+	private static final String AFTER_SCRIPT = ";" + EOL
+			+ "ROLLBACK;" + EOL
+			+ "WHENEVER SQLERROR CONTINUE NONE" + EOL
+			+ "WHENEVER OSERROR CONTINUE NONE" + EOL;
+
+	private static final String PROMPT = "PROMPT ";
+
+	/**
+	 * Variables of the build that opened the session, wrong for the next builds. Without the cookies,
+	 * the process is not killed with the build that started it.
+	 */
+	private static final String[] BUILD_VARIABLES = { "BUILD_NUMBER", "BUILD_ID", "BUILD_DISPLAY_NAME", "BUILD_TAG",
+			"BUILD_URL", "EXECUTOR_NUMBER", "WORKSPACE", "JENKINS_SERVER_COOKIE", "HUDSON_SERVER_COOKIE",
+			"JENKINS_NODE_COOKIE", "HUDSON_COOKIE" };
+
+	private final SessionPool.Key key;
+
+	private final Proc proc;
+
+	private final OutputStream stdin;
+
+	private final BufferedReader stdout;
+
+	private final Charset charset;
+
+	private String pendingMarker;
+
+	private boolean alive = true;
+
+	private long lastUsed = System.currentTimeMillis();
+
+	/**
+	 * @param key     - pool key
+	 * @param proc    - SQL*Plus started with standard input and output as pipes
+	 * @param charset - charset of SQL*Plus
+	 */
+	public SQLPlusSession(SessionPool.Key key, Proc proc, Charset charset) {
+		this.key = key;
+		this.proc = proc;
+		this.charset = charset;
+		this.stdin = proc.getStdin();
+		this.stdout = new BufferedReader(new InputStreamReader(proc.getStdout(), charset));
+	}
+
+	/**
+	 * Start SQL*Plus and log on. Logon output is printed with the first script.
+	 *
+	 * @param key      - pool key
+	 * @param launcher - Jenkins launcher
+	 * @param args     - SQL*Plus and logon arguments, without script
+	 * @param envs     - environment of the build
+	 * @param pwd      - working directory
+	 * @return new session
+	 */
+	public static SQLPlusSession open(SessionPool.Key key, Launcher launcher, ArgumentListBuilder args, EnvVars envs,
+			FilePath pwd) throws IOException {
+
+		Proc proc = launcher.launch().cmds(args).envs(environment(envs)).pwd(pwd).writeStdin().readStdout().start();
+		SQLPlusSession session = new SQLPlusSession(key, proc, Charset.defaultCharset());
+		session.pendingMarker = session.send(SETUP + EOL);
+		return session;
+	}
+
+	/**
+	 * @param envs - environment of the build
+	 * @return environment of a session outliving the build
+	 */
+	public static EnvVars environment(EnvVars envs) {
+		EnvVars session = new EnvVars(envs);
+		for (String name : BUILD_VARIABLES) {
+			session.remove(name);
+		}
+		return session;
+	}
+
+	/**
+	 * Run a script and copy its output to the logger. The wait ends when the session is closed,
+	 * like by the watchdog of the run.
+	 *
+	 * @param script - path of the script on the node
+	 * @param logger - build log
+	 * @return 0 when the session is still alive, otherwise the SQL*Plus exit code
+	 */
+	public int run(String script, PrintStream logger) throws IOException, InterruptedException {
+
+		if (pendingMarker != null && !readUntil(pendingMarker, logger)) {
+			return end();
+		}
+		pendingMarker = null;
+
+		String marker;
+		try {
+			marker = send(MessageUtil.AT + MessageUtil.DOUBLE_QUOTES + script + MessageUtil.DOUBLE_QUOTES
+					+ EOL + AFTER_SCRIPT);
+		} catch (IOException e) {
+			// SQL*Plus is gone, the exit code tells why
+			return end();
+		}
+		if (!readUntil(marker, logger)) {
+			return end();
+		}
+		lastUsed = System.currentTimeMillis();
+		return 0;
+	}
+
+	private String send(String commands) throws IOException {
+		String marker = MARKER_PREFIX + UUID.randomUUID();
+		stdin.write((commands + PROMPT + marker + EOL).getBytes(charset));
+		stdin.flush();
+		return marker;
+	}
+
+	private boolean readUntil(String marker, PrintStream logger) throws IOException {
+		String line;
+		while ((line = stdout.readLine()) != null) {
+			if (line.contains(marker)) {
+				return true;
+			}
+			logger.println(line);
+		}
+		return false;
+	}
+
+	private int end() throws IOException, InterruptedException {
+		alive = false;
+		return proc.join();
+	}
+
+	public SessionPool.Key getKey() {
+		return key;
+	}
+
+	public boolean isAlive() {
+		return alive;
+	}
+
+	public long getLastUsed() {
+		return lastUsed;
+	}
+
+	/**
+	 * Log off and stop SQL*Plus.
+	 */
+	public void close() {
+		alive = false;
+		// what scripts did not commit was rolled back after each, nothing is pending if logoff is cut short
+		try {
+			stdin.write((EXIT + EOL).getBytes(charset));
+			stdin.close();
+		} catch (IOException e) {
+			// already gone
+		}
+		try {
+			proc.kill();
+		} catch (IOException e) {
+			LOGGER.log(Level.FINE, "Failed to stop SQL*Plus session", e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,351 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.io.Serializable;
+import java.util.Set;
+
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.kohsuke.stapler.AncestorInPath;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.ItemGroup;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.util.ListBoxModel;
+import jenkins.model.Jenkins;
+
+/**
+ * Pipeline step <i>sqlplus</i>, running a script like {@link SQLPlusRunnerBuilder} does, without holding
+ * a controller thread while SQL*Plus runs.
+ *
+ * It takes the options of the builder, except instances and directories of scripts.
+ * When durable, SQL*Plus runs detached on Unix nodes and survives restarts of the controller.
+ */
+public class SQLPlusStep extends Step implements Serializable {
+
+	private static final long serialVersionUID = 6391025863418857721L;
+
+	private final String credentialsId;
+	private final String instance;
+	private final String scriptType;
+	private final String script;
+	private final String scriptContent;
+
+	private String isSysdba;
+	private String customOracleHome;
+	private String customSQLPlusHome;
+	private String customTNSAdmin;
+	private String customNLSLang;
+	private String customSQLPath;
+	private String scripts;
+	private boolean failFast;
+	private String errorPatterns;
+	private int timeoutMinutes;
+	private int inactivityMinutes;
+	private boolean spoolOutput;
+	private int consoleLines = Spool.DEFAULT_CONSOLE_LINES;
+	private boolean statementTiming;
+	private boolean sessionStats;
+	private int regressionBuilds;
+	private int regressionPercent = RegressionGate.DEFAULT_PERCENT;
+	private int regressionMillis = RegressionGate.DEFAULT_MILLIS;
+	private boolean regressionFails;
+	private boolean durable;
+	private boolean ledger;
+
+	@DataBoundConstructor
+	public SQLPlusStep(String credentialsId, String instance, String scriptType, String script, String scriptContent) {
+		this.credentialsId = credentialsId;
+		this.instance = instance;
+		this.scriptType = scriptType;
+		this.script = script;
+		this.scriptContent = scriptContent;
+	}
+
+	@Override
+	public StepExecution start(StepContext context) throws Exception {
+		return new SQLPlusStepExecution(this, context);
+	}
+
+	/**
+	 * @return builder with the same options, running the script
+	 */
+	SQLPlusRunnerBuilder toBuilder() {
+		SQLPlusRunnerBuilder builder = new SQLPlusRunnerBuilder(credentialsId, null, null, isSysdba, instance,
+				scriptType, script, scriptContent);
+		builder.setCustomOracleHome(customOracleHome);
+		builder.setCustomSQLPlusHome(customSQLPlusHome);
+		builder.setCustomTNSAdmin(customTNSAdmin);
+		builder.setCustomNLSLang(customNLSLang);
+		builder.setCustomSQLPath(customSQLPath);
+		builder.setScripts(scripts);
+		builder.setFailFast(failFast);
+		builder.setErrorPatterns(errorPatterns);
+		builder.setTimeoutMinutes(timeoutMinutes);
+		builder.setInactivityMinutes(inactivityMinutes);
+		builder.setSpoolOutput(spoolOutput);
+		builder.setConsoleLines(consoleLines);
+		builder.setStatementTiming(statementTiming);
+		builder.setSessionStats(sessionStats);
+		builder.setRegressionBuilds(regressionBuilds);
+		builder.setRegressionPercent(regressionPercent);
+		builder.setRegressionMillis(regressionMillis);
+		builder.setRegressionFails(regressionFails);
+		builder.setLedger(ledger);
+		return builder;
+	}
+
+	public String getCredentialsId() {
+		return credentialsId;
+	}
+
+	public String getInstance() {
+		return instance;
+	}
+
+	public String getScriptType() {
+		return scriptType;
+	}
+
+	public String getScript() {
+		return script;
+	}
+
+	public String getScriptContent() {
+		return scriptContent;
+	}
+
+	public String getIsSysdba() {
+		return isSysdba;
+	}
+
+	@DataBoundSetter
+	public void setIsSysdba(String isSysdba) {
+		this.isSysdba = isSysdba;
+	}
+
+	public String getCustomOracleHome() {
+		return customOracleHome;
+	}
+
+	@DataBoundSetter
+	public void setCustomOracleHome(String customOracleHome) {
+		this.customOracleHome = customOracleHome;
+	}
+
+	public String getCustomSQLPlusHome() {
+		return customSQLPlusHome;
+	}
+
+	@DataBoundSetter
+	public void setCustomSQLPlusHome(String customSQLPlusHome) {
+		this.customSQLPlusHome = customSQLPlusHome;
+	}
+
+	public String getCustomTNSAdmin() {
+		return customTNSAdmin;
+	}
+
+	@DataBoundSetter
+	public void setCustomTNSAdmin(String customTNSAdmin) {
+		this.customTNSAdmin = customTNSAdmin;
+	}
+
+	public String getCustomNLSLang() {
+		return customNLSLang;
+	}
+
+	@DataBoundSetter
+	public void setCustomNLSLang(String customNLSLang) {
+		this.customNLSLang = customNLSLang;
+	}
+
+	public String getCustomSQLPath() {
+		return customSQLPath;
+	}
+
+	@DataBoundSetter
+	public void setCustomSQLPath(String customSQLPath) {
+		this.customSQLPath = customSQLPath;
+	}
+
+	public String getScripts() {
+		return scripts;
+	}
+
+	@DataBoundSetter
+	public void setScripts(String scripts) {
+		this.scripts = scripts;
+	}
+
+	public boolean isFailFast() {
+		return failFast;
+	}
+
+	@DataBoundSetter
+	public void setFailFast(boolean failFast) {
+		this.failFast = failFast;
+	}
+
+	public String getErrorPatterns() {
+		return errorPatterns;
+	}
+
+	@DataBoundSetter
+	public void setErrorPatterns(String errorPatterns) {
+		this.errorPatterns = errorPatterns;
+	}
+
+	public int getTimeoutMinutes() {
+		return timeoutMinutes;
+	}
+
+	@DataBoundSetter
+	public void setTimeoutMinutes(int timeoutMinutes) {
+		this.timeoutMinutes = timeoutMinutes;
+	}
+
+	public int getInactivityMinutes() {
+		return inactivityMinutes;
+	}
+
+	@DataBoundSetter
+	public void setInactivityMinutes(int inactivityMinutes) {
+		this.inactivityMinutes = inactivityMinutes;
+	}
+
+	public boolean isSpoolOutput() {
+		return spoolOutput;
+	}
+
+	@DataBoundSetter
+	public void setSpoolOutput(boolean spoolOutput) {
+		this.spoolOutput = spoolOutput;
+	}
+
+	public int getConsoleLines() {
+		return consoleLines;
+	}
+
+	@DataBoundSetter
+	public void setConsoleLines(int consoleLines) {
+		this.consoleLines = consoleLines;
+	}
+
+	public boolean isStatementTiming() {
+		return statementTiming;
+	}
+
+	@DataBoundSetter
+	public void setStatementTiming(boolean statementTiming) {
+		this.statementTiming = statementTiming;
+	}
+
+	public boolean isSessionStats() {
+		return sessionStats;
+	}
+
+	@DataBoundSetter
+	public void setSessionStats(boolean sessionStats) {
+		this.sessionStats = sessionStats;
+	}
+
+	public int getRegressionBuilds() {
+		return regressionBuilds;
+	}
+
+	@DataBoundSetter
+	public void setRegressionBuilds(int regressionBuilds) {
+		this.regressionBuilds = regressionBuilds;
+	}
+
+	public int getRegressionPercent() {
+		return regressionPercent;
+	}
+
+	@DataBoundSetter
+	public void setRegressionPercent(int regressionPercent) {
+		this.regressionPercent = regressionPercent;
+	}
+
+	public int getRegressionMillis() {
+		return regressionMillis;
+	}
+
+	@DataBoundSetter
+	public void setRegressionMillis(int regressionMillis) {
+		this.regressionMillis = regressionMillis;
+	}
+
+	public boolean isRegressionFails() {
+		return regressionFails;
+	}
+
+	@DataBoundSetter
+	public void setRegressionFails(boolean regressionFails) {
+		this.regressionFails = regressionFails;
+	}
+
+	public boolean isDurable() {
+		return durable;
+	}
+
+	@DataBoundSetter
+	public void setDurable(boolean durable) {
+		this.durable = durable;
+	}
+
+	public boolean isLedger() {
+		return ledger;
+	}
+
+	@DataBoundSetter
+	public void setLedger(boolean ledger) {
+		this.ledger = ledger;
+	}
+
+	@Extension
+	public static final class DescriptorImpl extends StepDescriptor {
+
+		private static final String FUNCTION_NAME = "sqlplus";
+
+		@Override
+		public String getFunctionName() {
+			return FUNCTION_NAME;
+		}
+
+		@Override
+		public String getDisplayName() {
+			return Messages.SQLPlusStep_displayName();
+		}
+
+		@Override
+		public Set<? extends Class<?>> getRequiredContext() {
+			return Set.of(Run.class, FilePath.class, Launcher.class, TaskListener.class);
+		}
+
+		/**
+		 * The options shared with the builder keep their help there.
+		 */
+		@Override
+		public String getHelpFile(String fieldName) {
+			String helpFile = super.getHelpFile(fieldName);
+			return helpFile != null ? helpFile : builder().getHelpFile(fieldName);
+		}
+
+		public ListBoxModel doFillCredentialsIdItems(@AncestorInPath ItemGroup<?> context) {
+			return builder().doFillCredentialsIdItems(context);
+		}
+
+		private static SQLPlusRunnerBuilder.DescriptorImpl builder() {
+			return Jenkins.get().getDescriptorByType(SQLPlusRunnerBuilder.DescriptorImpl.class);
+		}
+	}
+
+}
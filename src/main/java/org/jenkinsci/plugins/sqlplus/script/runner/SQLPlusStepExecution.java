@@ -0,0 +1,338 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+
+import hudson.AbortException;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.util.ClassLoaderSanityThreadFactory;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.util.Timer;
+
+/**
+ * Runs the <i>sqlplus</i> step: it prepares SQL*Plus on a thread of its own pool, starts it on the node
+ * and returns. The step completes when the node calls back, once SQL*Plus exited.
+ *
+ * Everything that talks to the node, like launching, finishing and polling, runs on that pool rather than on
+ * the shared Jenkins timer, whose few threads must not wait on remoting; the timer only waits for the next poll.
+ * Pooled sessions and custom launchers need a thread waiting for SQL*Plus, which is taken from the same pool.
+ *
+ * A durable step starts SQL*Plus detached and polls its control directory instead, see {@link DurableExecution}.
+ * Like <i>sh</i> steps, it starts SQL*Plus before {@link #start()} returns and saves the Pipeline then, so it keeps
+ * what it polls. After a restart of the controller it reads the output on from where it stopped, which the node
+ * keeps too, see {@link DurableExecution.Poll}.
+ */
+public class SQLPlusStepExecution extends StepExecution {
+
+	private static final long serialVersionUID = 3826150746152289367L;
+
+	/**
+	 * Time between two polls of a detached SQL*Plus, growing from the shortest to the longest while it prints nothing.
+	 */
+	private static final long MIN_POLL_MILLIS = 250;
+
+	private static final long MAX_POLL_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+	private static ExecutorService executor;
+
+	private final SQLPlusStep step;
+
+	private volatile SQLPlusRunner.Detached detached;
+
+	private long offset;
+
+	private Watchdog.Reason expired;
+
+	private boolean stopping;
+
+	private transient volatile SQLPlusRunner.Launch launch;
+
+	private transient volatile AsyncNodeExecution.Handle handle;
+
+	private transient volatile Future<?> task;
+
+	private transient AtomicBoolean completed;
+
+	private transient long period;
+
+	private transient boolean offline;
+
+	SQLPlusStepExecution(SQLPlusStep step, StepContext context) {
+		super(context);
+		this.step = step;
+		this.completed = new AtomicBoolean();
+	}
+
+	@Override
+	public boolean start() throws Exception {
+		if (ScriptType.directory.name().equals(step.getScriptType())) {
+			throw new AbortException(Messages.SQLPlusStep_directoryUnsupported());
+		}
+		if (step.isDurable()) {
+			launch();
+		} else {
+			task = executor().submit(this::launch);
+		}
+		return false;
+	}
+
+	private void launch() {
+		try {
+			StepContext context = getContext();
+			SQLPlusRunner runner = step.toBuilder().createRunner(context.get(Run.class), context.get(FilePath.class),
+					context.get(Launcher.class), context.get(TaskListener.class));
+			launch = runner.start();
+			if (launch == null) {
+				// every script was applied already
+				complete(null);
+				return;
+			}
+			if (completed.get()) {
+				// stopped meanwhile
+				launch.cleanUp();
+				return;
+			}
+			if (step.isDurable()) {
+				detached = launch.detach();
+				if (detached != null) {
+					// what finds SQL*Plus again is on disk before anything else can go wrong
+					context.saveState();
+					if (completed.get()) {
+						// stopped while SQL*Plus was starting
+						stopDetached();
+					} else {
+						schedule(MIN_POLL_MILLIS);
+					}
+					return;
+				}
+				context.get(TaskListener.class).getLogger().println(MessageUtil.MSG_WARNING + Messages.SQLPlusStep_durableUnsupported());
+			}
+			handle = launch.execute(new AsyncNodeExecution.Callback() {
+				@Override
+				public void done(ExecutionResult result) {
+					executor().submit(() -> finish(result));
+				}
+
+				@Override
+				public void failed(Throwable cause) {
+					executor().submit(() -> fail(cause));
+				}
+			});
+			if (handle != null && completed.get()) {
+				// stopped while SQL*Plus was starting
+				handle.stop();
+			} else if (handle == null) {
+				task = executor().submit(() -> {
+					try {
+						finish(launch.execute());
+					} catch (Exception e) {
+						fail(e);
+					}
+				});
+			}
+		} catch (Exception e) {
+			fail(e);
+		}
+	}
+
+	private void schedule(long delay) {
+		period = delay;
+		task = Timer.get().schedule(() -> {
+			if (!completed.get()) {
+				task = executor().submit(this::poll);
+			}
+		}, delay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * @return threads of the steps, created when needed and ended after a minute unused
+	 */
+	static synchronized ExecutorService executor() {
+		if (executor == null) {
+			executor = Executors.newCachedThreadPool(new NamingThreadFactory(
+					new ClassLoaderSanityThreadFactory(new DaemonThreadFactory()), "SQLPlusStepExecution"));
+		}
+		return executor;
+	}
+
+	/**
+	 * Copy the new output of a detached SQL*Plus to the console, stop it when it fails fast or times out,
+	 * and finish the step once it exited.
+	 */
+	private void poll() {
+		if (completed.get()) {
+			return;
+		}
+		try {
+			TaskListener listener = getContext().get(TaskListener.class);
+			FilePath control = detached.getControl();
+			DurableExecution.Status status = null;
+			if (control != null) {
+				try {
+					status = control.act(new DurableExecution.Poll(offset, !detached.getSettings().isSpool(),
+							step.isFailFast() ? ErrorScanner.patterns(step.getErrorPatterns()) : null, listener));
+				} catch (IOException e) {
+					// the agent went away meanwhile, SQL*Plus runs on there
+				}
+			}
+			if (status == null) {
+				if (!offline) {
+					offline = true;
+					listener.getLogger().println(Messages.SQLPlusStep_durableOffline(detached.getNode()));
+				}
+				schedule(MAX_POLL_MILLIS);
+				return;
+			}
+			offline = false;
+			boolean output = status.getOffset() > offset;
+			offset = status.getOffset();
+
+			if (!stopping && status.getExitCode() == null) {
+				expired = Watchdog.check(status.getRunningMillis(), status.getIdleMillis(), step.getTimeoutMinutes(),
+						step.getInactivityMinutes());
+				if (expired != null || status.getErrorCount() > 0) {
+					stopping = true;
+					control.act(new DurableExecution.Stop());
+				}
+			}
+
+			if (status.getExitCode() != null && !status.hasMore()) {
+				ExecutionResult result = control.act(new DurableExecution.Outcome(detached.getSettings(),
+						detached.getSpoolFile(), expired, listener));
+				reattach();
+				finish(result);
+			} else if (!status.isAlive()) {
+				fail(new AbortException(Messages.SQLPlusStep_durableLost()));
+			} else {
+				schedule(output || status.hasMore() ? MIN_POLL_MILLIS : Math.min(period + period / 5, MAX_POLL_MILLIS));
+			}
+		} catch (Exception e) {
+			fail(e);
+		}
+	}
+
+	/**
+	 * @return the run, found again from what was kept of it when the controller restarted
+	 */
+	private SQLPlusRunner.Launch reattach() throws IOException, InterruptedException {
+		if (launch == null) {
+			StepContext context = getContext();
+			SQLPlusRunner runner = step.toBuilder().createRunner(context.get(Run.class), context.get(FilePath.class),
+					context.get(Launcher.class), context.get(TaskListener.class));
+			launch = runner.reattach(detached);
+		}
+		return launch;
+	}
+
+	private void stopDetached() {
+		try {
+			FilePath control = detached.getControl();
+			if (control != null) {
+				control.act(new DurableExecution.Stop());
+			}
+			reattach().cleanUp();
+		} catch (Exception e) {
+			// the step is over, and the node may be gone
+		}
+	}
+
+	private void finish(ExecutionResult result) {
+		try {
+			launch.finish(result);
+			complete(null);
+		} catch (Exception e) {
+			complete(e);
+		}
+	}
+
+	private void fail(Throwable cause) {
+		if (launch == null && detached != null) {
+			try {
+				reattach();
+			} catch (Exception e) {
+				// nothing to clean up with
+			}
+		}
+		if (launch != null) {
+			launch.fail(cause);
+		}
+		complete(cause);
+	}
+
+	/**
+	 * Complete the step once, failing like {@link SQLPlusRunnerBuilder} does.
+	 *
+	 * @param failure - why the step failed, or null
+	 */
+	private void complete(Throwable failure) {
+		if (!completed.compareAndSet(false, true)) {
+			return;
+		}
+		if (failure == null) {
+			getContext().onSuccess(null);
+		} else if (failure instanceof InterruptedException || failure instanceof AbortException) {
+			// aborted, or timed out
+			getContext().onFailure(failure);
+		} else {
+			try {
+				failure.printStackTrace(getContext().get(TaskListener.class).getLogger());
+			} catch (Exception e) {
+				// the failure itself is reported below
+			}
+			getContext().onFailure(new AbortException(failure.getMessage()));
+		}
+	}
+
+	@Override
+	public void stop(Throwable cause) throws Exception {
+		AsyncNodeExecution.Handle running = handle;
+		if (running != null) {
+			running.stop();
+		}
+		Future<?> waiting = task;
+		if (waiting != null) {
+			waiting.cancel(true);
+		}
+		complete(cause);
+		if (detached != null) {
+			executor().submit(this::stopDetached);
+		}
+	}
+
+	@Override
+	public void onResume() {
+		completed = new AtomicBoolean();
+		if (detached == null) {
+			// what the run needs on the controller did not survive the restart
+			complete(new AbortException(Messages.SQLPlusStep_lost()));
+			return;
+		}
+		try {
+			getContext().get(TaskListener.class).getLogger().println(Messages.SQLPlusStep_durableResumed());
+		} catch (Exception e) {
+			// the next poll tells
+		}
+		schedule(MIN_POLL_MILLIS);
+	}
+
+	@Override
+	public String getStatus() {
+		SQLPlusRunner.Detached running = detached;
+		if (running != null) {
+			return Messages.SQLPlusStep_durableRunning(running.getControlPath());
+		}
+		return handle != null ? Messages.SQLPlusStep_running() : Messages.SQLPlusStep_starting();
+	}
+
+}
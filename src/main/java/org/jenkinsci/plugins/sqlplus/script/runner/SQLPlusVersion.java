@@ -0,0 +1,123 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * SQL*Plus version, as printed by <i>sqlplus -v</i>.
+ */
+public class SQLPlusVersion implements Comparable<SQLPlusVersion>, Serializable {
+
+	private static final long serialVersionUID = -3327183645712093521L;
+
+	private static final Pattern RELEASE = Pattern.compile("Release\\s+(\\d+(?:\\.\\d+)*)");
+
+	private static final String UNKNOWN = "unknown";
+
+	private final String output;
+
+	private final int[] release;
+
+	private SQLPlusVersion(String output, int[] release) {
+		this.output = output;
+		this.release = release;
+	}
+
+	/**
+	 * Parse the output of <i>sqlplus -v</i>, like <i>SQL*Plus: Release 19.0.0.0.0 - Production</i>.
+	 *
+	 * @param output - SQL*Plus output
+	 * @return version, with no release numbers when none was found
+	 */
+	public static SQLPlusVersion parse(String output) {
+
+		String text = output == null ? "" : output;
+		Matcher matcher = RELEASE.matcher(text);
+		if (!matcher.find()) {
+			return new SQLPlusVersion(text, new int[0]);
+		}
+		return new SQLPlusVersion(text, Arrays.stream(matcher.group(1).split("\\.")).mapToInt(Integer::parseInt).toArray());
+	}
+
+	/**
+	 * @return full output of <i>sqlplus -v</i>
+	 */
+	public String getOutput() {
+		return output;
+	}
+
+	public boolean isKnown() {
+		return release.length > 0;
+	}
+
+	/**
+	 * @return major release, like 19, or 0 when unknown
+	 */
+	public int getMajor() {
+		return release.length > 0 ? release[0] : 0;
+	}
+
+	/**
+	 * @return release, like 19.0.0.0.0
+	 */
+	public String getRelease() {
+		if (!isKnown()) {
+			return UNKNOWN;
+		}
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < release.length; i++) {
+			if (i > 0)
+				sb.append('.');
+			sb.append(release[i]);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Check if this release is the given one or a later one, like <i>isAtLeast(12, 2)</i>.
+	 *
+	 * @param version - release numbers
+	 * @return true if this release is not older
+	 */
+	public boolean isAtLeast(int... version) {
+		return isKnown() && compare(release, version) >= 0;
+	}
+
+	@Override
+	public int compareTo(SQLPlusVersion other) {
+		return compare(release, other.release);
+	}
+
+	private static int compare(int[] a, int[] b) {
+		for (int i = 0; i < Math.max(a.length, b.length); i++) {
+			int x = i < a.length ? a[i] : 0;
+			int y = i < b.length ? b[i] : 0;
+			if (x != y) {
+				return Integer.compare(x, y);
+			}
+		}
+		return 0;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof SQLPlusVersion && compareTo((SQLPlusVersion) o) == 0;
+	}
+
+	@Override
+	public int hashCode() {
+		int length = release.length;
+		while (length > 0 && release[length - 1] == 0) {
+			length--;
+		}
+		return Arrays.hashCode(Arrays.copyOf(release, length));
+	}
+
+	@Override
+	public String toString() {
+		return getRelease();
+	}
+
+}
@@ -0,0 +1,266 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import hudson.FilePath;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Scripts of a directory and the dependencies between them.
+ *
+ * Dependencies come from header comments, like <i>-- depends: tables.sql, types.sql</i>
+ * before the first statement, and from an optional <i>dependencies.txt</i> in the
+ * same directory with lines like <i>views.sql: tables.sql</i>.
+ */
+public class ScriptGraph implements Serializable {
+
+	private static final long serialVersionUID = -1719373606268021857L;
+
+	public static final String MANIFEST = "dependencies.txt";
+
+	private static final String SQL_SUFFIX = ".sql";
+
+	private static final String DEPENDS = "depends:";
+
+	private static final String COMMENT = "--";
+
+	private static final String REM = "REM";
+
+	private final Map<String, Set<String>> dependencies;
+
+	private final Map<String, String> paths;
+
+	private final Map<String, Boolean> exits;
+
+	/**
+	 * @param dependencies - scripts and what each one depends on
+	 * @param paths        - script paths on the node
+	 * @param exits        - scripts that end with exit;
+	 */
+	public ScriptGraph(Map<String, Set<String>> dependencies, Map<String, String> paths, Map<String, Boolean> exits) {
+		this.dependencies = new TreeMap<>(dependencies);
+		this.paths = new HashMap<>(paths);
+		this.exits = new HashMap<>(exits);
+	}
+
+	/**
+	 * Read the scripts of a directory on its node, in a single call.
+	 *
+	 * @param dir - script directory
+	 * @return graph, checked with {@link #validate()}
+	 */
+	public static ScriptGraph scan(FilePath dir) throws IOException, InterruptedException {
+		ScriptGraph graph = dir.act(new Scanner());
+		graph.validate();
+		return graph;
+	}
+
+	public List<String> getScripts() {
+		return new ArrayList<>(dependencies.keySet());
+	}
+
+	public Set<String> getDependencies(String script) {
+		return Collections.unmodifiableSet(dependencies.get(script));
+	}
+
+	public String getPath(String script) {
+		return paths.getOrDefault(script, script);
+	}
+
+	public boolean hasExit(String script) {
+		return exits.getOrDefault(script, false);
+	}
+
+	/**
+	 * @return every script and the scripts that depend on it
+	 */
+	public Map<String, List<String>> getDependents() {
+		Map<String, List<String>> dependents = new TreeMap<>();
+		for (String script : dependencies.keySet()) {
+			dependents.put(script, new ArrayList<>());
+		}
+		for (Map.Entry<String, Set<String>> entry : dependencies.entrySet()) {
+			for (String dependency : entry.getValue()) {
+				dependents.get(dependency).add(entry.getKey());
+			}
+		}
+		return dependents;
+	}
+
+	/**
+	 * Check that every dependency is a script of the directory and that there is no cycle.
+	 *
+	 * @throws IOException describing the first problem found
+	 */
+	public void validate() throws IOException {
+
+		for (Map.Entry<String, Set<String>> entry : dependencies.entrySet()) {
+			for (String dependency : entry.getValue()) {
+				if (!dependencies.containsKey(dependency)) {
+					throw new IOException(Messages.SQLPlusRunner_unknownDependency(entry.getKey(), dependency));
+				}
+			}
+		}
+
+		Map<String, Integer> pending = new HashMap<>();
+		Deque<String> ready = new ArrayDeque<>();
+		for (Map.Entry<String, Set<String>> entry : dependencies.entrySet()) {
+			pending.put(entry.getKey(), entry.getValue().size());
+			if (entry.getValue().isEmpty()) {
+				ready.add(entry.getKey());
+			}
+		}
+		Map<String, List<String>> dependents = getDependents();
+		int done = 0;
+		while (!ready.isEmpty()) {
+			String script = ready.poll();
+			done++;
+			for (String dependent : dependents.get(script)) {
+				if (pending.merge(dependent, -1, Integer::sum) == 0) {
+					ready.add(dependent);
+				}
+			}
+		}
+		if (done < dependencies.size()) {
+			List<String> cycle = new ArrayList<>();
+			for (Map.Entry<String, Integer> entry : new TreeMap<>(pending).entrySet()) {
+				if (entry.getValue() > 0) {
+					cycle.add(entry.getKey());
+				}
+			}
+			throw new IOException(Messages.SQLPlusRunner_dependencyCycle(String.join(", ", cycle)));
+		}
+	}
+
+	/**
+	 * Read the dependencies declared in the header of a script. The header ends at the
+	 * first line that is not blank and not a comment.
+	 *
+	 * @param content - script
+	 * @return dependencies, in declaration order
+	 */
+	public static Set<String> parseHeader(String content) throws IOException {
+		try (BufferedReader reader = new BufferedReader(new StringReader(content))) {
+			return parseHeader(reader);
+		}
+	}
+
+	private static Set<String> parseHeader(BufferedReader reader) throws IOException {
+
+		Set<String> dependencies = new LinkedHashSet<>();
+		String line;
+		while ((line = reader.readLine()) != null) {
+			String trimmed = line.trim();
+			String comment;
+			if (trimmed.isEmpty()) {
+				continue;
+			} else if (trimmed.startsWith(COMMENT)) {
+				comment = trimmed.substring(COMMENT.length()).trim();
+			} else if (trimmed.toUpperCase(Locale.ENGLISH).startsWith(REM + " ")) {
+				comment = trimmed.substring(REM.length()).trim();
+			} else {
+				break;
+			}
+			if (comment.toLowerCase(Locale.ENGLISH).startsWith(DEPENDS)) {
+				dependencies.addAll(split(comment.substring(DEPENDS.length())));
+			}
+		}
+		return dependencies;
+	}
+
+	/**
+	 * Read a manifest with lines like <i>script.sql: dependency.sql, other.sql</i>.
+	 *
+	 * @param content - manifest
+	 * @return dependencies by script
+	 */
+	public static Map<String, Set<String>> parseManifest(String content) throws IOException {
+
+		Map<String, Set<String>> dependencies = new HashMap<>();
+		try (BufferedReader reader = new BufferedReader(new StringReader(content))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String trimmed = line.trim();
+				int colon = trimmed.indexOf(':');
+				if (trimmed.isEmpty() || trimmed.startsWith("#") || colon < 0) {
+					continue;
+				}
+				dependencies.computeIfAbsent(trimmed.substring(0, colon).trim(), k -> new LinkedHashSet<>())
+						.addAll(split(trimmed.substring(colon + 1)));
+			}
+		}
+		return dependencies;
+	}
+
+	private static List<String> split(String list) {
+		List<String> names = new ArrayList<>();
+		for (String name : list.split("[,\\s]+")) {
+			if (!name.isEmpty()) {
+				names.add(name);
+			}
+		}
+		return names;
+	}
+
+	private static final class Scanner extends MasterToSlaveFileCallable<ScriptGraph> {
+
+		private static final long serialVersionUID = 3372006532287004718L;
+
+		@Override
+		public ScriptGraph invoke(File dir, VirtualChannel channel) throws IOException {
+
+			File[] files = dir.listFiles((d, name) -> name.toLowerCase(Locale.ENGLISH).endsWith(SQL_SUFFIX));
+			if (files == null || files.length == 0) {
+				throw new IOException(Messages.SQLPlusRunner_noBatchScripts(dir.getPath()));
+			}
+			Arrays.sort(files);
+
+			Map<String, Set<String>> dependencies = new HashMap<>();
+			Map<String, String> paths = new HashMap<>();
+			Map<String, Boolean> exits = new HashMap<>();
+			for (File file : files) {
+				if (!file.isFile()) {
+					continue;
+				}
+				try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+					dependencies.put(file.getName(), parseHeader(reader));
+				}
+				paths.put(file.getName(), file.getPath());
+				exits.put(file.getName(), FileUtil.hasExitCode(file));
+			}
+
+			File manifest = new File(dir, MANIFEST);
+			if (manifest.isFile()) {
+				String content = new String(Files.readAllBytes(manifest.toPath()), StandardCharsets.UTF_8);
+				for (Map.Entry<String, Set<String>> entry : parseManifest(content).entrySet()) {
+					Set<String> scriptDependencies = dependencies.get(entry.getKey());
+					if (scriptDependencies == null) {
+						throw new IOException(Messages.SQLPlusRunner_missingScript(new File(dir, entry.getKey()).getPath()));
+					}
+					scriptDependencies.addAll(entry.getValue());
+				}
+			}
+			return new ScriptGraph(dependencies, paths, exits);
+		}
+	}
+
+}
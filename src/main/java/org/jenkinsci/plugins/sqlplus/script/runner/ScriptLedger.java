@@ -0,0 +1,272 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jenkins.model.Jenkins;
+import jenkins.security.MasterToSlaveCallable;
+
+/**
+ * Ledger of the scripts applied to a schema, by SHA-256 of their content, so a deployment run again skips them.
+ *
+ * One append-only text file per connect identity in the Jenkins home, with a line per run of a script:
+ * hash, outcome, time, build and script. A script is applied when its last run succeeded.
+ *
+ * The identity is what decides the database a logon reaches: node, Oracle Home, TNS_ADMIN, ORACLE_SID,
+ * user and instance. The same alias, or the local database, on two nodes gets two ledgers. The file is
+ * named after the SHA-256 of the identity, and starts with a comment telling which schema it is for.
+ *
+ * The ledger reads only what was appended since its last read, and all of it again when the file shrank,
+ * so any other writer is seen at once. Appends and reads hold a lock on the file.
+ */
+public class ScriptLedger {
+
+	public static final String DIRECTORY = "sqlplus-ledger";
+
+	private static final String SUFFIX = ".ledger";
+
+	private static final String SEPARATOR = "\t";
+
+	private static final String EOL = "\n";
+
+	private static final String COMMENT = "#";
+
+	private static final String ALGORITHM = "SHA-256";
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final Map<String, ScriptLedger> LEDGERS = new ConcurrentHashMap<>();
+
+	/**
+	 * How a run of a script ended.
+	 */
+	public enum Outcome {
+		SUCCESS, FAILED
+	}
+
+	private final File file;
+
+	private final String identity;
+
+	private final Map<String, Outcome> outcomes = new HashMap<>();
+
+	private long length;
+
+	/**
+	 * @param file - ledger file, created by the first record
+	 */
+	public ScriptLedger(File file) {
+		this(file, null);
+	}
+
+	private ScriptLedger(File file, String identity) {
+		this.file = file;
+		this.identity = identity;
+	}
+
+	/**
+	 * @return identity of the schema, or null for a ledger opened by file
+	 */
+	public String getIdentity() {
+		return identity;
+	}
+
+	/**
+	 * @param node       - node running SQL*Plus, empty for the controller
+	 * @param oracleHome - Oracle Home on the node
+	 * @param tnsAdmin   - TNS_ADMIN on the node, or null
+	 * @param sid        - ORACLE_SID on the node, or null
+	 * @param user       - Oracle user
+	 * @param instance   - instance, or null for the local database
+	 * @return identity of the schema, the SHA-256 of all of them, see {@link #of(String, String)}
+	 */
+	public static String identity(String node, String oracleHome, String tnsAdmin, String sid, String user,
+			String instance) {
+		String schema = String.join(EOL, Objects.toString(node, ""), Objects.toString(oracleHome, ""),
+				Objects.toString(tnsAdmin, ""), Objects.toString(sid, ""), user.toUpperCase(Locale.ROOT),
+				instance == null ? "" : instance.trim().toUpperCase(Locale.ROOT));
+		return hex(digest().digest(schema.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	/**
+	 * @param identity    - identity of the schema, see {@link #identity}
+	 * @param description - who the schema is, for people reading the file, without secrets
+	 * @return ledger of the schema, shared
+	 */
+	public static ScriptLedger of(String identity, String description) {
+		File file = new File(new File(Jenkins.get().getRootDir(), DIRECTORY), identity + SUFFIX);
+		ScriptLedger ledger = LEDGERS.computeIfAbsent(identity, k -> new ScriptLedger(file, identity));
+		ledger.describe(description);
+		return ledger;
+	}
+
+	/**
+	 * @param hash - SHA-256 of a script
+	 * @return true if the last run of the script succeeded
+	 */
+	public synchronized boolean isApplied(String hash) throws IOException {
+		return load().get(hash) == Outcome.SUCCESS;
+	}
+
+	/**
+	 * @param hash    - SHA-256 of the script
+	 * @param outcome - how the run ended
+	 * @param run     - build that ran it
+	 * @param script  - script path
+	 */
+	public synchronized void record(String hash, Outcome outcome, String run, String script) throws IOException {
+		append(String.join(SEPARATOR, hash, outcome.name(), Long.toString(System.currentTimeMillis()),
+				clean(run), clean(script)) + EOL);
+	}
+
+	/**
+	 * Start a new file with a comment telling which schema it is for.
+	 */
+	private synchronized void describe(String description) {
+		if (file.isFile()) {
+			return;
+		}
+		try {
+			append(COMMENT + " " + clean(description) + EOL);
+		} catch (IOException e) {
+			// the comment is only for people
+		}
+	}
+
+	private void append(String line) throws IOException {
+		file.getParentFile().mkdirs();
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.READ); FileLock lock = channel.lock()) {
+			read(channel);
+			channel.write(ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8)), channel.size());
+			read(channel);
+		}
+	}
+
+	/**
+	 * @return outcomes by hash, with whatever any writer appended since the last read
+	 */
+	private Map<String, Outcome> load() throws IOException {
+		if (!file.isFile()) {
+			outcomes.clear();
+			length = 0;
+			return outcomes;
+		}
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+				FileLock lock = channel.lock(0, Long.MAX_VALUE, true)) {
+			read(channel);
+		}
+		return outcomes;
+	}
+
+	/**
+	 * Read the lines appended since the last read, or all of them when the file shrank, e.g. edited by hand.
+	 */
+	private void read(FileChannel channel) throws IOException {
+		long size = channel.size();
+		if (size < length) {
+			outcomes.clear();
+			length = 0;
+		}
+		if (size == length) {
+			return;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate((int) (size - length));
+		while (buffer.hasRemaining() && channel.read(buffer, length + buffer.position()) > 0) {
+			// until the end
+		}
+		String text = new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+		// a line still being written is read next time
+		int end = text.lastIndexOf(EOL) + 1;
+		for (String line : text.substring(0, end).split(EOL)) {
+			String[] fields = line.split(SEPARATOR);
+			if (fields.length >= 2 && !line.startsWith(COMMENT)) {
+				try {
+					outcomes.put(fields[0], Outcome.valueOf(fields[1]));
+				} catch (IllegalArgumentException e) {
+					// not a ledger line
+				}
+			}
+		}
+		length += text.substring(0, end).getBytes(StandardCharsets.UTF_8).length;
+	}
+
+	private static String clean(String value) {
+		return String.valueOf(value).replaceAll("[\\t\\r\\n]", " ");
+	}
+
+	/**
+	 * @param in - content
+	 * @return SHA-256 of the content, in hexadecimal
+	 */
+	public static String sha256(InputStream in) throws IOException {
+		MessageDigest digest = digest();
+		byte[] buffer = new byte[BUFFER_SIZE];
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			digest.update(buffer, 0, read);
+		}
+		return hex(digest.digest());
+	}
+
+	private static MessageDigest digest() {
+		try {
+			return MessageDigest.getInstance(ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String hex(byte[] bytes) {
+		StringBuilder hex = new StringBuilder();
+		for (byte b : bytes) {
+			hex.append(String.format("%02x", b));
+		}
+		return hex.toString();
+	}
+
+	/**
+	 * Hash scripts on the node that holds them, reading each once, in a single call.
+	 */
+	public static final class Hasher extends MasterToSlaveCallable<List<String>, IOException> {
+
+		private static final long serialVersionUID = -8571209643351764072L;
+
+		private final List<String> scripts;
+
+		/**
+		 * @param scripts - script paths on the node
+		 */
+		public Hasher(List<String> scripts) {
+			this.scripts = new ArrayList<>(scripts);
+		}
+
+		@Override
+		public List<String> call() throws IOException {
+			List<String> hashes = new ArrayList<>();
+			for (String script : scripts) {
+				try (InputStream in = new FileInputStream(script)) {
+					hashes.add(sha256(in));
+				}
+			}
+			return hashes;
+		}
+	}
+
+}
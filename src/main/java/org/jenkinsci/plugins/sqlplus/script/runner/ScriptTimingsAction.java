@@ -0,0 +1,59 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import hudson.model.InvisibleAction;
+import hudson.model.Run;
+
+/**
+ * How long each script of a directory took, kept with the build so the next
+ * build can start the longest scripts first.
+ */
+public class ScriptTimingsAction extends InvisibleAction {
+
+	private static final int MAX_PREVIOUS_BUILDS = 10;
+
+	private final Map<String, Long> durations = new HashMap<>();
+
+	public synchronized Map<String, Long> getDurations() {
+		return Collections.unmodifiableMap(new HashMap<>(durations));
+	}
+
+	/**
+	 * Record script durations in a build, adding to what it already has.
+	 *
+	 * @param build     - Jenkins build
+	 * @param durations - milliseconds by script
+	 */
+	public static void record(Run<?, ?> build, Map<String, Long> durations) {
+		synchronized (build) {
+			ScriptTimingsAction action = build.getAction(ScriptTimingsAction.class);
+			if (action == null) {
+				action = new ScriptTimingsAction();
+				build.addAction(action);
+			}
+			synchronized (action) {
+				action.durations.putAll(durations);
+			}
+		}
+	}
+
+	/**
+	 * @param build - Jenkins build
+	 * @return durations recorded by the closest previous build that has them
+	 */
+	public static Map<String, Long> previous(Run<?, ?> build) {
+		Run<?, ?> previous = build.getPreviousBuild();
+		for (int i = 0; previous != null && i < MAX_PREVIOUS_BUILDS; i++) {
+			ScriptTimingsAction action = previous.getAction(ScriptTimingsAction.class);
+			if (action != null) {
+				return action.getDurations();
+			}
+			previous = previous.getPreviousBuild();
+		}
+		return Collections.emptyMap();
+	}
+
+}
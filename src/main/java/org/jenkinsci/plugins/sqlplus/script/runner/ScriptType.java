@@ -2,5 +2,7 @@ package org.jenkinsci.plugins.sqlplus.script.runner;
 
 public enum ScriptType {
 	file,
-	userDefined;
+	userDefined,
+	batch,
+	directory;
 }
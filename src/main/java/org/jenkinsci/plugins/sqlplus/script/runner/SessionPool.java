@@ -0,0 +1,229 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import hudson.Extension;
+import hudson.model.PeriodicWork;
+import jenkins.model.Jenkins;
+
+/**
+ * Idle SQL*Plus sessions kept logged on between builds.
+ *
+ * Sessions are keyed by node plus a digest of everything that shapes the session:
+ * executable, ORACLE_HOME, TNS_ADMIN, NLS_LANG, SQLPATH, a digest of the logon and working directory.
+ * The build variables are left out of the session environment, see {@link SQLPlusSession#environment(hudson.EnvVars)}.
+ * A session is taken out of the pool while a script runs on it, so it is never shared.
+ * How many sessions are kept, and for how long, is read from the global configuration of
+ * {@link SQLPlusRunnerBuilder.DescriptorImpl}.
+ */
+public class SessionPool {
+
+	public static final int DEFAULT_MAX_SIZE = 4;
+
+	public static final int DEFAULT_IDLE_MINUTES = 10;
+
+	private static final Map<Key, Deque<SQLPlusSession>> IDLE = new HashMap<>();
+
+	private SessionPool() {
+	}
+
+	private static SQLPlusRunnerBuilder.DescriptorImpl descriptor() {
+		Jenkins jenkins = Jenkins.getInstanceOrNull();
+		return jenkins == null ? null : jenkins.getDescriptorByType(SQLPlusRunnerBuilder.DescriptorImpl.class);
+	}
+
+	private static int maxSize() {
+		SQLPlusRunnerBuilder.DescriptorImpl descriptor = descriptor();
+		return descriptor == null ? DEFAULT_MAX_SIZE : descriptor.getPoolMaxSize();
+	}
+
+	private static int idleMinutes() {
+		SQLPlusRunnerBuilder.DescriptorImpl descriptor = descriptor();
+		return descriptor == null ? DEFAULT_IDLE_MINUTES : descriptor.getPoolIdleMinutes();
+	}
+
+	public static Key key(String node, String... values) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			for (String value : values) {
+				digest.update(Objects.toString(value, "").getBytes(StandardCharsets.UTF_8));
+				digest.update((byte) 0);
+			}
+			StringBuilder sb = new StringBuilder();
+			for (byte b : digest.digest()) {
+				sb.append(String.format("%02x", b));
+			}
+			return new Key(node, sb.toString());
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Take an idle session out of the pool.
+	 *
+	 * @param key - session key
+	 * @return a live session, or null when there is none
+	 */
+	public static SQLPlusSession acquire(Key key) {
+		evictIdle();
+		synchronized (IDLE) {
+			Deque<SQLPlusSession> sessions = IDLE.get(key);
+			SQLPlusSession session = sessions == null ? null : sessions.pollFirst();
+			if (sessions != null && sessions.isEmpty()) {
+				IDLE.remove(key);
+			}
+			return session;
+		}
+	}
+
+	/**
+	 * Give a session back to the pool, or close it when it ended or the pool is full.
+	 *
+	 * @param session - session taken with {@link #acquire(Key)} or just opened
+	 */
+	public static void release(SQLPlusSession session) {
+		release(session, maxSize());
+	}
+
+	/**
+	 * Give a session back to the pool, or close it when it ended or the pool is full.
+	 *
+	 * @param session - session taken with {@link #acquire(Key)} or just opened
+	 * @param maxSize - how many idle sessions are kept, in all nodes
+	 */
+	public static void release(SQLPlusSession session, int maxSize) {
+		if (session.isAlive()) {
+			synchronized (IDLE) {
+				if (size() < maxSize) {
+					IDLE.computeIfAbsent(session.getKey(), k -> new ArrayDeque<>()).addFirst(session);
+					return;
+				}
+			}
+		}
+		session.close();
+	}
+
+	/**
+	 * Close sessions idle for longer than the configured time.
+	 */
+	public static void evictIdle() {
+		evictIdle(idleMinutes());
+	}
+
+	/**
+	 * @param idleMinutes - how long an idle session is kept
+	 */
+	public static void evictIdle(int idleMinutes) {
+		long idleMillis = TimeUnit.MINUTES.toMillis(Math.max(0, idleMinutes));
+		long now = System.currentTimeMillis();
+		List<SQLPlusSession> evicted = new ArrayList<>();
+		synchronized (IDLE) {
+			for (Iterator<Deque<SQLPlusSession>> it = IDLE.values().iterator(); it.hasNext();) {
+				Deque<SQLPlusSession> sessions = it.next();
+				sessions.removeIf(session -> {
+					boolean expired = now - session.getLastUsed() >= idleMillis;
+					if (expired) {
+						evicted.add(session);
+					}
+					return expired;
+				});
+				if (sessions.isEmpty()) {
+					it.remove();
+				}
+			}
+		}
+		evicted.forEach(SQLPlusSession::close);
+	}
+
+	/**
+	 * Close every idle session of a node.
+	 *
+	 * @param node node name
+	 */
+	public static void invalidate(String node) {
+		String name = Objects.toString(node, "");
+		List<SQLPlusSession> evicted = new ArrayList<>();
+		synchronized (IDLE) {
+			for (Iterator<Map.Entry<Key, Deque<SQLPlusSession>>> it = IDLE.entrySet().iterator(); it.hasNext();) {
+				Map.Entry<Key, Deque<SQLPlusSession>> entry = it.next();
+				if (entry.getKey().node.equals(name)) {
+					evicted.addAll(entry.getValue());
+					it.remove();
+				}
+			}
+		}
+		evicted.forEach(SQLPlusSession::close);
+	}
+
+	/**
+	 * @return number of idle sessions
+	 */
+	public static int size() {
+		synchronized (IDLE) {
+			return IDLE.values().stream().mapToInt(Deque::size).sum();
+		}
+	}
+
+	public static final class Key {
+
+		private final String node;
+		private final String digest;
+
+		private Key(String node, String digest) {
+			this.node = Objects.toString(node, "");
+			this.digest = digest;
+		}
+
+		/**
+		 * @return SHA-256 of the key values
+		 */
+		public String getDigest() {
+			return digest;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o)
+				return true;
+			if (!(o instanceof Key))
+				return false;
+			Key other = (Key) o;
+			return node.equals(other.node) && digest.equals(other.digest);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * node.hashCode() + digest.hashCode();
+		}
+	}
+
+	/**
+	 * Closes idle sessions even when no build asks for one.
+	 */
+	@Extension
+	public static final class Reaper extends PeriodicWork {
+
+		@Override
+		public long getRecurrencePeriod() {
+			return MIN;
+		}
+
+		@Override
+		protected void doRun() {
+			evictIdle();
+		}
+	}
+
+}
@@ -0,0 +1,164 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import hudson.console.LineTransformationOutputStream;
+
+/**
+ * Oracle statistics of the SQL*Plus session, read from {@code v$mystat} before and after the script
+ * in the same session, so no second logon is needed.
+ *
+ * The queries print marker lines, which this output filter reads and keeps off the console, with
+ * everything printed between the start and end markers of a capture, so an error of the capture,
+ * like a missing grant, is not taken as an error of the script.
+ */
+public class SessionStats extends LineTransformationOutputStream {
+
+	public static final List<String> STATISTICS = Collections.unmodifiableList(Arrays.asList(
+			"CPU used by this session", "session logical reads", "physical reads", "redo size",
+			"parse count (total)", "parse count (hard)"));
+
+	public static final String BEFORE = "BEFORE";
+
+	public static final String AFTER = "AFTER";
+
+	private static final String MARKER = "SQLPLUS-STATS";
+
+	private static final Pattern STAT = Pattern.compile("^" + MARKER + " (" + BEFORE + "|" + AFTER + ") (.+)=(-?\\d+)\\s*$");
+
+	private static final String BEGIN = "BEGIN";
+
+	private static final String END = "END";
+
+	private static final Pattern BOUND = Pattern.compile("^" + MARKER + " (" + BEFORE + "|" + AFTER + ") (" + BEGIN + "|" + END + ")\\s*$");
+
+	private static final String EOL = "\n";
+
+	private final OutputStream out;
+
+	private final Charset charset;
+
+	private final Map<String, Long> before = new HashMap<>();
+
+	private final Map<String, Long> after = new HashMap<>();
+
+	private final Set<String> read = new HashSet<>();
+
+	private boolean capturing;
+
+	public SessionStats(OutputStream out, Charset charset) {
+		this.out = out;
+		this.charset = charset;
+	}
+
+	/**
+	 * SQL*Plus commands printing the statistics, leaving the session settings as they were.
+	 *
+	 * The query runs as dynamic SQL in a PL/SQL block that ignores its errors, like a missing grant, and
+	 * prints through DBMS_OUTPUT, so a capture that fails raises no SQL error. WHENEVER SQLERROR is left
+	 * alone, as SQL*Plus cannot save it with STORE SET nor show it, and whatever glogin.sql, login.sql
+	 * or the script set still applies.
+	 *
+	 * @param when     - {@link #BEFORE} or {@link #AFTER}
+	 * @param settings - file on the node keeping the session settings meanwhile
+	 * @return SQL*Plus commands
+	 */
+	public static String capture(String when, String settings) {
+		StringBuilder names = new StringBuilder();
+		for (String name : STATISTICS) {
+			names.append(names.length() == 0 ? "" : ", ").append("''").append(name).append("''");
+		}
+		String file = MessageUtil.DOUBLE_QUOTES + settings + MessageUtil.DOUBLE_QUOTES;
+		return "STORE SET " + file + " REPLACE" + EOL
+				+ "SET TERMOUT ON ECHO OFF TIMING OFF FEEDBACK OFF VERIFY OFF SERVEROUTPUT ON SIZE UNLIMITED FORMAT WRAPPED" + EOL
+				+ "PROMPT " + MARKER + " " + when + " " + BEGIN + EOL
+				+ "DECLARE" + EOL
+				+ "  c SYS_REFCURSOR;" + EOL
+				+ "  n VARCHAR2(64);" + EOL
+				+ "  v NUMBER;" + EOL
+				+ "BEGIN" + EOL
+				+ "  OPEN c FOR 'SELECT n.name, s.value FROM v$mystat s JOIN v$statname n ON n.statistic# = s.statistic#'" + EOL
+				+ "    || ' WHERE n.name IN (" + names + ")';" + EOL
+				+ "  LOOP" + EOL
+				+ "    FETCH c INTO n, v;" + EOL
+				+ "    EXIT WHEN c%NOTFOUND;" + EOL
+				+ "    DBMS_OUTPUT.PUT_LINE('" + MARKER + " " + when + " ' || n || '=' || v);" + EOL
+				+ "  END LOOP;" + EOL
+				+ "  CLOSE c;" + EOL
+				+ "EXCEPTION" + EOL
+				+ "  WHEN OTHERS THEN" + EOL
+				+ "    DBMS_OUTPUT.PUT_LINE(SQLERRM);" + EOL
+				+ "END;" + EOL
+				+ "/" + EOL
+				+ "PROMPT " + MARKER + " " + when + " " + END + EOL
+				+ MessageUtil.AT + file + EOL;
+	}
+
+	@Override
+	protected void eol(byte[] b, int len) throws IOException {
+		String line = trimEOL(new String(b, 0, len, charset));
+		Matcher bound = BOUND.matcher(line);
+		if (bound.matches()) {
+			capturing = BEGIN.equals(bound.group(2));
+			if (!capturing) {
+				read.add(bound.group(1));
+			}
+			return;
+		}
+		Matcher stat = STAT.matcher(line);
+		if (stat.matches()) {
+			(BEFORE.equals(stat.group(1)) ? before : after).put(stat.group(2), Long.parseLong(stat.group(3)));
+			return;
+		}
+		if (!capturing) {
+			out.write(b, 0, len);
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		super.close();
+		out.flush();
+	}
+
+	/**
+	 * @return true when the statistics were read before the script but not after it, like when the script
+	 *         exited by itself
+	 */
+	public boolean isAfterMissing() {
+		return read.contains(BEFORE) && !read.contains(AFTER);
+	}
+
+	/**
+	 * @return what the script used, by statistic in {@link #STATISTICS} order, empty when the
+	 *         statistics after it were not printed
+	 */
+	public Map<String, Long> getUsed() {
+		Map<String, Long> used = new LinkedHashMap<>();
+		for (String name : STATISTICS) {
+			Long value = after.get(name);
+			if (value != null) {
+				used.put(name, value - before.getOrDefault(name, 0L));
+			}
+		}
+		return used;
+	}
+
+}
@@ -0,0 +1,113 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+import hudson.model.Action;
+import hudson.model.Api;
+import hudson.model.Run;
+
+/**
+ * Oracle session statistics used by every SQL*Plus run of a build, see {@link SessionStats},
+ * shown on the build page and exported under {@value #URL_NAME}/api.
+ */
+@ExportedBean
+public class SessionStatsAction implements Action {
+
+	public static final String URL_NAME = "sqlplusSessionStats";
+
+	private final List<Step> steps = new ArrayList<>();
+
+	@Override
+	public String getIconFileName() {
+		return null;
+	}
+
+	@Override
+	public String getDisplayName() {
+		return Messages.SessionStatsAction_displayName();
+	}
+
+	@Override
+	public String getUrlName() {
+		return URL_NAME;
+	}
+
+	public Api getApi() {
+		return new Api(this);
+	}
+
+	@Exported(inline = true)
+	public synchronized List<Step> getSteps() {
+		return Collections.unmodifiableList(new ArrayList<>(steps));
+	}
+
+	/**
+	 * @return statistic names, for the summary table
+	 */
+	public List<String> getStatistics() {
+		return SessionStats.STATISTICS;
+	}
+
+	/**
+	 * Record the statistics of a run in a build, after the runs it already has.
+	 *
+	 * @param build      - Jenkins build
+	 * @param label      - what was run, and where
+	 * @param statistics - used by the run, by name
+	 */
+	public static void record(Run<?, ?> build, String label, Map<String, Long> statistics) {
+		Step step = new Step(label, statistics);
+		synchronized (build) {
+			SessionStatsAction action = build.getAction(SessionStatsAction.class);
+			if (action == null) {
+				action = new SessionStatsAction();
+				build.addAction(action);
+			}
+			synchronized (action) {
+				action.steps.add(step);
+			}
+		}
+	}
+
+	/**
+	 * Statistics of a single SQL*Plus run.
+	 */
+	@ExportedBean(defaultVisibility = 2)
+	public static class Step {
+
+		private final String label;
+
+		private final Map<String, Long> statistics;
+
+		public Step(String label, Map<String, Long> statistics) {
+			this.label = label;
+			this.statistics = new LinkedHashMap<>(statistics);
+		}
+
+		@Exported
+		public String getLabel() {
+			return label;
+		}
+
+		@Exported
+		public Map<String, Long> getStatistics() {
+			return Collections.unmodifiableMap(statistics);
+		}
+
+		/**
+		 * @param name - statistic name
+		 * @return value, or null when it was not read
+		 */
+		public Long get(String name) {
+			return statistics.get(name);
+		}
+	}
+
+}
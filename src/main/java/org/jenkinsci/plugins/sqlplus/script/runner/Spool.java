@@ -0,0 +1,159 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.zip.GZIPOutputStream;
+
+import hudson.FilePath;
+import hudson.console.LineTransformationOutputStream;
+import hudson.remoting.RemoteOutputStream;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Output stream that writes the whole SQL*Plus output to a file and only its first and
+ * last lines, plus every error line, to the console.
+ *
+ * The last lines are kept in a ring of reused buffers until the output ends.
+ */
+public class Spool extends LineTransformationOutputStream {
+
+	public static final int DEFAULT_CONSOLE_LINES = 100;
+
+	private final OutputStream file;
+
+	private final OutputStream console;
+
+	private final ErrorMatcher matcher;
+
+	private final String name;
+
+	private final Charset charset;
+
+	private final int head;
+
+	private final byte[][] tail;
+
+	private final int[] tailLength;
+
+	private final boolean[] tailShown;
+
+	private long lines;
+
+	private long shown;
+
+	/**
+	 * @param file    - gets every line, closed with this stream
+	 * @param console - gets the first and last lines and the errors
+	 * @param matcher - tells which lines are errors, or null
+	 * @param lines   - how many first lines, and how many last lines, go to the console
+	 * @param name    - where the whole output can be found, for the console
+	 * @param charset - output charset
+	 */
+	public Spool(OutputStream file, OutputStream console, ErrorMatcher matcher, int lines, String name,
+			Charset charset) {
+		this.file = file;
+		this.console = console;
+		this.matcher = matcher;
+		this.name = name;
+		this.charset = charset;
+		this.head = Math.max(lines, 0);
+		this.tail = new byte[Math.max(lines, 0)][];
+		this.tailLength = new int[tail.length];
+		this.tailShown = new boolean[tail.length];
+	}
+
+	@Override
+	protected void eol(byte[] b, int len) throws IOException {
+		file.write(b, 0, len);
+		lines++;
+		if (lines <= head) {
+			show(b, len);
+			return;
+		}
+		boolean error = matcher != null && matcher.isError(b, len);
+		if (error) {
+			show(b, len);
+		}
+		if (tail.length > 0) {
+			int slot = (int) (lines % tail.length);
+			if (tail[slot] == null || tail[slot].length < len) {
+				tail[slot] = new byte[Math.max(len, 128)];
+			}
+			System.arraycopy(b, 0, tail[slot], 0, len);
+			tailLength[slot] = len;
+			tailShown[slot] = error;
+		}
+	}
+
+	private void show(byte[] b, int len) throws IOException {
+		console.write(b, 0, len);
+		shown++;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		console.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		super.close();
+		file.close();
+
+		long first = Math.max(head, lines - tail.length) + 1;
+		long tailShownCount = 0;
+		for (long line = first; line <= lines; line++) {
+			if (tailShown[(int) (line % tail.length)]) {
+				tailShownCount++;
+			}
+		}
+		long omitted = lines - shown - (lines - first + 1 - tailShownCount);
+		if (omitted > 0) {
+			console.write((Messages.SQLPlusRunner_spoolOmitted(omitted, name) + System.lineSeparator()).getBytes(charset));
+		}
+		for (long line = first; line <= lines; line++) {
+			int slot = (int) (line % tail.length);
+			if (!tailShown[slot]) {
+				show(tail[slot], tailLength[slot]);
+			}
+		}
+		console.flush();
+	}
+
+	/**
+	 * @param spoolFile - compressed file getting the whole output, or null
+	 * @return stream to the file, compressed on the node that holds it, or null
+	 */
+	public static OutputStream open(FilePath spoolFile) throws IOException, InterruptedException {
+		return spoolFile == null ? null : spoolFile.act(new Opener());
+	}
+
+	/**
+	 * @return how many lines were written to the file
+	 */
+	public long getLines() {
+		return lines;
+	}
+
+	/**
+	 * @return how many lines went to the console
+	 */
+	public long getShown() {
+		return shown;
+	}
+
+	private static final class Opener extends MasterToSlaveFileCallable<OutputStream> {
+
+		private static final long serialVersionUID = -2391874160534827615L;
+
+		@Override
+		public OutputStream invoke(File f, VirtualChannel channel) throws IOException {
+			return new RemoteOutputStream(new GZIPOutputStream(new FileOutputStream(f)));
+		}
+	}
+
+}
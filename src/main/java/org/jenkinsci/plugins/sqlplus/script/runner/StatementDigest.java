@@ -0,0 +1,174 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Timing of every statement of a run, in the order they ran, so the regression gate can compare
+ * statements that were not among the slowest.
+ *
+ * Each statement takes eight bytes: a hash of its text and its elapsed milliseconds. The bytes are
+ * kept as a single array, which {@link StatementTimingsAction} appends to a file of the build.
+ */
+public class StatementDigest implements Serializable {
+
+	private static final long serialVersionUID = 5310297736518416072L;
+
+	/**
+	 * Statements kept of a run, the regression gate does not compare the ones after.
+	 */
+	public static final int MAX_STATEMENTS = 100000;
+
+	/**
+	 * Edits between two runs {@link #align(StatementDigest)} looks for, beyond them only the
+	 * statements before the first and after the last difference are aligned.
+	 */
+	public static final int MAX_EDITS = 1000;
+
+	static final int ENTRY = 8;
+
+	private final byte[] data;
+
+	/**
+	 * @param data - entries, as written by {@link #write(DataOutputStream, String, long)}
+	 */
+	public StatementDigest(byte[] data) {
+		this.data = data.clone();
+	}
+
+	/**
+	 * Write the entry of a statement.
+	 *
+	 * @param out       - entries of the run
+	 * @param statement - statement text, or the feedback line before the timing
+	 * @param millis    - elapsed milliseconds
+	 */
+	public static void write(DataOutputStream out, String statement, long millis) throws IOException {
+		out.writeInt(hash(statement));
+		out.writeInt((int) Math.min(millis, Integer.MAX_VALUE));
+	}
+
+	/**
+	 * @param statement - statement text, or null
+	 * @return hash identifying the statement, with its ordinal
+	 */
+	public static int hash(String statement) {
+		return Objects.hashCode(statement);
+	}
+
+	/**
+	 * @return how many statements were kept
+	 */
+	public int size() {
+		return data.length / ENTRY;
+	}
+
+	/**
+	 * @param ordinal - position among the timed statements, starting at 1
+	 * @return hash of the statement text
+	 */
+	public int getHash(int ordinal) {
+		return ByteBuffer.wrap(data).getInt((ordinal - 1) * ENTRY);
+	}
+
+	/**
+	 * @param ordinal - position among the timed statements, starting at 1
+	 * @return elapsed milliseconds
+	 */
+	public long getMillis(int ordinal) {
+		return ByteBuffer.wrap(data).getInt((ordinal - 1) * ENTRY + 4);
+	}
+
+	byte[] toByteArray() {
+		return data.clone();
+	}
+
+	/**
+	 * Find the statements of this run in another run of the same script, so statements added or
+	 * removed in between do not shift the ones after them.
+	 *
+	 * The hashes of both runs are aligned by their longest common subsequence, with the
+	 * O((N+M)D) algorithm of Myers, D being the number of statements added or removed.
+	 *
+	 * @param previous - another run
+	 * @return for every ordinal of this run, less one, the ordinal of the same statement in the
+	 *         other run, or 0 when it has none
+	 */
+	public int[] align(StatementDigest previous) {
+
+		int[] a = hashes();
+		int[] b = previous.hashes();
+		int[] aligned = new int[a.length];
+
+		int start = 0;
+		while (start < a.length && start < b.length && a[start] == b[start]) {
+			aligned[start] = ++start;
+		}
+		int endA = a.length;
+		int endB = b.length;
+		while (endA > start && endB > start && a[endA - 1] == b[endB - 1]) {
+			aligned[--endA] = endB--;
+		}
+
+		int n = endA - start;
+		int m = endB - start;
+		int max = Math.min(n + m, MAX_EDITS);
+		int offset = max + 1;
+		int[] v = new int[2 * max + 3];
+		List<int[]> trace = new ArrayList<>();
+		for (int d = 0; d <= max; d++) {
+			// furthest reaching paths of d - 1 edits, by diagonal from -d to d
+			trace.add(Arrays.copyOfRange(v, offset - d, offset + d + 1));
+			for (int k = -d; k <= d; k += 2) {
+				int x = k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1]) ? v[offset + k + 1]
+						: v[offset + k - 1] + 1;
+				int y = x - k;
+				while (x < n && y < m && a[start + x] == b[start + y]) {
+					x++;
+					y++;
+				}
+				v[offset + k] = x;
+				if (x >= n && y >= m) {
+					backtrack(trace, n, m, start, aligned);
+					return aligned;
+				}
+			}
+		}
+		// too different, the statements in between stay unaligned
+		return aligned;
+	}
+
+	private static void backtrack(List<int[]> trace, int x, int y, int start, int[] aligned) {
+		for (int d = trace.size() - 1; d > 0; d--) {
+			int[] v = trace.get(d);
+			int k = x - y;
+			int previousK = k == -d || (k != d && v[k - 1 + d] < v[k + 1 + d]) ? k + 1 : k - 1;
+			int previousX = v[previousK + d];
+			int previousY = previousX - previousK;
+			while (x > previousX && y > previousY) {
+				aligned[start + --x] = start + --y + 1;
+			}
+			x = previousX;
+			y = previousY;
+		}
+		while (x > 0 && y > 0) {
+			aligned[start + --x] = start + --y + 1;
+		}
+	}
+
+	private int[] hashes() {
+		ByteBuffer buffer = ByteBuffer.wrap(data);
+		int[] hashes = new int[size()];
+		for (int i = 0; i < hashes.length; i++) {
+			hashes[i] = buffer.getInt(i * ENTRY);
+		}
+		return hashes;
+	}
+
+}
@@ -0,0 +1,178 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import hudson.console.LineTransformationOutputStream;
+
+/**
+ * Output filter that reads the {@code Elapsed:} lines SQL*Plus prints with {@code SET TIMING ON},
+ * keeping the slowest statements, and a {@link StatementDigest} of all of them. The label follows
+ * NLS_LANG, e.g. {@code Abgelaufen:}, and is one of {@link #ELAPSED_LABELS}, followed by a colon and
+ * {@code hh:mm:ss.ff}, so lines like {@code Started: 12:30:45.12} are not taken for timings.
+ *
+ * A timing is tied to the statement echoed before it, with {@code SET ECHO ON}, or else to the
+ * last line SQL*Plus printed, like {@code 12 rows updated.}, and to its output line.
+ */
+public class StatementTimer extends LineTransformationOutputStream {
+
+	public static final int MAX_STATEMENTS = 100;
+
+	public static final String TIMING_ON = "SET TIMING ON";
+
+	public static final String TIMING_OFF = "SET TIMING OFF";
+
+	private static final int MAX_TEXT = 200;
+
+	/**
+	 * Translations of {@code Elapsed} in the SQL*Plus message files.
+	 */
+	public static final List<String> ELAPSED_LABELS = Collections.unmodifiableList(Arrays.asList("Elapsed",
+			"Abgelaufen", "Ecoul\u00e9", "\u00c9coul\u00e9", "Transcurrido", "Trascorso", "Decorrido", "Verstreken",
+			"F\u00f6rfluten tid", "Forl\u00f8bet", "Forl\u00f8pt", "Kulunut", "Up\u0142yn\u0119\u0142o", "Uplynulo",
+			"Eltelt", "\u041f\u0440\u043e\u0448\u043b\u043e", "\u7d4c\u904e", "\u5df2\u7528\u65f6\u95f4",
+			"\u7d93\u904e\u6642\u9593", "\uacbd\uacfc"));
+
+	private static final Pattern ELAPSED = Pattern.compile("^("
+			+ ELAPSED_LABELS.stream().map(Pattern::quote).collect(Collectors.joining("|"))
+			+ ")\\s*:\\s*(\\d+):(\\d{2}):(\\d{2})[.,](\\d{1,3})\\s*$",
+			Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+
+	private static final String PROMPT = "SQL> ";
+
+	private static final Pattern CONTINUATION = Pattern.compile("^\\s*\\d+\\s{2}(.*)$");
+
+	private final OutputStream out;
+
+	private final Charset charset;
+
+	private final PriorityQueue<StatementTiming> slowest = new PriorityQueue<>(
+			Comparator.comparingLong(StatementTiming::getMillis));
+
+	private final ByteArrayOutputStream digest = new ByteArrayOutputStream();
+
+	private final DataOutputStream digestOut = new DataOutputStream(digest);
+
+	private long line;
+
+	private int count;
+
+	private StringBuilder statement;
+
+	private long statementLine;
+
+	private String previous;
+
+	private long previousLine;
+
+	public StatementTimer(OutputStream out, Charset charset) {
+		this.out = out;
+		this.charset = charset;
+	}
+
+	@Override
+	protected void eol(byte[] b, int len) throws IOException {
+		line++;
+		out.write(b, 0, len);
+
+		String text = trimEOL(new String(b, 0, len, charset));
+		Matcher elapsed = ELAPSED.matcher(text);
+		if (elapsed.matches()) {
+			count++;
+			String what = statement != null ? statement.toString() : previous;
+			long where = statement != null ? statementLine : previousLine > 0 ? previousLine : line;
+			long millis = millis(elapsed);
+			add(new StatementTiming(null, count, where, what, millis));
+			if (count <= StatementDigest.MAX_STATEMENTS) {
+				StatementDigest.write(digestOut, what, millis);
+			}
+			statement = null;
+			previous = null;
+			previousLine = 0;
+			return;
+		}
+
+		if (text.startsWith(PROMPT)) {
+			String command = text.substring(PROMPT.length()).trim();
+			statement = command.isEmpty() ? null : new StringBuilder(truncate(command));
+			statementLine = line;
+			return;
+		}
+		Matcher continuation = CONTINUATION.matcher(text);
+		if (statement != null && statement.length() < MAX_TEXT && continuation.matches()) {
+			statement.append(' ').append(continuation.group(1).trim());
+			statement.setLength(Math.min(statement.length(), MAX_TEXT));
+			return;
+		}
+		if (!text.trim().isEmpty()) {
+			previous = truncate(text.trim());
+			previousLine = line;
+		}
+	}
+
+	private void add(StatementTiming timing) {
+		if (slowest.size() < MAX_STATEMENTS) {
+			slowest.add(timing);
+		} else if (slowest.peek().getMillis() < timing.getMillis()) {
+			slowest.poll();
+			slowest.add(timing);
+		}
+	}
+
+	private static long millis(Matcher elapsed) {
+		String fraction = (elapsed.group(5) + "00").substring(0, 3);
+		return ((Long.parseLong(elapsed.group(2)) * 60 + Long.parseLong(elapsed.group(3))) * 60
+				+ Long.parseLong(elapsed.group(4))) * 1000 + Long.parseLong(fraction);
+	}
+
+	private static String truncate(String text) {
+		return text.length() > MAX_TEXT ? text.substring(0, MAX_TEXT) : text;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		super.close();
+		out.flush();
+	}
+
+	/**
+	 * @return how many statements were timed
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * @return every statement timed, at most {@link StatementDigest#MAX_STATEMENTS}, in order
+	 */
+	public StatementDigest getDigest() {
+		return new StatementDigest(digest.toByteArray());
+	}
+
+	/**
+	 * @return slowest statements, at most {@link #MAX_STATEMENTS}, slowest first
+	 */
+	public List<StatementTiming> getSlowest() {
+		List<StatementTiming> list = new ArrayList<>(slowest);
+		list.sort(Comparator.comparingLong(StatementTiming::getMillis).reversed());
+		return list;
+	}
+
+}
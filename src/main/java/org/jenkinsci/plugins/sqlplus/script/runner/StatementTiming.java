@@ -0,0 +1,74 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.io.Serializable;
+
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * Elapsed time SQL*Plus printed for a single statement.
+ */
+@ExportedBean(defaultVisibility = 2)
+public class StatementTiming implements Serializable {
+
+	private static final long serialVersionUID = -3380148671928204455L;
+
+	private final String step;
+
+	private final int ordinal;
+
+	private final long line;
+
+	private final String statement;
+
+	private final long millis;
+
+	/**
+	 * @param step      - run that printed it, or null while still on the node
+	 * @param ordinal   - position among the timed statements of the run, starting at 1
+	 * @param line      - output line of the statement, or of its timing when the statement was not echoed
+	 * @param statement - statement text, or the feedback line before the timing
+	 * @param millis    - elapsed milliseconds
+	 */
+	public StatementTiming(String step, int ordinal, long line, String statement, long millis) {
+		this.step = step;
+		this.ordinal = ordinal;
+		this.line = line;
+		this.statement = statement;
+		this.millis = millis;
+	}
+
+	/**
+	 * @param step - run that printed it
+	 * @return same timing, for that run
+	 */
+	public StatementTiming withStep(String step) {
+		return new StatementTiming(step, ordinal, line, statement, millis);
+	}
+
+	@Exported
+	public String getStep() {
+		return step;
+	}
+
+	@Exported
+	public int getOrdinal() {
+		return ordinal;
+	}
+
+	@Exported
+	public long getLine() {
+		return line;
+	}
+
+	@Exported
+	public String getStatement() {
+		return statement;
+	}
+
+	@Exported
+	public long getMillis() {
+		return millis;
+	}
+
+}
@@ -0,0 +1,171 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+import hudson.model.Api;
+import hudson.model.Run;
+import jenkins.model.RunAction2;
+
+/**
+ * Slowest statements of every SQL*Plus run of a build with statement timing on,
+ * shown as a sortable report and exported under {@value #URL_NAME}/api.
+ *
+ * The {@link StatementDigest} of every run is appended to {@value #FILE_NAME} in the build
+ * directory rather than kept in the build, and read only by the regression gate of later builds.
+ */
+@ExportedBean
+public class StatementTimingsAction implements RunAction2 {
+
+	public static final String URL_NAME = "sqlplusStatements";
+
+	public static final String FILE_NAME = "sqlplus-statements.bin";
+
+	private static final Logger LOGGER = Logger.getLogger(StatementTimingsAction.class.getName());
+
+	private final List<StatementTiming> statements = new ArrayList<>();
+
+	private int count;
+
+	private transient Run<?, ?> run;
+
+	@Override
+	public String getIconFileName() {
+		return "clock.png";
+	}
+
+	@Override
+	public String getDisplayName() {
+		return Messages.StatementTimingsAction_displayName();
+	}
+
+	@Override
+	public String getUrlName() {
+		return URL_NAME;
+	}
+
+	@Override
+	public void onAttached(Run<?, ?> r) {
+		this.run = r;
+	}
+
+	@Override
+	public void onLoad(Run<?, ?> r) {
+		this.run = r;
+	}
+
+	public Run<?, ?> getRun() {
+		return run;
+	}
+
+	public Api getApi() {
+		return new Api(this);
+	}
+
+	/**
+	 * @return slowest statements of the build, at most {@link StatementTimer#MAX_STATEMENTS}, slowest first
+	 */
+	@Exported(inline = true)
+	public synchronized List<StatementTiming> getStatements() {
+		return Collections.unmodifiableList(new ArrayList<>(statements));
+	}
+
+	/**
+	 * @return how many statements were timed in the build
+	 */
+	@Exported
+	public synchronized int getCount() {
+		return count;
+	}
+
+	/**
+	 * @param step - what was run, and where
+	 * @return every statement timed in the last such run, or null when the build did not record it
+	 */
+	public synchronized StatementDigest getDigest(String step) {
+		if (run == null) {
+			return null;
+		}
+		File file = new File(run.getRootDir(), FILE_NAME);
+		if (!file.isFile()) {
+			return null;
+		}
+		StatementDigest digest = null;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			while (true) {
+				String label;
+				try {
+					label = in.readUTF();
+				} catch (EOFException e) {
+					break;
+				}
+				byte[] data = new byte[in.readInt()];
+				in.readFully(data);
+				if (step.equals(label)) {
+					digest = new StatementDigest(data);
+				}
+			}
+		} catch (IOException e) {
+			// a run half written by a crash ends the file
+			LOGGER.log(Level.FINE, "Cannot read " + file, e);
+		}
+		return digest;
+	}
+
+	/**
+	 * Record the slowest statements of a run in a build, keeping the slowest of the whole build,
+	 * and the digest of all of them, in {@value #FILE_NAME}, for the regression gate of later builds.
+	 *
+	 * @param build      - Jenkins build
+	 * @param step       - what was run, and where
+	 * @param statements - slowest statements of the run
+	 * @param count      - how many statements were timed in the run
+	 * @param digest     - every statement timed in the run
+	 */
+	public static void record(Run<?, ?> build, String step, List<StatementTiming> statements, int count,
+			StatementDigest digest) {
+		synchronized (build) {
+			StatementTimingsAction action = build.getAction(StatementTimingsAction.class);
+			if (action == null) {
+				action = new StatementTimingsAction();
+				build.addAction(action);
+			}
+			synchronized (action) {
+				for (StatementTiming statement : statements) {
+					action.statements.add(statement.withStep(step));
+				}
+				action.statements.sort(Comparator.comparingLong(StatementTiming::getMillis).reversed());
+				if (action.statements.size() > StatementTimer.MAX_STATEMENTS) {
+					action.statements.subList(StatementTimer.MAX_STATEMENTS, action.statements.size()).clear();
+				}
+				action.count += count;
+				File file = new File(build.getRootDir(), FILE_NAME);
+				try (DataOutputStream out = new DataOutputStream(
+						new BufferedOutputStream(new FileOutputStream(file, true)))) {
+					out.writeUTF(step);
+					out.writeInt(digest.size() * StatementDigest.ENTRY);
+					out.write(digest.toByteArray());
+				} catch (IOException e) {
+					LOGGER.log(Level.WARNING, "Cannot record SQL*Plus statements of " + build.getFullDisplayName(), e);
+				}
+			}
+		}
+	}
+
+}
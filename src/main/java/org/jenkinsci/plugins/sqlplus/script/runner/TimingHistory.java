@@ -0,0 +1,292 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import hudson.model.Job;
+import hudson.model.Run;
+
+/**
+ * Append-only binary history of SQL*Plus runs of a job, in a single file of the job,
+ * so trends do not need to load every build.
+ *
+ * The file holds names, each written once and then referred to by position, and fixed size
+ * run records. It is read lazily, and then only from where the last read stopped. Only the
+ * last runs are kept in memory, and a job's history is dropped when the job is deleted or
+ * renamed, see {@link TimingHistoryListener}.
+ */
+public class TimingHistory {
+
+	public static final String FILE_NAME = "sqlplus-timings.bin";
+
+	private static final Logger LOGGER = Logger.getLogger(TimingHistory.class.getName());
+
+	private static final int MAGIC = 0x53514C54;
+
+	private static final byte VERSION = 1;
+
+	private static final int HEADER = 5;
+
+	private static final byte NAME = 'N';
+
+	private static final byte RUN = 'R';
+
+	/**
+	 * Runs kept in memory, enough for the trend of the last builds.
+	 */
+	public static final int MAX_ENTRIES = 1000;
+
+	private static final Map<String, TimingHistory> HISTORIES = new ConcurrentHashMap<>();
+
+	private final File file;
+
+	private final List<String> names = new ArrayList<>();
+
+	private final Map<String, Integer> ids = new HashMap<>();
+
+	private final Deque<Entry> entries = new ArrayDeque<>();
+
+	private long offset;
+
+	/**
+	 * @param file - history file, created by the first append
+	 */
+	public TimingHistory(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * @param job - Jenkins job
+	 * @return history of the job, shared and not read yet the first time
+	 */
+	public static TimingHistory of(Job<?, ?> job) {
+		return HISTORIES.computeIfAbsent(job.getFullName(), k -> new TimingHistory(new File(job.getRootDir(), FILE_NAME)));
+	}
+
+	/**
+	 * Drop the shared history of an item, and of the jobs inside it.
+	 *
+	 * @param fullName - full name of the job or folder
+	 */
+	public static void evict(String fullName) {
+		HISTORIES.keySet().removeIf(name -> name.equals(fullName) || name.startsWith(fullName + "/"));
+	}
+
+	/**
+	 * @param job - Jenkins job
+	 * @return true if any run of the job was recorded
+	 */
+	public static boolean exists(Job<?, ?> job) {
+		return new File(job.getRootDir(), FILE_NAME).isFile();
+	}
+
+	/**
+	 * Append a run to the history of its job, logging instead of failing the build when it cannot.
+	 *
+	 * @param build    - Jenkins build
+	 * @param script   - script, or script type for user defined scripts
+	 * @param instance - database instance
+	 * @param millis   - SQL*Plus run time
+	 * @param exitCode - SQL*Plus exit code
+	 */
+	public static void record(Run<?, ?> build, String script, String instance, long millis, int exitCode) {
+		try {
+			of(build.getParent()).append(
+					new Entry(build.getNumber(), build.getStartTimeInMillis(), script, instance, millis, exitCode));
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, "Cannot record SQL*Plus timings of " + build.getFullDisplayName(), e);
+		}
+	}
+
+	/**
+	 * @param entry - run to append
+	 */
+	public synchronized void append(Entry entry) throws IOException {
+
+		load();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		if (offset == 0) {
+			out.writeInt(MAGIC);
+			out.writeByte(VERSION);
+		}
+		int script = id(entry.getScript(), out);
+		int instance = id(entry.getInstance(), out);
+		out.writeByte(RUN);
+		out.writeInt(entry.getBuild());
+		out.writeLong(entry.getTimestamp());
+		out.writeLong(entry.getMillis());
+		out.writeInt(entry.getExitCode());
+		out.writeInt(script);
+		out.writeInt(instance);
+		out.flush();
+
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			// drop what a crash left half written
+			raf.setLength(offset);
+			raf.seek(offset);
+			raf.write(bytes.toByteArray());
+		} catch (IOException e) {
+			// names given to this entry may not be in the file, read it again next time
+			names.clear();
+			ids.clear();
+			entries.clear();
+			offset = 0;
+			throw e;
+		}
+		offset += bytes.size();
+		add(entry);
+	}
+
+	private void add(Entry entry) {
+		entries.addLast(entry);
+		if (entries.size() > MAX_ENTRIES) {
+			entries.removeFirst();
+		}
+	}
+
+	private int id(String name, DataOutputStream out) throws IOException {
+		Integer id = ids.get(name);
+		if (id == null) {
+			out.writeByte(NAME);
+			out.writeUTF(name);
+			id = addName(name);
+		}
+		return id;
+	}
+
+	private int addName(String name) {
+		int id = names.size();
+		names.add(name);
+		ids.put(name, id);
+		return id;
+	}
+
+	/**
+	 * @return the last {@value #MAX_ENTRIES} runs recorded at most, oldest first
+	 */
+	public synchronized List<Entry> getEntries() throws IOException {
+		load();
+		return Collections.unmodifiableList(new ArrayList<>(entries));
+	}
+
+	/**
+	 * Read what was appended since the last read.
+	 */
+	private void load() throws IOException {
+
+		if (!file.isFile() || file.length() <= offset) {
+			return;
+		}
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+				InputStream stream = new BufferedInputStream(Channels.newInputStream(raf.getChannel().position(offset)))) {
+			DataInputStream in = new DataInputStream(stream);
+			if (offset == 0) {
+				if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+					throw new IOException("Not a SQL*Plus timing history: " + file);
+				}
+				offset = HEADER;
+			}
+			while (true) {
+				byte type = in.readByte();
+				if (type == NAME) {
+					String name = in.readUTF();
+					addName(name);
+					offset += 1 + 2 + utfLength(name);
+				} else if (type == RUN) {
+					int build = in.readInt();
+					long timestamp = in.readLong();
+					long millis = in.readLong();
+					int exitCode = in.readInt();
+					int script = in.readInt();
+					int instance = in.readInt();
+					add(new Entry(build, timestamp, names.get(script), names.get(instance), millis, exitCode));
+					offset += 1 + 4 + 8 + 8 + 4 + 4 + 4;
+				} else {
+					throw new IOException("Corrupt SQL*Plus timing history at " + offset + ": " + file);
+				}
+			}
+		} catch (EOFException e) {
+			// end of the file, or of what was fully written
+		}
+	}
+
+	private static int utfLength(String name) {
+		int length = 0;
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			length += c >= 0x0001 && c <= 0x007F ? 1 : c <= 0x07FF ? 2 : 3;
+		}
+		return length;
+	}
+
+	/**
+	 * A SQL*Plus run of a build.
+	 */
+	public static class Entry {
+
+		private final int build;
+
+		private final long timestamp;
+
+		private final String script;
+
+		private final String instance;
+
+		private final long millis;
+
+		private final int exitCode;
+
+		public Entry(int build, long timestamp, String script, String instance, long millis, int exitCode) {
+			this.build = build;
+			this.timestamp = timestamp;
+			this.script = script;
+			this.instance = instance;
+			this.millis = millis;
+			this.exitCode = exitCode;
+		}
+
+		public int getBuild() {
+			return build;
+		}
+
+		public long getTimestamp() {
+			return timestamp;
+		}
+
+		public String getScript() {
+			return script;
+		}
+
+		public String getInstance() {
+			return instance;
+		}
+
+		public long getMillis() {
+			return millis;
+		}
+
+		public int getExitCode() {
+			return exitCode;
+		}
+	}
+
+}
@@ -0,0 +1,23 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import hudson.Extension;
+import hudson.model.Item;
+import hudson.model.listeners.ItemListener;
+
+/**
+ * Drops the timing history of a job kept in memory when the job, or its folder, is deleted or renamed.
+ */
+@Extension
+public class TimingHistoryListener extends ItemListener {
+
+	@Override
+	public void onDeleted(Item item) {
+		TimingHistory.evict(item.getFullName());
+	}
+
+	@Override
+	public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+		TimingHistory.evict(oldFullName);
+	}
+
+}
@@ -0,0 +1,172 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import hudson.Extension;
+import hudson.model.Action;
+import hudson.model.Job;
+import jenkins.model.TransientActionFactory;
+
+/**
+ * Trend of SQL*Plus run times of the last builds of a job, one line per script and instance,
+ * drawn as SVG on the job page from its {@link TimingHistory}.
+ */
+public class TimingTrendAction implements Action {
+
+	private static final Logger LOGGER = Logger.getLogger(TimingTrendAction.class.getName());
+
+	public static final int MAX_BUILDS = 50;
+
+	public static final int MAX_SERIES = 8;
+
+	private static final int WIDTH = 500;
+
+	private static final int HEIGHT = 200;
+
+	private static final int MARGIN = 40;
+
+	private static final String[] COLORS = { "#1f77b4", "#ff7f0e", "#2ca02c", "#d62728", "#9467bd", "#8c564b",
+			"#e377c2", "#7f7f7f" };
+
+	private final Job<?, ?> job;
+
+	public TimingTrendAction(Job<?, ?> job) {
+		this.job = job;
+	}
+
+	@Override
+	public String getIconFileName() {
+		return null;
+	}
+
+	@Override
+	public String getDisplayName() {
+		return Messages.TimingTrendAction_displayName();
+	}
+
+	@Override
+	public String getUrlName() {
+		return null;
+	}
+
+	public Job<?, ?> getJob() {
+		return job;
+	}
+
+	/**
+	 * @return trend chart, empty when nothing was recorded
+	 */
+	public String getSvg() {
+		try {
+			return svg(TimingHistory.of(job).getEntries());
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, "Cannot read SQL*Plus timings of " + job.getFullName(), e);
+			return "";
+		}
+	}
+
+	/**
+	 * Draw the run times of the last builds, failed runs as hollow points.
+	 *
+	 * @param entries - runs, oldest first
+	 * @return SVG chart, empty when there are no runs
+	 */
+	public static String svg(List<TimingHistory.Entry> entries) {
+
+		TreeSet<Integer> builds = new TreeSet<>();
+		for (int i = entries.size() - 1; i >= 0 && builds.size() < MAX_BUILDS; i--) {
+			builds.add(entries.get(i).getBuild());
+		}
+		if (builds.isEmpty()) {
+			return "";
+		}
+
+		Map<String, List<TimingHistory.Entry>> series = new LinkedHashMap<>();
+		long max = 1;
+		for (TimingHistory.Entry entry : entries) {
+			if (builds.contains(entry.getBuild())) {
+				String name = entry.getScript() + MessageUtil.AT + entry.getInstance();
+				if (series.containsKey(name) || series.size() < MAX_SERIES) {
+					series.computeIfAbsent(name, k -> new ArrayList<>()).add(entry);
+					max = Math.max(max, entry.getMillis());
+				}
+			}
+		}
+
+		List<Integer> xs = new ArrayList<>(builds);
+		double plotWidth = WIDTH - 2 * MARGIN;
+		double plotHeight = HEIGHT - 2 * MARGIN;
+		StringBuilder svg = new StringBuilder();
+		svg.append(String.format(Locale.ROOT,
+				"<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"%d\" height=\"%d\" font-size=\"10\">", WIDTH,
+				HEIGHT + 14 * series.size()));
+		svg.append(String.format(Locale.ROOT,
+				"<line x1=\"%d\" y1=\"%d\" x2=\"%d\" y2=\"%d\" stroke=\"#999\"/>"
+						+ "<line x1=\"%d\" y1=\"%d\" x2=\"%d\" y2=\"%d\" stroke=\"#999\"/>",
+				MARGIN, MARGIN, MARGIN, HEIGHT - MARGIN, MARGIN, HEIGHT - MARGIN, WIDTH - MARGIN, HEIGHT - MARGIN));
+		svg.append(String.format(Locale.ROOT, "<text x=\"%d\" y=\"%d\">%.1f s</text>", 2, MARGIN - 4, max / 1000.0));
+		svg.append(String.format(Locale.ROOT, "<text x=\"%d\" y=\"%d\">#%d</text><text x=\"%d\" y=\"%d\" text-anchor=\"end\">#%d</text>",
+				MARGIN, HEIGHT - MARGIN + 12, xs.get(0), WIDTH - MARGIN, HEIGHT - MARGIN + 12, xs.get(xs.size() - 1)));
+
+		int color = 0;
+		for (Map.Entry<String, List<TimingHistory.Entry>> line : series.entrySet()) {
+			String stroke = COLORS[color % COLORS.length];
+			StringBuilder points = new StringBuilder();
+			StringBuilder dots = new StringBuilder();
+			for (TimingHistory.Entry entry : line.getValue()) {
+				int index = Collections.binarySearch(xs, entry.getBuild());
+				double x = MARGIN + (xs.size() == 1 ? plotWidth / 2 : plotWidth * index / (xs.size() - 1));
+				double y = HEIGHT - MARGIN - plotHeight * entry.getMillis() / max;
+				points.append(String.format(Locale.ROOT, "%.1f,%.1f ", x, y));
+				dots.append(String.format(Locale.ROOT, "<circle cx=\"%.1f\" cy=\"%.1f\" r=\"2.5\" stroke=\"%s\" fill=\"%s\">"
+						+ "<title>#%d %s: %d ms, exit %d</title></circle>", x, y, stroke,
+						entry.getExitCode() == 0 ? stroke : "none", entry.getBuild(), escape(line.getKey()),
+						entry.getMillis(), entry.getExitCode()));
+			}
+			svg.append(String.format(Locale.ROOT, "<polyline fill=\"none\" stroke=\"%s\" points=\"%s\"/>", stroke,
+					points.toString().trim()));
+			svg.append(dots);
+			svg.append(String.format(Locale.ROOT, "<text x=\"%d\" y=\"%d\" fill=\"%s\">%s</text>", MARGIN,
+					HEIGHT + 14 * color, stroke, escape(line.getKey())));
+			color++;
+		}
+		svg.append("</svg>");
+		return svg.toString();
+	}
+
+	private static String escape(String text) {
+		return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+	}
+
+	/**
+	 * Adds the trend to jobs that ran SQL*Plus, without reading their history.
+	 */
+	@Extension
+	@SuppressWarnings("rawtypes")
+	public static class Factory extends TransientActionFactory<Job> {
+
+		@Override
+		public Class<Job> type() {
+			return Job.class;
+		}
+
+		@Override
+		public Collection<? extends Action> createFor(Job target) {
+			if (!TimingHistory.exists(target)) {
+				return Collections.emptyList();
+			}
+			return Collections.singletonList(new TimingTrendAction(target));
+		}
+	}
+
+}
@@ -0,0 +1,67 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Minimal TNSNAMES.ORA reader, enough to list the net service names (aliases).
+ */
+public class TnsNames {
+
+	private static final String IFILE = "IFILE";
+
+	private TnsNames() {
+	}
+
+	/**
+	 * List the aliases defined in a TNSNAMES.ORA, in file order. Comments and
+	 * IFILE entries are skipped, and <i>A, B = (...)</i> gives both A and B.
+	 *
+	 * @param content - TNSNAMES.ORA content
+	 * @return aliases
+	 */
+	public static List<String> aliases(String content) {
+
+		List<String> aliases = new ArrayList<>();
+		if (content == null) {
+			return aliases;
+		}
+
+		StringBuilder name = new StringBuilder();
+		int depth = 0;
+		boolean comment = false;
+		boolean skipValue = false;
+		for (int i = 0; i < content.length(); i++) {
+			char c = content.charAt(i);
+			if (comment || skipValue) {
+				if (c == '\n') {
+					comment = false;
+					skipValue = false;
+				}
+			} else if (c == '#') {
+				comment = true;
+			} else if (c == '(') {
+				depth++;
+			} else if (c == ')') {
+				depth = Math.max(0, depth - 1);
+			} else if (depth == 0 && c == '=') {
+				String names = name.toString().trim();
+				name.setLength(0);
+				if (IFILE.equals(names.toUpperCase(Locale.ENGLISH))) {
+					skipValue = true;
+				} else {
+					for (String alias : names.split(",")) {
+						if (!alias.trim().isEmpty()) {
+							aliases.add(alias.trim());
+						}
+					}
+				}
+			} else if (depth == 0) {
+				name.append(c);
+			}
+		}
+		return aliases;
+	}
+
+}
@@ -0,0 +1,168 @@
+package org.jenkinsci.plugins.sqlplus.script.runner;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import jenkins.model.CauseOfInterruption;
+
+/**
+ * Output stream that watches a running SQL*Plus: it expires when the run takes longer
+ * than the timeout, or when no output arrives for longer than the inactivity timeout.
+ */
+public class Watchdog extends OutputStream {
+
+	private static final long CHECK_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+	/**
+	 * Why the watchdog expired.
+	 */
+	public enum Reason {
+		TIMEOUT, INACTIVITY
+	}
+
+	private final OutputStream out;
+
+	private final long timeoutMillis;
+
+	private final long inactivityMillis;
+
+	private final long started;
+
+	private volatile long lastOutput;
+
+	private volatile Reason expired;
+
+	private ScheduledFuture<?> check;
+
+	/**
+	 * @param out               - where the output goes, unchanged
+	 * @param timeoutMinutes    - longest run, 0 for no limit
+	 * @param inactivityMinutes - longest time without output, 0 for no limit
+	 */
+	public Watchdog(OutputStream out, int timeoutMinutes, int inactivityMinutes) {
+		this.out = out;
+		this.timeoutMillis = TimeUnit.MINUTES.toMillis(Math.max(timeoutMinutes, 0));
+		this.inactivityMillis = TimeUnit.MINUTES.toMillis(Math.max(inactivityMinutes, 0));
+		this.started = System.currentTimeMillis();
+		this.lastOutput = started;
+	}
+
+	/**
+	 * @param timeoutMinutes    - longest run
+	 * @param inactivityMinutes - longest time without output
+	 * @return true if any limit is set
+	 */
+	public static boolean isEnabled(int timeoutMinutes, int inactivityMinutes) {
+		return timeoutMinutes > 0 || inactivityMinutes > 0;
+	}
+
+	/**
+	 * Start checking the limits in the background.
+	 *
+	 * @param scheduler - runs the checks, like the Jenkins timer on the controller
+	 * @param onExpired - stops SQL*Plus, called once
+	 */
+	public synchronized void start(ScheduledExecutorService scheduler, Runnable onExpired) {
+		check = scheduler.scheduleWithFixedDelay(() -> {
+			if (expired == null && check(System.currentTimeMillis()) != null) {
+				onExpired.run();
+			}
+		}, CHECK_MILLIS, CHECK_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	public synchronized void stop() {
+		if (check != null) {
+			check.cancel(false);
+			check = null;
+		}
+	}
+
+	/**
+	 * Check the limits at a given time.
+	 *
+	 * @param now - current time in milliseconds
+	 * @return why the watchdog expired, or null
+	 */
+	public Reason check(long now) {
+		if (expired == null) {
+			expired = expired(now - started, now - lastOutput, timeoutMillis, inactivityMillis);
+		}
+		return expired;
+	}
+
+	/**
+	 * Check a run watched from outside its output, like a detached SQL*Plus.
+	 *
+	 * @param runningMillis     - time since SQL*Plus started
+	 * @param idleMillis        - time since its last output
+	 * @param timeoutMinutes    - longest run, 0 for no limit
+	 * @param inactivityMinutes - longest time without output, 0 for no limit
+	 * @return why the run expired, or null
+	 */
+	public static Reason check(long runningMillis, long idleMillis, int timeoutMinutes, int inactivityMinutes) {
+		return expired(runningMillis, idleMillis, TimeUnit.MINUTES.toMillis(Math.max(timeoutMinutes, 0)),
+				TimeUnit.MINUTES.toMillis(Math.max(inactivityMinutes, 0)));
+	}
+
+	private static Reason expired(long running, long idle, long timeoutMillis, long inactivityMillis) {
+		if (timeoutMillis > 0 && running >= timeoutMillis) {
+			return Reason.TIMEOUT;
+		} else if (inactivityMillis > 0 && idle >= inactivityMillis) {
+			return Reason.INACTIVITY;
+		}
+		return null;
+	}
+
+	/**
+	 * @return why the watchdog expired, or null
+	 */
+	public Reason getExpired() {
+		return expired;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		lastOutput = System.currentTimeMillis();
+		out.write(b);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		lastOutput = System.currentTimeMillis();
+		out.write(b, off, len);
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		stop();
+		out.flush();
+	}
+
+	/**
+	 * Shown as the reason the build was aborted.
+	 */
+	public static final class TimedOut extends CauseOfInterruption {
+
+		private static final long serialVersionUID = 5187423150290764862L;
+
+		private final String description;
+
+		public TimedOut(String description) {
+			this.description = description;
+		}
+
+		@Override
+		public String getShortDescription() {
+			return description;
+		}
+	}
+
+}
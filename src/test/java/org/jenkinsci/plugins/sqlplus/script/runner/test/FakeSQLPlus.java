@@ -0,0 +1,159 @@
+package org.jenkinsci.plugins.sqlplus.script.runner.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Stand-in for SQL*Plus, installed as bin/sqlplus of a synthetic ORACLE_HOME, so the plugin can
+ * run without an Oracle client or database. It is a POSIX shell script.
+ *
+ * <ul>
+ * <li><i>-v</i> prints a version, like SQL*Plus does</li>
+ * <li><i>-L</i> and the logon are accepted and ignored</li>
+ * <li><i>@script</i> must name an existing file, standard input is read to its end otherwise</li>
+ * </ul>
+ *
+ * Then it waits for the latency, prints the configured number of lines and exits with the
+ * configured exit code. The environment variables FAKE_SQLPLUS_LINES, FAKE_SQLPLUS_LATENCY_MILLIS
+ * and FAKE_SQLPLUS_EXIT override them for a single run. Runs logging on to the instance given to
+ * {@link #failOn(String)} exit with 1, and {@link #running(File)} counts the runs at the same time.
+ */
+public class FakeSQLPlus {
+
+	public static final String VERSION = "SQL*Plus: Release 19.0.0.0.0 - Production";
+
+	public static final String INSTANCE = "FAKE";
+
+	private static final String EOL = "\n";
+
+	private int lines = 10;
+
+	private long latencyMillis;
+
+	private int exitCode;
+
+	private String failOn;
+
+	private File running;
+
+	/**
+	 * @param lines - output lines of every run
+	 * @return this fixture
+	 */
+	public FakeSQLPlus lines(int lines) {
+		this.lines = lines;
+		return this;
+	}
+
+	/**
+	 * @param latencyMillis - wait before the output of every run
+	 * @return this fixture
+	 */
+	public FakeSQLPlus latency(long latencyMillis) {
+		this.latencyMillis = latencyMillis;
+		return this;
+	}
+
+	/**
+	 * @param exitCode - exit code of every run
+	 * @return this fixture
+	 */
+	public FakeSQLPlus exitCode(int exitCode) {
+		this.exitCode = exitCode;
+		return this;
+	}
+
+	/**
+	 * @param instance - instance whose runs exit with 1
+	 * @return this fixture
+	 */
+	public FakeSQLPlus failOn(String instance) {
+		this.failOn = instance;
+		return this;
+	}
+
+	/**
+	 * Every run leaves a file in the directory while it runs, and appends how many files there are when it
+	 * starts to a file of the same name ending in .log.
+	 *
+	 * @param running - directory of the running runs
+	 * @return this fixture
+	 */
+	public FakeSQLPlus running(File running) {
+		this.running = running;
+		return this;
+	}
+
+	/**
+	 * Create bin/sqlplus, lib and network/admin/tnsnames.ora in the Oracle Home.
+	 *
+	 * @param oracleHome - synthetic Oracle Home, created if missing
+	 * @return the stand-in executable
+	 */
+	public File install(File oracleHome) throws IOException {
+
+		File bin = new File(oracleHome, "bin");
+		File admin = new File(new File(oracleHome, "network"), "admin");
+		File lib = new File(oracleHome, "lib");
+		for (File dir : new File[] { bin, admin, lib }) {
+			if (!dir.isDirectory() && !dir.mkdirs()) {
+				throw new IOException("cannot create " + dir);
+			}
+		}
+		Files.write(new File(admin, "tnsnames.ora").toPath(),
+				(INSTANCE + " = (DESCRIPTION = (ADDRESS = (PROTOCOL = TCP)(HOST = localhost)(PORT = 1521))"
+						+ "(CONNECT_DATA = (SERVICE_NAME = " + INSTANCE + ")))" + EOL).getBytes(StandardCharsets.UTF_8));
+
+		File sqlplus = new File(bin, "sqlplus");
+		Files.write(sqlplus.toPath(), script().getBytes(StandardCharsets.UTF_8));
+		if (!sqlplus.setExecutable(true)) {
+			throw new IOException("cannot make " + sqlplus + " executable");
+		}
+		return sqlplus;
+	}
+
+	private String script() {
+		return "#!/bin/sh" + EOL
+				+ "# SQL*Plus stand-in for tests" + EOL
+				+ "LINES=${FAKE_SQLPLUS_LINES:-" + lines + "}" + EOL
+				+ "LATENCY=${FAKE_SQLPLUS_LATENCY_MILLIS:-" + latencyMillis + "}" + EOL
+				+ "EXIT=${FAKE_SQLPLUS_EXIT:-" + exitCode + "}" + EOL
+				+ "case \"$1\" in" + EOL
+				+ "-v|-V) echo; echo \"" + VERSION + "\"; echo \"Version 19.3.0.0.0\"; echo; exit 0 ;;" + EOL
+				+ "esac" + EOL
+				+ "SCRIPT=" + EOL
+				+ "for ARG in \"$@\"; do" + EOL
+				+ "  case \"$ARG\" in @*) SCRIPT=${ARG#@} ;; esac" + EOL
+				+ (failOn == null ? "" : "  case \"$ARG\" in *@" + failOn + "*) EXIT=1 ;; esac" + EOL)
+				+ "done" + EOL
+				+ "echo" + EOL
+				+ "echo \"" + VERSION + "\"" + EOL
+				+ "echo" + EOL
+				+ "echo \"Connected to:\"" + EOL
+				+ "echo \"Oracle Database 19c Enterprise Edition Release 19.0.0.0.0 - Production\"" + EOL
+				+ "echo" + EOL
+				+ "if [ -n \"$SCRIPT\" ]; then" + EOL
+				+ "  if [ ! -f \"$SCRIPT\" ]; then" + EOL
+				+ "    echo \"SP2-0310: unable to open file \\\"$SCRIPT\\\"\"" + EOL
+				+ "    exit 1" + EOL
+				+ "  fi" + EOL
+				+ "else" + EOL
+				+ "  cat > /dev/null" + EOL
+				+ "fi" + EOL
+				+ (running == null ? "" : "RUNNING=\"" + running.getPath() + "\"" + EOL
+						+ "touch \"$RUNNING/$$\"" + EOL
+						+ "ls \"$RUNNING\" | wc -l >> \"$RUNNING.log\"" + EOL
+						+ "trap 'rm -f \"$RUNNING/$$\"' EXIT" + EOL)
+				+ "if [ \"$LATENCY\" -gt 0 ]; then" + EOL
+				+ "  sleep \"$(awk -v ms=\"$LATENCY\" 'BEGIN { printf \"%.3f\", ms / 1000 }')\"" + EOL
+				+ "fi" + EOL
+				+ "awk -v n=\"$LINES\" 'BEGIN { for (i = 1; i <= n; i++) printf \"ROW %08d some synthetic output of a SQL*Plus query\\n\", i }'"
+				+ EOL
+				+ "echo" + EOL
+				+ "echo \"Disconnected from Oracle Database 19c Enterprise Edition Release 19.0.0.0.0 - Production\"" + EOL
+				+ "exit \"$EXIT\"" + EOL;
+	}
+
+}
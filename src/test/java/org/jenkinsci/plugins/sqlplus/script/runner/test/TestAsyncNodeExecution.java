@@ -0,0 +1,112 @@
+package org.jenkinsci.plugins.sqlplus.script.runner.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.jenkinsci.plugins.sqlplus.script.runner.AsyncNodeExecution;
+import org.jenkinsci.plugins.sqlplus.script.runner.ExecutionResult;
+import org.jenkinsci.plugins.sqlplus.script.runner.NodeExecution;
+import org.jenkinsci.plugins.sqlplus.script.runner.OutputSettings;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import hudson.EnvVars;
+import hudson.remoting.LocalChannel;
+import hudson.util.ArgumentListBuilder;
+import hudson.util.StreamTaskListener;
+
+public class TestAsyncNodeExecution {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	private final ByteArrayOutputStream console = new ByteArrayOutputStream();
+
+	private final CompletableFuture<ExecutionResult> outcome = new CompletableFuture<>();
+
+	private final AsyncNodeExecution.Callback callback = new AsyncNodeExecution.Callback() {
+		@Override
+		public void done(ExecutionResult result) {
+			outcome.complete(result);
+		}
+
+		@Override
+		public void failed(Throwable cause) {
+			outcome.completeExceptionally(cause);
+		}
+	};
+
+	private File oracleHome;
+
+	@Before
+	public void setUp() throws IOException {
+		// the stand-in is a shell script
+		Assume.assumeTrue(File.separatorChar == '/');
+		oracleHome = folder.newFolder("oracle");
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testReturnsBeforeSQLPlusExits() throws Exception {
+
+		new FakeSQLPlus().lines(5).latency(2000).exitCode(3).install(oracleHome);
+
+		AsyncNodeExecution.start(new LocalChannel(executor), execution(), callback);
+
+		assertFalse(outcome.isDone());
+		ExecutionResult result = outcome.get(30, TimeUnit.SECONDS);
+		assertEquals(3, result.getExitCode());
+		assertTrue(console.toString(StandardCharsets.UTF_8.name()).contains("ROW 00000005"));
+	}
+
+	@Test
+	public void testStop() throws Exception {
+
+		new FakeSQLPlus().latency(60000).install(oracleHome);
+
+		AsyncNodeExecution.Handle handle = AsyncNodeExecution.start(new LocalChannel(executor), execution(), callback);
+		handle.stop();
+
+		try {
+			outcome.get(30, TimeUnit.SECONDS);
+		} catch (java.util.concurrent.ExecutionException e) {
+			assertTrue(e.getCause() instanceof InterruptedIOException);
+			return;
+		}
+		throw new AssertionError("SQL*Plus was not stopped");
+	}
+
+	private NodeExecution execution() throws IOException {
+		File script = folder.newFile("script.sql");
+		Files.write(script.toPath(), "select 1 from dual;\nexit;\n".getBytes(StandardCharsets.UTF_8));
+		ArgumentListBuilder args = new ArgumentListBuilder(new File(new File(oracleHome, "bin"), "sqlplus").getPath(),
+				"-L", "scott/tiger@" + FakeSQLPlus.INSTANCE, "@" + script.getPath());
+		OutputSettings settings = new OutputSettings(Collections.emptyList(), false, 0, 0, false, 0, null, false, false);
+		return new NodeExecution(args, new EnvVars(), folder.getRoot().getPath(), null, settings, null,
+				new StreamTaskListener(console, StandardCharsets.UTF_8));
+	}
+
+}
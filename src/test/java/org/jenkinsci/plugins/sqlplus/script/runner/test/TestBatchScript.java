@@ -0,0 +1,72 @@
+package org.jenkinsci.plugins.sqlplus.script.runner.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.jenkinsci.plugins.sqlplus.script.runner.BatchScript;
+import org.junit.Test;
+
+public class TestBatchScript {
+
+	@Test
+	public void testDriverRunsScriptsInOrder() {
+
+		String driver = BatchScript.driver(Arrays.asList("/ws/a.sql", "/ws/b.sql"), true);
+
+		assertTrue(driver.startsWith("WHENEVER SQLERROR EXIT FAILURE\n"));
+		assertTrue(driver.indexOf("@\"/ws/a.sql\"") < driver.indexOf("@\"/ws/b.sql\""));
+		assertTrue(driver.contains("PROMPT SQLPlus Script Runner batch 2/2: /ws/b.sql\n"));
+		assertTrue(driver.endsWith("PROMPT SQLPlus Script Runner batch done\nexit;\n"));
+		assertFalse(BatchScript.driver(Arrays.asList("/ws/a.sql"), false).contains("exit;"));
+	}
+
+	@Test
+	public void testEndsWithExit() {
+
+		assertTrue(BatchScript.endsWithExit("create table t (id number);\nexit;\n"));
+		assertTrue(BatchScript.endsWithExit("create table t (id number);\r\nEXIT SQL.SQLCODE\r\n-- done\r\n\r\n"));
+		assertTrue(BatchScript.endsWithExit("select 1 from dual;\nquit\nREM the end\n"));
+		assertFalse(BatchScript.endsWithExit("begin\n  loop\n    exit;\n  end loop;\nend;\n/\n"));
+		assertFalse(BatchScript.endsWithExit("update t set exit_code = 0;\n"));
+		assertFalse(BatchScript.endsWithExit(""));
+	}
+
+	@Test
+	public void testProgressKeepsFailedScript() throws IOException {
+
+		ByteArrayOutputStream log = new ByteArrayOutputStream();
+		BatchScript.Progress progress = new BatchScript.Progress(log, StandardCharsets.UTF_8);
+		write(progress, "SQLPlus Script Runner batch 1/2: /ws/a.sql\nTable created.\n"
+				+ "SQLPlus Script Runner batch 2/2: /ws/b.sql\nORA-00942: table or view does not exist\n");
+		progress.close();
+
+		assertEquals("/ws/b.sql", progress.getCurrent());
+		assertEquals(2, progress.getIndex());
+		assertEquals(2, progress.getTotal());
+		assertFalse(progress.isDone());
+		assertTrue(new String(log.toByteArray(), StandardCharsets.UTF_8).contains("ORA-00942"));
+	}
+
+	@Test
+	public void testProgressDone() throws IOException {
+
+		BatchScript.Progress progress = new BatchScript.Progress(new ByteArrayOutputStream(), StandardCharsets.UTF_8);
+		write(progress, "SQLPlus Script Runner batch 1/1: /ws/a.sql\nSQLPlus Script Runner batch done\n");
+		progress.close();
+
+		assertTrue(progress.isDone());
+		assertNull(progress.getCurrent());
+	}
+
+	private static void write(BatchScript.Progress progress, String output) throws IOException {
+		progress.write(output.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
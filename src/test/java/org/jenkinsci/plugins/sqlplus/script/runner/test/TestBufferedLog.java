@@ -0,0 +1,68 @@
+package org.jenkinsci.plugins.sqlplus.script.runner.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import org.jenkinsci.plugins.sqlplus.script.runner.BufferedLog;
+import org.jenkinsci.plugins.sqlplus.script.runner.OutputFilters;
+import org.jenkinsci.plugins.sqlplus.script.runner.OutputSettings;
+import org.junit.Test;
+
+public class TestBufferedLog {
+
+	@Test
+	public void testSmallWritesAreHeld() throws IOException {
+
+		ByteArrayOutputStream log = new ByteArrayOutputStream();
+		BufferedLog buffered = new BufferedLog(log, 16);
+		buffered.write("row 1\n".getBytes(StandardCharsets.UTF_8));
+		buffered.write("row 2\n".getBytes(StandardCharsets.UTF_8));
+		assertEquals("", log.toString("UTF-8"));
+
+		buffered.write("row 3\n".getBytes(StandardCharsets.UTF_8));
+		assertEquals("row 1\nrow 2\n", log.toString("UTF-8"));
+
+		buffered.close();
+		assertEquals("row 1\nrow 2\nrow 3\n", log.toString("UTF-8"));
+	}
+
+	@Test
+	public void testLargeWritesKeepOrder() throws IOException {
+
+		ByteArrayOutputStream log = new ByteArrayOutputStream();
+		BufferedLog buffered = new BufferedLog(log, 8);
+		buffered.write('a');
+		buffered.write("0123456789".getBytes(StandardCharsets.UTF_8));
+		buffered.write('b');
+		buffered.flush();
+
+		assertEquals("a0123456789b", log.toString("UTF-8"));
+	}
+
+	@Test
+	public void testErrorLinesAreFlushed() throws IOException {
+
+		ByteArrayOutputStream log = new ByteArrayOutputStream();
+		OutputStream buffered = new BufferedLog(log, BufferedLog.DEFAULT_SIZE);
+		OutputSettings settings = new OutputSettings(Collections.emptyList(), false, 0, 0, false, 0, null, false, false);
+		try (OutputFilters filters = settings.open(buffered, null, StandardCharsets.UTF_8)) {
+			OutputStream out = filters.getOutput();
+			out.write("1 row selected.\n".getBytes(StandardCharsets.UTF_8));
+			assertEquals("", log.toString("UTF-8"));
+
+			out.write("ORA-00942: table or view does not exist\n".getBytes(StandardCharsets.UTF_8));
+			assertEquals("1 row selected.\nORA-00942: table or view does not exist\n", log.toString("UTF-8"));
+
+			out.write("done\n".getBytes(StandardCharsets.UTF_8));
+			filters.finish(0);
+		}
+		buffered.close();
+		assertEquals("1 row selected.\nORA-00942: table or view does not exist\ndone\n", log.toString("UTF-8"));
+	}
+
+}
@@ -0,0 +1,170 @@
+package org.jenkinsci.plugins.sqlplus.script.runner.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import org.jenkinsci.plugins.sqlplus.script.runner.PhaseTimingsAction;
+import org.jenkinsci.plugins.sqlplus.script.runner.SQLPlusRunnerBuilder;
+import org.jenkinsci.plugins.sqlplus.script.runner.ScriptType;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+import hudson.model.queue.QueueTaskFuture;
+import hudson.remoting.Channel;
+import hudson.remoting.Command;
+import hudson.slaves.DumbSlave;
+
+/*
+ * Hundreds of concurrent builds against a SQL*Plus stand-in on one agent, see FakeSQLPlus.
+ * It takes minutes, so it only runs with -Dsqlplus.loadTest=true, and these properties:
+ *
+ * sqlplus.loadTest.builds        - builds, 200
+ * sqlplus.loadTest.executors     - agent executors, so concurrent builds, 100
+ * sqlplus.loadTest.lines         - output lines of every run, 1000
+ * sqlplus.loadTest.latencyMillis - SQL*Plus latency, 500
+ * sqlplus.loadTest.maxOverheadMillis - highest p95 step overhead, 2000
+ * sqlplus.loadTest.maxThreads    - most controller threads the builds may add, 2 per executor plus 100
+ *
+ * The measures are logged at INFO.
+ */
+public class TestConcurrentLoad {
+
+	private static final String LOAD_TEST = "sqlplus.loadTest";
+
+	private static final int BUILDS = Integer.getInteger(LOAD_TEST + ".builds", 200);
+
+	private static final int EXECUTORS = Integer.getInteger(LOAD_TEST + ".executors", 100);
+
+	private static final int LINES = Integer.getInteger(LOAD_TEST + ".lines", 1000);
+
+	private static final int LATENCY_MILLIS = Integer.getInteger(LOAD_TEST + ".latencyMillis", 500);
+
+	private static final int MAX_OVERHEAD_MILLIS = Integer.getInteger(LOAD_TEST + ".maxOverheadMillis", 2000);
+
+	private static final int MAX_THREADS = Integer.getInteger(LOAD_TEST + ".maxThreads", 2 * EXECUTORS + 100);
+
+	private static final Logger LOGGER = Logger.getLogger(TestConcurrentLoad.class.getName());
+
+	@Rule
+	public JenkinsRule j = new JenkinsRule();
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	{
+		// the whole load, not a single build, is what takes long
+		j.timeout = 0;
+	}
+
+	@BeforeClass
+	public static void gate() {
+		Assume.assumeTrue(Boolean.getBoolean(LOAD_TEST));
+		// the stand-in is a shell script
+		Assume.assumeTrue(File.separatorChar == '/');
+	}
+
+	@Test
+	public void testConcurrentBuilds() throws Exception {
+
+		File oracleHome = folder.newFolder("oracle");
+		new FakeSQLPlus().lines(LINES).latency(LATENCY_MILLIS).install(oracleHome);
+
+		DumbSlave agent = new DumbSlave("load", folder.newFolder("agent").getPath(), j.createComputerLauncher(null));
+		agent.setNumExecutors(EXECUTORS);
+		j.jenkins.addNode(agent);
+		j.waitOnline(agent);
+
+		AtomicLong read = new AtomicLong();
+		AtomicLong written = new AtomicLong();
+		((Channel) agent.getChannel()).addListener(new Channel.Listener() {
+			@Override
+			public void onRead(Channel channel, Command cmd, long blockSize) {
+				read.addAndGet(blockSize);
+			}
+
+			@Override
+			public void onWrite(Channel channel, Command cmd, long blockSize) {
+				written.addAndGet(blockSize);
+			}
+		});
+
+		List<FreeStyleProject> projects = new ArrayList<>();
+		for (int i = 0; i < BUILDS; i++) {
+			SQLPlusRunnerBuilder builder = new SQLPlusRunnerBuilder(null, "scott", "tiger", "false",
+					FakeSQLPlus.INSTANCE, ScriptType.userDefined.name(), null, "select 1 from dual;");
+			builder.setCustomOracleHome(oracleHome.getPath());
+			FreeStyleProject project = j.createFreeStyleProject("load-" + i);
+			project.setAssignedNode(agent);
+			project.getBuildersList().add(builder);
+			projects.add(project);
+		}
+
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		com.sun.management.OperatingSystemMXBean os = (com.sun.management.OperatingSystemMXBean) ManagementFactory
+				.getOperatingSystemMXBean();
+		AtomicLong peakHeap = new AtomicLong();
+		ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+		sampler.scheduleAtFixedRate(() -> peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max),
+				0, 100, TimeUnit.MILLISECONDS);
+		int threadsBefore = threads.getThreadCount();
+		threads.resetPeakThreadCount();
+
+		long cpuBefore = os.getProcessCpuTime();
+		long started = System.nanoTime();
+		List<QueueTaskFuture<FreeStyleBuild>> futures = new ArrayList<>();
+		for (FreeStyleProject project : projects) {
+			futures.add(project.scheduleBuild2(0));
+		}
+		List<Double> overhead = new ArrayList<>();
+		for (QueueTaskFuture<FreeStyleBuild> future : futures) {
+			FreeStyleBuild build = j.assertBuildStatus(Result.SUCCESS, future);
+			overhead.add(build.getAction(PhaseTimingsAction.class).getOverheadMillis());
+		}
+		long wallNanos = System.nanoTime() - started;
+		long cpuNanos = os.getProcessCpuTime() - cpuBefore;
+		sampler.shutdownNow();
+
+		Collections.sort(overhead);
+		double p50 = overhead.get(overhead.size() / 2);
+		double p95 = overhead.get((int) (overhead.size() * 0.95));
+		int addedThreads = threads.getPeakThreadCount() - threadsBefore;
+		LOGGER.info("builds                 = " + BUILDS + " on " + EXECUTORS + " executors");
+		LOGGER.info("wall time              = " + TimeUnit.NANOSECONDS.toMillis(wallNanos) + " ms");
+		LOGGER.info("controller CPU         = " + TimeUnit.NANOSECONDS.toMillis(cpuNanos) + " ms, "
+				+ Math.round(100.0 * cpuNanos / wallNanos) + "% of one core");
+		LOGGER.info("controller peak heap   = " + peakHeap.get() / (1024 * 1024) + " MB");
+		LOGGER.info("controller threads     = " + threadsBefore + " + " + addedThreads + " at peak");
+		LOGGER.info("remoting read/written  = " + read.get() / 1024 + " KB / " + written.get() / 1024 + " KB, "
+				+ (read.get() + written.get()) / BUILDS + " bytes per build");
+		LOGGER.info("step overhead p50/p95  = " + PhaseTimingsAction.format(p50) + " / " + PhaseTimingsAction.format(p95)
+				+ " ms");
+
+		assertEquals(BUILDS, overhead.size());
+		assertTrue("p95 step overhead " + PhaseTimingsAction.format(p95) + " ms, at most " + MAX_OVERHEAD_MILLIS,
+				p95 <= MAX_OVERHEAD_MILLIS);
+		// a thread held per running build, or leaked per build, would grow with the builds
+		assertTrue(addedThreads + " threads added, at most " + MAX_THREADS, addedThreads <= MAX_THREADS);
+	}
+
+}
@@ -0,0 +1,155 @@
+package org.jenkinsci.plugins.sqlplus.script.runner.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+import org.jenkinsci.plugins.sqlplus.script.runner.DurableExecution;
+import org.jenkinsci.plugins.sqlplus.script.runner.ExecutionResult;
+import org.jenkinsci.plugins.sqlplus.script.runner.OutputSettings;
+import org.jenkinsci.plugins.sqlplus.script.runner.Watchdog;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import hudson.EnvVars;
+import hudson.util.ArgumentListBuilder;
+import hudson.util.StreamTaskListener;
+
+public class TestDurableExecution {
+
+	private static final long WAIT_MILLIS = 30000;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final ByteArrayOutputStream console = new ByteArrayOutputStream();
+
+	private final StreamTaskListener listener = new StreamTaskListener(console, StandardCharsets.UTF_8);
+
+	private File oracleHome;
+
+	private File control;
+
+	private int errors;
+
+	@Before
+	public void setUp() throws IOException {
+		// the wrapper and the stand-in are shell scripts
+		Assume.assumeTrue(File.separatorChar == '/');
+		oracleHome = folder.newFolder("oracle");
+		control = folder.newFolder("control");
+	}
+
+	@Test
+	public void testOutput() throws Exception {
+
+		new FakeSQLPlus().lines(5).latency(1000).exitCode(2).install(oracleHome);
+		start("@" + script().getPath());
+
+		DurableExecution.Status status = waitForExit(null);
+
+		assertEquals(Integer.valueOf(2), status.getExitCode());
+		String output = console.toString(StandardCharsets.UTF_8.name());
+		assertEquals(output.indexOf("ROW 00000005"), output.lastIndexOf("ROW 00000005"));
+		assertTrue(output.contains("ROW 00000005"));
+
+		ExecutionResult result = new DurableExecution.Outcome(settings(), null, null, listener).invoke(control, null);
+		assertEquals(2, result.getExitCode());
+		assertEquals(0, result.getErrorCount());
+		assertNull(result.getExpired());
+	}
+
+	@Test
+	public void testResume() throws Exception {
+
+		new FakeSQLPlus().lines(5).install(oracleHome);
+		start("@" + script().getPath());
+
+		DurableExecution.Status status = waitForExit(null);
+		int length = console.size();
+
+		// like the controller after a restart, without the offset it had read up to
+		DurableExecution.Status resumed = new DurableExecution.Poll(0, true, null, listener).invoke(control, null);
+
+		assertEquals(length, console.size());
+		assertEquals(status.getOffset(), resumed.getOffset());
+		assertFalse(resumed.hasMore());
+	}
+
+	@Test
+	public void testErrors() throws Exception {
+
+		new FakeSQLPlus().install(oracleHome);
+		start("@missing.sql");
+
+		waitForExit(Collections.emptyList());
+
+		assertEquals(1, errors);
+		ExecutionResult result = new DurableExecution.Outcome(settings(), null, Watchdog.Reason.TIMEOUT, listener)
+				.invoke(control, null);
+		assertEquals(1, result.getErrorCount());
+		assertEquals(Watchdog.Reason.TIMEOUT, result.getExpired());
+	}
+
+	@Test
+	public void testStop() throws Exception {
+
+		new FakeSQLPlus().latency(60000).install(oracleHome);
+		start("@" + script().getPath());
+
+		long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+		while (!new DurableExecution.Stop().invoke(control, null)) {
+			assertTrue(System.currentTimeMillis() < deadline);
+			Thread.sleep(100);
+		}
+
+		DurableExecution.Status status = waitForExit(null);
+		assertTrue(status.getExitCode() != 0);
+	}
+
+	private void start(String script) throws IOException, InterruptedException {
+		ArgumentListBuilder args = new ArgumentListBuilder(new File(new File(oracleHome, "bin"), "sqlplus").getPath(),
+				"-L", "scott/tiger@" + FakeSQLPlus.INSTANCE, script);
+		new DurableExecution(args, new EnvVars(), folder.getRoot().getPath(), null).invoke(control, null);
+	}
+
+	private DurableExecution.Status waitForExit(List<String> errorPatterns) throws Exception {
+		long offset = 0;
+		long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+		while (true) {
+			DurableExecution.Status status = new DurableExecution.Poll(offset, true, errorPatterns, listener)
+					.invoke(control, null);
+			offset = status.getOffset();
+			errors += status.getErrorCount();
+			assertTrue(status.isAlive());
+			if (status.getExitCode() != null && !status.hasMore()) {
+				return status;
+			}
+			assertTrue(System.currentTimeMillis() < deadline);
+			Thread.sleep(100);
+		}
+	}
+
+	private File script() throws IOException {
+		File script = folder.newFile("script.sql");
+		Files.write(script.toPath(), "select 1 from dual;\nexit;\n".getBytes(StandardCharsets.UTF_8));
+		return script;
+	}
+
+	private static OutputSettings settings() {
+		return new OutputSettings(Collections.emptyList(), false, 0, 0, false, 0, null, false, false);
+	}
+
+}
@@ -0,0 +1,79 @@
+package org.jenkinsci.plugins.sqlplus.script.runner.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.JenkinsSessionRule;
+
+import com.cloudbees.plugins.credentials.CredentialsScope;
+import com.cloudbees.plugins.credentials.SystemCredentialsProvider;
+import com.cloudbees.plugins.credentials.impl.UsernamePasswordCredentialsImpl;
+
+/*
+ * A durable sqlplus step goes on across a restart of the controller, against the SQL*Plus stand-in, see FakeSQLPlus.
+ */
+public class TestDurableRestart {
+
+	private static final String JOB = "durable";
+
+	/**
+	 * Long enough for Jenkins to stop and start again while SQL*Plus waits.
+	 */
+	private static final long LATENCY_MILLIS = 30000;
+
+	@Rule
+	public JenkinsSessionRule sessions = new JenkinsSessionRule();
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Before
+	public void setUp() {
+		// the stand-in and the detached wrapper are shell scripts
+		Assume.assumeTrue(File.separatorChar == '/');
+	}
+
+	@Test
+	public void testRestart() throws Throwable {
+
+		File oracleHome = folder.newFolder("oracle");
+		new FakeSQLPlus().lines(3).latency(LATENCY_MILLIS).install(oracleHome);
+
+		sessions.then(j -> {
+			SystemCredentialsProvider.getInstance().getCredentials()
+					.add(new UsernamePasswordCredentialsImpl(CredentialsScope.GLOBAL, "oracle", null, "scott", "tiger"));
+			SystemCredentialsProvider.getInstance().save();
+			WorkflowJob job = j.createProject(WorkflowJob.class, JOB);
+			job.setDefinition(new CpsFlowDefinition("node {\n"
+					+ "  sqlplus credentialsId: 'oracle', instance: '" + FakeSQLPlus.INSTANCE + "',\n"
+					+ "      scriptType: 'userDefined', scriptContent: 'select 1 from dual;',\n"
+					+ "      customOracleHome: '" + oracleHome.getPath() + "', durable: true\n"
+					+ "}", true));
+			WorkflowRun run = job.scheduleBuild2(0).waitForStart();
+			// SQL*Plus logged on, and waits before its rows
+			j.waitForMessage("Connected to:", run);
+		});
+
+		sessions.then(j -> {
+			WorkflowRun run = j.jenkins.getItemByFullName(JOB, WorkflowJob.class).getBuildByNumber(1);
+			j.waitForCompletion(run);
+			j.assertBuildStatusSuccess(run);
+			j.assertLogContains("Reading the output of SQL*Plus again after a restart", run);
+			j.assertLogContains("ROW 00000003", run);
+			// read on from where it stopped, nothing twice
+			String log = JenkinsRule.getLog(run);
+			assertEquals(log.indexOf("Connected to:"), log.lastIndexOf("Connected to:"));
+		});
+	}
+
+}
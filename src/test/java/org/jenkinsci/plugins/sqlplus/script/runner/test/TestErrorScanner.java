@@ -0,0 +1,72 @@
+package org.jenkinsci.plugins.sqlplus.script.runner.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jenkinsci.plugins.sqlplus.script.runner.ErrorScanner;
+import org.junit.Test;
+
+public class TestErrorScanner {
+
+	private static final String OUTPUT = "Table created.\n"
+			+ "ERROR at line 1:\nORA-00942: table or view does not exist\n"
+			+ "SP2-0310: unable to open file \"missing.sql\"\n"
+			+ "CORA-NET is not an error\n"
+			+ "Warning: Procedure created with compilation errors.\n"
+			+ "PLS-00201: identifier 'X' must be declared";
+
+	@Test
+	public void testOracleErrors() throws IOException {
+
+		ByteArrayOutputStream log = new ByteArrayOutputStream();
+		ErrorScanner scanner = scan(log, new ErrorScanner(log, StandardCharsets.UTF_8, Collections.emptyList()));
+
+		assertEquals(OUTPUT, new String(log.toByteArray(), StandardCharsets.UTF_8));
+		assertEquals(Arrays.asList("ORA-00942: table or view does not exist",
+				"SP2-0310: unable to open file \"missing.sql\"", "PLS-00201: identifier 'X' must be declared"),
+				scanner.getErrors());
+	}
+
+	@Test
+	public void testUserPatterns() throws IOException {
+
+		ByteArrayOutputStream log = new ByteArrayOutputStream();
+		ErrorScanner scanner = scan(log, new ErrorScanner(log, StandardCharsets.UTF_8,
+				ErrorScanner.patterns("compilation errors\n\nERROR at")));
+
+		assertEquals(5, scanner.getCount());
+		assertTrue(scanner.getErrors().contains("Warning: Procedure created with compilation errors."));
+		assertEquals("ERROR at line 1:", scanner.getErrors().get(0));
+	}
+
+	@Test
+	public void testFirstErrorCallback() throws IOException {
+
+		ByteArrayOutputStream log = new ByteArrayOutputStream();
+		ErrorScanner scanner = new ErrorScanner(log, StandardCharsets.UTF_8, Collections.emptyList());
+		AtomicInteger calls = new AtomicInteger();
+		scanner.setOnFirstError(() -> {
+			calls.incrementAndGet();
+			// the error line is already written when SQL*Plus is stopped
+			assertTrue(new String(log.toByteArray(), StandardCharsets.UTF_8).endsWith("does not exist\n"));
+		});
+		scan(log, scanner);
+
+		assertEquals(1, calls.get());
+		assertEquals(3, scanner.getCount());
+	}
+
+	private static ErrorScanner scan(ByteArrayOutputStream log, ErrorScanner scanner) throws IOException {
+		scanner.write(OUTPUT.getBytes(StandardCharsets.UTF_8));
+		scanner.close();
+		return scanner;
+	}
+
+}
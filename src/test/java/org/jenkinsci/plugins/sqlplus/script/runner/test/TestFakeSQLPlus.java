@@ -0,0 +1,121 @@
+package org.jenkinsci.plugins.sqlplus.script.runner.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.jenkinsci.plugins.sqlplus.script.runner.NodeContext;
+import org.jenkinsci.plugins.sqlplus.script.runner.NodeDiscovery;
+import org.jenkinsci.plugins.sqlplus.script.runner.SQLPlusVersion;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestFakeSQLPlus {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File oracleHome;
+
+	private File sqlplus;
+
+	private int lastExit;
+
+	@Before
+	public void setUp() throws IOException {
+		// the stand-in is a shell script
+		Assume.assumeTrue(File.separatorChar == '/');
+		oracleHome = folder.newFolder("oracle");
+		sqlplus = new FakeSQLPlus().lines(3).exitCode(7).install(oracleHome);
+	}
+
+	@Test
+	public void testVersion() throws IOException, InterruptedException {
+
+		String output = run(Arrays.asList("-v"), null, Collections.emptyMap());
+
+		assertEquals("19.0.0.0.0", SQLPlusVersion.parse(output).getRelease());
+	}
+
+	@Test
+	public void testScript() throws IOException, InterruptedException {
+
+		File script = folder.newFile("script.sql");
+		Files.write(script.toPath(), "select 1 from dual;\nexit;\n".getBytes(StandardCharsets.UTF_8));
+
+		String output = run(Arrays.asList("-L", "scott/tiger@" + FakeSQLPlus.INSTANCE, "@" + script.getPath()), null,
+				Collections.emptyMap());
+
+		assertTrue(output.contains("ROW 00000003"));
+		assertFalse(output.contains("ROW 00000004"));
+		assertEquals(7, lastExit);
+	}
+
+	@Test
+	public void testMissingScript() throws IOException, InterruptedException {
+
+		String output = run(Arrays.asList("-L", "scott/tiger", "@missing.sql"), null, Collections.emptyMap());
+
+		assertTrue(output.contains("SP2-0310"));
+		assertEquals(1, lastExit);
+	}
+
+	@Test
+	public void testStandardInputAndOverrides() throws IOException, InterruptedException {
+
+		String output = run(Arrays.asList("-L", "scott/tiger"), "select 1 from dual;\nexit;\n",
+				Map.of("FAKE_SQLPLUS_LINES", "1000", "FAKE_SQLPLUS_EXIT", "0", "FAKE_SQLPLUS_LATENCY_MILLIS", "10"));
+
+		assertTrue(output.contains("ROW 00001000"));
+		assertEquals(0, lastExit);
+	}
+
+	@Test
+	public void testDiscovery() throws IOException {
+
+		NodeContext context = new NodeDiscovery(oracleHome.getPath(), null, null, null, null, null).call();
+
+		assertEquals(sqlplus.getPath(), context.getDiscovery().getSqlPlus());
+		assertNotNull(context.getDiscovery().getTnsNames());
+	}
+
+	private String run(List<String> args, String input, Map<String, String> env)
+			throws IOException, InterruptedException {
+
+		ProcessBuilder pb = new ProcessBuilder();
+		pb.command().add(sqlplus.getPath());
+		pb.command().addAll(args);
+		pb.environment().putAll(env);
+		pb.redirectErrorStream(true);
+		Process p = pb.start();
+		try (OutputStream stdin = p.getOutputStream()) {
+			if (input != null) {
+				new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)).transferTo(stdin);
+			}
+		}
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try (InputStream stdout = p.getInputStream()) {
+			stdout.transferTo(output);
+		}
+		lastExit = p.waitFor();
+		return output.toString(StandardCharsets.UTF_8.name());
+	}
+
+}
@@ -0,0 +1,98 @@
+package org.jenkinsci.plugins.sqlplus.script.runner.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jenkinsci.plugins.sqlplus.script.runner.FanOut;
+import org.jenkinsci.plugins.sqlplus.script.runner.SQLPlusRunnerBuilder;
+import org.jenkinsci.plugins.sqlplus.script.runner.ScriptType;
+import org.jenkinsci.plugins.sqlplus.script.runner.TnsNames;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import hudson.AbortException;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+
+public class TestFanOut {
+
+	@Rule
+	public JenkinsRule j = new JenkinsRule();
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static final String TNSNAMES = "# tenants\n"
+			+ "TENANT01 =\n  (DESCRIPTION =\n    (ADDRESS = (PROTOCOL = TCP)(HOST = db1)(PORT = 1521))\n"
+			+ "    (CONNECT_DATA = (SERVICE_NAME = t01)))\n\n"
+			+ "tenant02, TENANT02.WORLD = (DESCRIPTION = (ADDRESS = (PROTOCOL = TCP)(HOST = db2)(PORT = 1521))"
+			+ "(CONNECT_DATA = (SERVICE_NAME = t02)))\n"
+			+ "IFILE = /opt/oracle/network/admin/more.ora\n"
+			+ "REPORTS = (DESCRIPTION = (ADDRESS = (PROTOCOL = TCP)(HOST = db3)(PORT = 1521)))\n";
+
+	@Test
+	public void testTnsNamesAliases() {
+
+		assertEquals(Arrays.asList("TENANT01", "tenant02", "TENANT02.WORLD", "REPORTS"), TnsNames.aliases(TNSNAMES));
+	}
+
+	@Test
+	public void testResolvePatternsAndNames() throws AbortException {
+
+		List<String> instances = FanOut.resolve("tenant0?\nREPORTS, TENANT01, host:1521/svc",
+				TnsNames.aliases(TNSNAMES));
+
+		assertEquals(Arrays.asList("TENANT01", "tenant02", "REPORTS", "host:1521/svc"), instances);
+	}
+
+	@Test(expected = AbortException.class)
+	public void testPatternWithoutMatch() throws AbortException {
+
+		FanOut.resolve("STAGE*", TnsNames.aliases(TNSNAMES));
+	}
+
+	@Test
+	public void testRunOnInstances() throws Exception {
+
+		// the stand-in is a shell script
+		Assume.assumeTrue(File.separatorChar == '/');
+		File oracleHome = folder.newFolder("oracle");
+		File running = folder.newFolder("running");
+		new FakeSQLPlus().lines(3).latency(1000).failOn("TENANT03").running(running).install(oracleHome);
+
+		SQLPlusRunnerBuilder builder = new SQLPlusRunnerBuilder(null, "scott", "tiger", "false",
+				FakeSQLPlus.INSTANCE, ScriptType.userDefined.name(), null, "select 1 from dual;");
+		builder.setCustomOracleHome(oracleHome.getPath());
+		builder.setInstances("TENANT01\nTENANT02, TENANT03\nTENANT04");
+		builder.setParallelism(2);
+		FreeStyleProject project = j.createFreeStyleProject();
+		project.getBuildersList().add(builder);
+
+		// one failed instance fails the build, the others still run
+		FreeStyleBuild build = j.assertBuildStatus(Result.FAILURE, project.scheduleBuild2(0));
+		String log = JenkinsRule.getLog(build);
+
+		// two at a time, never more
+		List<String> counts = Files.readAllLines(new File(running.getPath() + ".log").toPath());
+		assertEquals(4, counts.size());
+		assertEquals(2, counts.stream().mapToInt(count -> Integer.parseInt(count.trim())).max().getAsInt());
+
+		for (String instance : Arrays.asList("TENANT01", "TENANT02", "TENANT03", "TENANT04")) {
+			assertTrue(log, log.contains("[" + instance + "] ROW 00000003"));
+		}
+		assertTrue(log, log.contains("Summary of 4 instances"));
+		assertTrue(log, log.matches("(?s).*\\nTENANT02 +SUCCESS .*"));
+		assertTrue(log, log.matches("(?s).*\\nTENANT03 +FAILED .*"));
+		assertTrue(log, log.contains("1 of 4 instances failed"));
+	}
+
+}
@@ -0,0 +1,75 @@
+package org.jenkinsci.plugins.sqlplus.script.runner.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.jenkinsci.plugins.sqlplus.script.runner.FileLocator;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestFileLocator {
+
+	private static final String SQLPLUS = "sqlplus";
+
+	@Rule
+	public TemporaryFolder oracleHome = new TemporaryFolder();
+
+	@Test
+	public void testFindNestedFile() throws IOException {
+
+		File sqlplus = new File(oracleHome.newFolder("client", "bin"), SQLPLUS);
+		sqlplus.createNewFile();
+
+		Path found = FileLocator.find(SQLPLUS, oracleHome.getRoot().toPath());
+
+		assertEquals(sqlplus.toPath(), found);
+	}
+
+	@Test
+	public void testShallowFileWins() throws IOException {
+
+		new File(oracleHome.newFolder("a", "b"), SQLPLUS).createNewFile();
+		File sqlplus = oracleHome.newFile(SQLPLUS);
+
+		Path found = FileLocator.find(SQLPLUS, oracleHome.getRoot().toPath());
+
+		assertEquals(sqlplus.toPath(), found);
+	}
+
+	@Test
+	public void testIgnoreDirectoryWithSameName() throws IOException {
+
+		oracleHome.newFolder(SQLPLUS, "admin");
+
+		assertNull(FileLocator.find(SQLPLUS, oracleHome.getRoot().toPath()));
+	}
+
+	@Test
+	public void testSkipInventoryDirectories() throws IOException {
+
+		new File(oracleHome.newFolder("inventory"), SQLPLUS).createNewFile();
+		new File(oracleHome.newFolder("jdk", "bin"), SQLPLUS).createNewFile();
+
+		assertNull(FileLocator.find(SQLPLUS, oracleHome.getRoot().toPath()));
+	}
+
+	@Test
+	public void testDepthLimit() throws IOException {
+
+		new File(oracleHome.newFolder("bin"), SQLPLUS).createNewFile();
+
+		assertNull(FileLocator.find(SQLPLUS, oracleHome.getRoot().toPath(), 1));
+	}
+
+	@Test
+	public void testMissingDirectory() throws IOException {
+
+		assertNull(FileLocator.find(SQLPLUS, new File(oracleHome.getRoot(), "missing").toPath()));
+	}
+
+}
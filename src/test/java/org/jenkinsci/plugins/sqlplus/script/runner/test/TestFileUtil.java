@@ -1,13 +1,18 @@
 package org.jenkinsci.plugins.sqlplus.script.runner.test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 
 import org.jenkinsci.plugins.sqlplus.script.runner.FileUtil;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import hudson.FilePath;
 
@@ -18,6 +23,9 @@ public class TestFileUtil {
 
 	static final String WORK_DIR = System.getProperty("user.dir");
 
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
 	@Test
 	public void testExitInScriptFile() throws IOException,InterruptedException {
 
@@ -44,6 +52,61 @@ public class TestFileUtil {
 		assertFalse(hasExit);
 	}
 
+	@Test
+	public void testExitBeforeBlankAndShortLines() throws IOException,InterruptedException {
+
+		assertTrue(hasExitCode("select 1 from dual;\n  EXIT;  \r\n\n   \n/\nend\n"));
+	}
+
+	@Test
+	public void testExitNotInLastLongLine() throws IOException,InterruptedException {
+
+		assertFalse(hasExitCode("exit;\nselect 1 from dual;\n"));
+		assertFalse(hasExitCode("exit;\n      \n"));
+		assertFalse(hasExitCode("exit"));
+	}
+
+	@Test
+	public void testExitAfterLargeScript() throws IOException,InterruptedException {
+
+		StringBuilder script = new StringBuilder();
+		for (int i = 0; i < 10000; i++) {
+			script.append("insert into t values (").append(i).append(");\n");
+		}
 
+		assertFalse(hasExitCode(script.toString()));
+		assertTrue(hasExitCode(script.append("exit;").toString()));
+	}
+
+	@Test
+	public void testWrapperScriptKeepsScriptUntouched() throws IOException,InterruptedException {
+
+		File file = folder.newFile("script.sql");
+		Files.write(file.toPath(), "select 1 from dual;".getBytes(StandardCharsets.UTF_8));
+		FilePath script = new FilePath(file);
+
+		FilePath wrapper = FileUtil.createWrapperScript(null, new FilePath(folder.getRoot()), script, true);
+
+		assertTrue(FileUtil.hasExitCode(wrapper));
+		assertEquals("@\"" + file.getPath() + "\"\n;\nexit;\n", wrapper.readToString());
+		assertEquals("select 1 from dual;", script.readToString());
+	}
+
+	@Test
+	public void testStandardInputEndsWithExit() throws IOException,InterruptedException {
+
+		String input = new String(FileUtil.toStandardInput("select 1 from dual;"), StandardCharsets.UTF_8);
+
+		assertTrue(input.startsWith("select 1 from dual;"));
+		assertTrue(hasExitCode(input));
+	}
+
+	private boolean hasExitCode(String content) throws IOException,InterruptedException {
+
+		File file = folder.newFile();
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+
+		return FileUtil.hasExitCode(new FilePath(file));
+	}
 
 }
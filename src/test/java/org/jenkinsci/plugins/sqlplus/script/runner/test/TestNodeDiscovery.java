@@ -0,0 +1,54 @@
+package org.jenkinsci.plugins.sqlplus.script.runner.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.jenkinsci.plugins.sqlplus.script.runner.NodeContext;
+import org.jenkinsci.plugins.sqlplus.script.runner.NodeDiscovery;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestNodeDiscovery {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testResolveEverythingInOneCall() throws IOException {
+
+		File oracleHome = folder.newFolder("oracle");
+		File sqlplus = new File(new File(oracleHome, "bin"), File.separatorChar == '\\' ? "sqlplus.exe" : "sqlplus");
+		sqlplus.getParentFile().mkdirs();
+		sqlplus.createNewFile();
+		File tnsnames = new File(new File(new File(oracleHome, "network"), "admin"), "tnsnames.ora");
+		tnsnames.getParentFile().mkdirs();
+		tnsnames.createNewFile();
+		File workspace = folder.newFolder("workspace");
+		Files.write(new File(workspace, "test.sql").toPath(), "select 1 from dual;\nexit;\n".getBytes(StandardCharsets.UTF_8));
+
+		NodeContext context = new NodeDiscovery(oracleHome.getPath(), null, null, workspace.getPath(), "test.sql", null)
+				.call();
+
+		assertTrue(context.isOracleHomeExists());
+		assertFalse(context.isCachedDiscovery());
+		assertEquals(sqlplus.getPath(), context.getDiscovery().getSqlPlus());
+		assertEquals(tnsnames.getParent(), context.getDiscovery().getTnsNamesDir());
+		assertEquals(sqlplus.lastModified(), context.getSqlPlusTimestamp());
+		assertTrue(context.isScriptExists());
+		assertTrue(context.isScriptHasExit());
+
+		NodeContext again = new NodeDiscovery(oracleHome.getPath(), null, null, workspace.getPath(), "missing.sql",
+				context.getDiscovery()).call();
+
+		assertTrue(again.isCachedDiscovery());
+		assertFalse(again.isScriptExists());
+	}
+
+}
@@ -0,0 +1,53 @@
+package org.jenkinsci.plugins.sqlplus.script.runner.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.jenkinsci.plugins.sqlplus.script.runner.PhaseTimer;
+import org.jenkinsci.plugins.sqlplus.script.runner.PhaseTimer.Phase;
+import org.jenkinsci.plugins.sqlplus.script.runner.PhaseTimingsAction;
+import org.junit.Test;
+
+public class TestPhaseTimer {
+
+	@Test
+	public void testPhasesAddUp() throws InterruptedException {
+
+		PhaseTimer timer = new PhaseTimer();
+		timer.start(Phase.DISCOVERY);
+		Thread.sleep(5);
+		timer.start(Phase.VERSION);
+		timer.start(Phase.DISCOVERY);
+		Thread.sleep(5);
+		timer.start(Phase.EXECUTION);
+		timer.stop();
+
+		Map<Phase, Long> nanos = timer.getNanos();
+		assertTrue(nanos.get(Phase.DISCOVERY) >= TimeUnit.MILLISECONDS.toNanos(10));
+		assertTrue(nanos.containsKey(Phase.VERSION));
+		assertTrue(nanos.containsKey(Phase.EXECUTION));
+		assertFalse(nanos.containsKey(Phase.CLEANUP));
+	}
+
+	@Test
+	public void testOverheadApartFromDatabase() {
+
+		Map<Phase, Long> nanos = new EnumMap<>(Phase.class);
+		nanos.put(Phase.DISCOVERY, TimeUnit.MILLISECONDS.toNanos(30));
+		nanos.put(Phase.CLEANUP, TimeUnit.MICROSECONDS.toNanos(2500));
+		nanos.put(Phase.EXECUTION, TimeUnit.SECONDS.toNanos(2));
+		PhaseTimingsAction.Step step = new PhaseTimingsAction.Step("deploy.sql@ORCL", nanos);
+
+		assertEquals(32.5, step.getOverheadMillis(), 0.0001);
+		assertEquals(2000, step.getDatabaseMillis(), 0.0001);
+		assertEquals(0, step.getMillis(Phase.VERSION), 0.0001);
+		assertEquals(30, step.getPhases().get("discovery"), 0.0001);
+		assertEquals("32.5", PhaseTimingsAction.format(step.getOverheadMillis()));
+	}
+
+}
@@ -0,0 +1,108 @@
+package org.jenkinsci.plugins.sqlplus.script.runner.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.jenkinsci.plugins.sqlplus.script.runner.RegressionGate;
+import org.jenkinsci.plugins.sqlplus.script.runner.StatementDigest;
+import org.jenkinsci.plugins.sqlplus.script.runner.StatementTimingsAction;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+
+public class TestRegressionGate {
+
+	private static final String STEP = "deploy.sql @ xe";
+
+	@Rule
+	public JenkinsRule j = new JenkinsRule();
+
+	@Test
+	public void testBothThresholds() {
+
+		RegressionGate gate = new RegressionGate(5, 50, 1000);
+		assertTrue(gate.isEnabled());
+		// 60% slower, but only by 600 ms
+		assertFalse(gate.isSlower(1000, 1600));
+		// 1500 ms slower, but only 15%
+		assertFalse(gate.isSlower(10000, 11500));
+		assertTrue(gate.isSlower(10000, 16000));
+	}
+
+	@Test
+	public void testSingleThreshold() {
+
+		RegressionGate percent = new RegressionGate(5, 20, 0);
+		assertTrue(percent.isSlower(100, 121));
+		assertFalse(percent.isSlower(100, 120));
+
+		RegressionGate millis = new RegressionGate(5, 0, 500);
+		assertTrue(millis.isSlower(10000, 10501));
+		assertFalse(millis.isSlower(10000, 10500));
+	}
+
+	@Test
+	public void testDisabled() {
+
+		assertFalse(new RegressionGate(0, 50, 1000).isEnabled());
+		assertFalse(new RegressionGate(5, 0, 0).isEnabled());
+		assertFalse(new RegressionGate(0, 50, 1000).isSlower(1, 100000));
+	}
+
+	@Test
+	public void testMedian() {
+
+		assertEquals(3.0, RegressionGate.median(Arrays.asList(9.0, 1.0, 3.0)), 0);
+		assertEquals(2.5, RegressionGate.median(Arrays.asList(4.0, 1.0, 3.0, 2.0)), 0);
+		assertEquals(7.0, RegressionGate.median(Arrays.asList(7.0)), 0);
+	}
+
+	@Test
+	public void testStatementInsertedMidScript() throws Exception {
+
+		FreeStyleProject project = j.createFreeStyleProject();
+		for (int i = 0; i < 3; i++) {
+			FreeStyleBuild build = j.buildAndAssertSuccess(project);
+			StatementTimingsAction.record(build, STEP, Collections.emptyList(), 3,
+					digest("Table A created.", 100, "Table B created.", 200, "Table C created.", 300));
+		}
+		FreeStyleBuild build = j.buildAndAssertSuccess(project);
+		RegressionGate gate = new RegressionGate(5, 50, 1000);
+
+		// a slow statement inserted before B, which has no baseline, and C got slower
+		StatementDigest digest = digest("Table A created.", 100, "1000000 rows created.", 9000, "Table B created.", 200,
+				"Table C created.", 3000);
+		List<String> regressions = gate.check(build, STEP, 0, Collections.emptyList(), digest);
+
+		assertEquals(regressions.toString(), 1, regressions.size());
+		assertTrue(regressions.get(0), regressions.get(0).startsWith(STEP + " #4 "));
+		assertTrue(regressions.get(0), regressions.get(0).contains("300"));
+
+		// the digests are read from the build directory, not kept in the build
+		StatementTimingsAction timings = project.getBuildByNumber(1).getAction(StatementTimingsAction.class);
+		assertEquals(3, timings.getDigest(STEP).size());
+		assertEquals(null, timings.getDigest("other.sql @ xe"));
+	}
+
+	private static StatementDigest digest(Object... statements) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		for (int i = 0; i < statements.length; i += 2) {
+			StatementDigest.write(out, (String) statements[i], (Integer) statements[i + 1]);
+		}
+		out.flush();
+		return new StatementDigest(bytes.toByteArray());
+	}
+
+}
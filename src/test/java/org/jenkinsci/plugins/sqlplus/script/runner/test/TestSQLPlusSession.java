@@ -0,0 +1,215 @@
+package org.jenkinsci.plugins.sqlplus.script.runner.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import org.jenkinsci.plugins.sqlplus.script.runner.SQLPlusSession;
+import org.jenkinsci.plugins.sqlplus.script.runner.SessionPool;
+import org.junit.After;
+import org.junit.Test;
+
+import hudson.EnvVars;
+import hudson.Proc;
+
+public class TestSQLPlusSession {
+
+	@After
+	public void clearPool() {
+		SessionPool.invalidate("node");
+	}
+
+	@Test
+	public void testScriptsShareOneSession() throws Exception {
+
+		FakeSQLPlus sqlplus = new FakeSQLPlus();
+		SQLPlusSession session = new SQLPlusSession(SessionPool.key("node", "scott"), sqlplus,
+				StandardCharsets.UTF_8);
+
+		ByteArrayOutputStream first = new ByteArrayOutputStream();
+		assertEquals(0, session.run("/tmp/first.sql", new PrintStream(first, true, "UTF-8")));
+		ByteArrayOutputStream second = new ByteArrayOutputStream();
+		assertEquals(0, session.run("/tmp/second.sql", new PrintStream(second, true, "UTF-8")));
+
+		assertEquals("ran /tmp/first.sql\nRollback complete.\n", first.toString("UTF-8").replace("\r", ""));
+		assertEquals("ran /tmp/second.sql\nRollback complete.\n", second.toString("UTF-8").replace("\r", ""));
+		assertTrue(session.isAlive());
+		session.close();
+	}
+
+	@Test
+	public void testScriptEndsSession() throws Exception {
+
+		FakeSQLPlus sqlplus = new FakeSQLPlus();
+		SQLPlusSession session = new SQLPlusSession(SessionPool.key("node", "scott"), sqlplus,
+				StandardCharsets.UTF_8);
+
+		assertEquals(3, session.run("/tmp/exit.sql", new PrintStream(new ByteArrayOutputStream())));
+		assertFalse(session.isAlive());
+
+		SessionPool.release(session);
+		assertNull(SessionPool.acquire(session.getKey()));
+	}
+
+	@Test
+	public void testPoolKeepsIdleSessions() throws Exception {
+
+		SessionPool.Key key = SessionPool.key("node", "scott", "tiger");
+		SQLPlusSession session = new SQLPlusSession(key, new FakeSQLPlus(), StandardCharsets.UTF_8);
+
+		SessionPool.release(session);
+		assertNull(SessionPool.acquire(SessionPool.key("node", "scott", "lion")));
+		assertSame(session, SessionPool.acquire(key));
+		assertNull(SessionPool.acquire(key));
+
+		SessionPool.release(session, 0);
+		assertEquals(0, SessionPool.size());
+		assertFalse(session.isAlive());
+	}
+
+	@Test
+	public void testUnterminatedStatement() throws Exception {
+
+		SQLPlusSession session = new SQLPlusSession(SessionPool.key("node", "scott"), new FakeSQLPlus(),
+				StandardCharsets.UTF_8);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		assertEquals(0, session.run("/tmp/open.sql", new PrintStream(out, true, "UTF-8")));
+		assertEquals("ran /tmp/open.sql\nRollback complete.\n", out.toString("UTF-8").replace("\r", ""));
+		assertTrue(session.isAlive());
+		session.close();
+	}
+
+	@Test(timeout = 30000)
+	public void testCloseEndsWait() throws Exception {
+
+		SQLPlusSession session = new SQLPlusSession(SessionPool.key("node", "scott"), new FakeSQLPlus(),
+				StandardCharsets.UTF_8);
+
+		// like the watchdog does
+		Thread watchdog = new Thread(() -> {
+			try {
+				Thread.sleep(500);
+			} catch (InterruptedException e) {
+				return;
+			}
+			session.close();
+		});
+		watchdog.start();
+		session.run("/tmp/hang.sql", new PrintStream(new ByteArrayOutputStream()));
+		assertFalse(session.isAlive());
+	}
+
+	@Test
+	public void testEnvironment() {
+
+		EnvVars envs = new EnvVars();
+		envs.put("ORACLE_HOME", "/oracle");
+		envs.put("BUILD_NUMBER", "7");
+		envs.put("WORKSPACE", "/ws");
+		envs.put("JENKINS_SERVER_COOKIE", "cookie");
+
+		EnvVars session = SQLPlusSession.environment(envs);
+
+		assertEquals("/oracle", session.get("ORACLE_HOME"));
+		assertNull(session.get("BUILD_NUMBER"));
+		assertNull(session.get("WORKSPACE"));
+		assertNull(session.get("JENKINS_SERVER_COOKIE"));
+		assertEquals("7", envs.get("BUILD_NUMBER"));
+	}
+
+	/**
+	 * Answers PROMPT and ROLLBACK like SQL*Plus, runs scripts named exit.sql as exit 3.
+	 * A script named open.sql leaves a statement open, which takes the next lines until one ends it,
+	 * and one named hang.sql never ends.
+	 */
+	private static final class FakeSQLPlus extends Proc {
+
+		private final PipedOutputStream stdin = new PipedOutputStream();
+		private final PipedInputStream stdout = new PipedInputStream();
+		private final Thread thread;
+		private volatile int exitCode;
+
+		private FakeSQLPlus() throws IOException {
+			PipedInputStream commands = new PipedInputStream(stdin);
+			PrintStream out = new PrintStream(new PipedOutputStream(stdout), true, "UTF-8");
+			thread = new Thread(() -> {
+				try (BufferedReader in = new BufferedReader(new InputStreamReader(commands, StandardCharsets.UTF_8))) {
+					String line;
+					boolean open = false;
+					boolean hang = false;
+					while ((line = in.readLine()) != null) {
+						if (hang) {
+							continue;
+						} else if (open) {
+							open = !line.equals(";") && !line.equals("/");
+						} else if (line.startsWith("PROMPT ")) {
+							out.println(line.substring("PROMPT ".length()));
+						} else if (line.equals("ROLLBACK;")) {
+							out.println("Rollback complete.");
+						} else if (line.endsWith("exit.sql\"")) {
+							exitCode = 3;
+							break;
+						} else if (line.endsWith("hang.sql\"")) {
+							hang = true;
+						} else if (line.startsWith("@")) {
+							out.println("ran " + line.substring(2, line.length() - 1));
+							open = line.endsWith("open.sql\"");
+						} else if (line.equals("exit;")) {
+							break;
+						}
+					}
+				} catch (IOException e) {
+					// killed
+				}
+				out.close();
+			});
+			thread.start();
+		}
+
+		@Override
+		public boolean isAlive() {
+			return thread.isAlive();
+		}
+
+		@Override
+		public void kill() throws IOException {
+			stdin.close();
+		}
+
+		@Override
+		public int join() throws InterruptedException {
+			thread.join();
+			return exitCode;
+		}
+
+		@Override
+		public InputStream getStdout() {
+			return stdout;
+		}
+
+		@Override
+		public InputStream getStderr() {
+			return null;
+		}
+
+		@Override
+		public OutputStream getStdin() {
+			return stdin;
+		}
+	}
+
+}
@@ -0,0 +1,76 @@
+package org.jenkinsci.plugins.sqlplus.script.runner.test;
+
+import java.io.File;
+
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import com.cloudbees.plugins.credentials.CredentialsScope;
+import com.cloudbees.plugins.credentials.SystemCredentialsProvider;
+import com.cloudbees.plugins.credentials.impl.UsernamePasswordCredentialsImpl;
+
+import hudson.model.Result;
+
+/*
+ * The sqlplus step in a Pipeline, against the SQL*Plus stand-in, see FakeSQLPlus.
+ */
+public class TestSQLPlusStep {
+
+	private static final String CREDENTIALS_ID = "oracle";
+
+	@Rule
+	public JenkinsRule j = new JenkinsRule();
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File oracleHome;
+
+	@Before
+	public void setUp() throws Exception {
+		// the stand-in is a shell script
+		Assume.assumeTrue(File.separatorChar == '/');
+		oracleHome = folder.newFolder("oracle");
+		SystemCredentialsProvider.getInstance().getCredentials()
+				.add(new UsernamePasswordCredentialsImpl(CredentialsScope.GLOBAL, CREDENTIALS_ID, null, "scott", "tiger"));
+		SystemCredentialsProvider.getInstance().save();
+	}
+
+	@Test
+	public void testPipeline() throws Exception {
+
+		new FakeSQLPlus().lines(3).install(oracleHome);
+
+		WorkflowRun run = j.buildAndAssertSuccess(pipeline(""));
+
+		j.assertLogContains("ROW 00000003", run);
+	}
+
+	@Test
+	public void testExitCode() throws Exception {
+
+		new FakeSQLPlus().exitCode(2).install(oracleHome);
+
+		WorkflowRun run = j.assertBuildStatus(Result.FAILURE, pipeline("").scheduleBuild2(0));
+
+		j.assertLogContains("Process exited with status 2", run);
+	}
+
+	private WorkflowJob pipeline(String options) throws Exception {
+		WorkflowJob job = j.createProject(WorkflowJob.class, "pipeline-" + System.nanoTime());
+		job.setDefinition(new CpsFlowDefinition("node {\n"
+				+ "  sqlplus credentialsId: '" + CREDENTIALS_ID + "', instance: '" + FakeSQLPlus.INSTANCE + "',\n"
+				+ "      scriptType: 'userDefined', scriptContent: 'select 1 from dual;',\n"
+				+ "      customOracleHome: '" + oracleHome.getPath() + "'" + options + "\n"
+				+ "}", true));
+		return job;
+	}
+
+}
@@ -0,0 +1,45 @@
+package org.jenkinsci.plugins.sqlplus.script.runner.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.jenkinsci.plugins.sqlplus.script.runner.SQLPlusVersion;
+import org.junit.Test;
+
+public class TestSQLPlusVersion {
+
+	@Test
+	public void testParseVersion() {
+
+		SQLPlusVersion version = SQLPlusVersion.parse("\nSQL*Plus: Release 19.0.0.0.0 - Production\nVersion 19.3.0.0.0\n\n");
+
+		assertTrue(version.isKnown());
+		assertEquals(19, version.getMajor());
+		assertEquals("19.0.0.0.0", version.getRelease());
+		assertTrue(version.isAtLeast(12, 2));
+		assertFalse(version.isAtLeast(21));
+	}
+
+	@Test
+	public void testCompareVersions() {
+
+		SQLPlusVersion v12 = SQLPlusVersion.parse("SQL*Plus: Release 12.1.0.1.0 Production");
+		SQLPlusVersion v19 = SQLPlusVersion.parse("SQL*Plus: Release 19.0.0.0.0 - Production");
+
+		assertTrue(v12.compareTo(v19) < 0);
+		assertEquals(SQLPlusVersion.parse("Release 19.0"), v19);
+		assertEquals(SQLPlusVersion.parse("Release 19.0").hashCode(), v19.hashCode());
+	}
+
+	@Test
+	public void testUnknownVersion() {
+
+		SQLPlusVersion version = SQLPlusVersion.parse("sqlplus: command not found");
+
+		assertFalse(version.isKnown());
+		assertFalse(version.isAtLeast(1));
+		assertEquals("unknown", version.getRelease());
+	}
+
+}
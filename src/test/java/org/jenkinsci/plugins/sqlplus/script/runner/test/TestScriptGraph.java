@@ -0,0 +1,189 @@
+package org.jenkinsci.plugins.sqlplus.script.runner.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.jenkinsci.plugins.sqlplus.script.runner.ParallelScripts;
+import org.jenkinsci.plugins.sqlplus.script.runner.ScriptGraph;
+import org.junit.Test;
+
+import hudson.AbortException;
+import hudson.util.StreamTaskListener;
+
+public class TestScriptGraph {
+
+	@Test
+	public void testParseHeader() throws IOException {
+
+		Set<String> dependencies = ScriptGraph.parseHeader("-- views of the schema\n"
+				+ "-- depends: tables.sql, types.sql\n\nREM depends: grants.sql\nCREATE VIEW v AS SELECT 1 FROM dual;\n"
+				+ "-- depends: ignored.sql\n");
+
+		assertEquals(new LinkedHashSet<>(Arrays.asList("tables.sql", "types.sql", "grants.sql")), dependencies);
+	}
+
+	@Test
+	public void testParseManifest() throws IOException {
+
+		Map<String, Set<String>> manifest = ScriptGraph.parseManifest("# schema order\nviews.sql: tables.sql types.sql\n"
+				+ "\ngrants.sql: views.sql\n");
+
+		assertEquals(new LinkedHashSet<>(Arrays.asList("tables.sql", "types.sql")), manifest.get("views.sql"));
+		assertEquals(Collections.singleton("views.sql"), manifest.get("grants.sql"));
+	}
+
+	@Test
+	public void testDependents() throws IOException {
+
+		ScriptGraph graph = graph("tables.sql:", "types.sql:", "views.sql: tables.sql types.sql");
+		graph.validate();
+
+		assertEquals(Arrays.asList("views.sql"), graph.getDependents().get("tables.sql"));
+		assertTrue(graph.getDependents().get("views.sql").isEmpty());
+	}
+
+	@Test
+	public void testUnknownDependency() {
+
+		try {
+			graph("views.sql: tables.sql").validate();
+			fail();
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testCycle() {
+
+		try {
+			graph("a.sql: c.sql", "b.sql: a.sql", "c.sql: b.sql", "d.sql:").validate();
+			fail();
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testRunInDependencyOrder() throws Exception {
+
+		ScriptGraph graph = graph("tables.sql:", "types.sql:", "views.sql: tables.sql types.sql", "grants.sql: views.sql");
+		List<String> order = new CopyOnWriteArrayList<>();
+
+		Map<String, Long> durations = new ParallelScripts(2, listener()).run(graph, Collections.emptyMap(),
+				(script, listener) -> order.add(script));
+
+		assertEquals(4, durations.size());
+		assertEquals("views.sql", order.get(2));
+		assertEquals("grants.sql", order.get(3));
+	}
+
+	@Test
+	public void testEmptyDirectory() throws Exception {
+
+		Map<String, Long> durations = new ParallelScripts(2, listener()).run(graph(), Collections.emptyMap(),
+				(script, listener) -> fail(script));
+
+		assertTrue(durations.isEmpty());
+	}
+
+	@Test
+	public void testCriticalPathStartsFirst() throws Exception {
+
+		ScriptGraph graph = graph("a.sql:", "b.sql:", "c.sql: b.sql");
+		List<String> order = new CopyOnWriteArrayList<>();
+		Map<String, Long> history = new HashMap<>();
+		history.put("a.sql", 100L);
+		history.put("b.sql", 60L);
+		history.put("c.sql", 60L);
+
+		new ParallelScripts(1, listener()).run(graph, history, (script, listener) -> order.add(script));
+
+		assertEquals(Arrays.asList("b.sql", "a.sql", "c.sql"), order);
+	}
+
+	@Test
+	public void testFailureSkipsDependents() throws Exception {
+
+		ScriptGraph graph = graph("tables.sql:", "types.sql:", "views.sql: tables.sql", "grants.sql: views.sql");
+		List<String> order = new CopyOnWriteArrayList<>();
+
+		try {
+			new ParallelScripts(2, listener()).run(graph, Collections.emptyMap(), (script, listener) -> {
+				order.add(script);
+				if (script.equals("tables.sql")) {
+					throw new AbortException("ORA-00955");
+				}
+			});
+			fail();
+		} catch (ParallelScripts.Failed e) {
+			// what succeeded is still timed
+			assertEquals(Collections.singleton("types.sql"), e.getDurations().keySet());
+		}
+
+		assertTrue(order.contains("types.sql"));
+		assertFalse(order.contains("views.sql"));
+		assertFalse(order.contains("grants.sql"));
+	}
+
+	@Test
+	public void testAbortInterruptsOthers() throws Exception {
+
+		ScriptGraph graph = graph("tables.sql:", "types.sql:", "views.sql: tables.sql");
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch interrupted = new CountDownLatch(1);
+
+		try {
+			new ParallelScripts(2, listener()).run(graph, Collections.emptyMap(), (script, listener) -> {
+				if (script.equals("types.sql")) {
+					started.await();
+					throw new InterruptedException("timed out");
+				}
+				started.countDown();
+				try {
+					Thread.sleep(60000);
+				} catch (InterruptedException e) {
+					interrupted.countDown();
+					throw e;
+				}
+			});
+			fail();
+		} catch (InterruptedException e) {
+			// aborted, not failed
+			assertEquals("timed out", e.getMessage());
+		}
+
+		assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+	}
+
+	private static ScriptGraph graph(String... lines) throws IOException {
+
+		Map<String, Set<String>> dependencies = ScriptGraph.parseManifest(String.join("\n", lines));
+		Map<String, String> paths = new HashMap<>();
+		for (String script : dependencies.keySet()) {
+			paths.put(script, "/ws/sql/" + script);
+		}
+		return new ScriptGraph(dependencies, paths, Collections.emptyMap());
+	}
+
+	private static StreamTaskListener listener() {
+		return new StreamTaskListener(new ByteArrayOutputStream(), StandardCharsets.UTF_8);
+	}
+
+}
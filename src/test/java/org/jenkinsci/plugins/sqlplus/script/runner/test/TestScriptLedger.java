@@ -0,0 +1,103 @@
+package org.jenkinsci.plugins.sqlplus.script.runner.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jenkinsci.plugins.sqlplus.script.runner.ScriptLedger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestScriptLedger {
+
+	private static final String ABC = "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testSha256() throws IOException {
+
+		assertEquals(ABC, ScriptLedger.sha256(new ByteArrayInputStream("abc".getBytes(StandardCharsets.US_ASCII))));
+	}
+
+	@Test
+	public void testRecord() throws IOException {
+
+		File file = new File(new File(folder.getRoot(), ScriptLedger.DIRECTORY), "scott@orcl.ledger");
+		ScriptLedger ledger = new ScriptLedger(file);
+		assertFalse(ledger.isApplied(ABC));
+
+		ledger.record(ABC, ScriptLedger.Outcome.FAILED, "deploy#1", "sql/tables.sql");
+		assertFalse(ledger.isApplied(ABC));
+		ledger.record(ABC, ScriptLedger.Outcome.SUCCESS, "deploy#2", "sql/tables.sql");
+		assertTrue(ledger.isApplied(ABC));
+		assertTrue(new ScriptLedger(file).isApplied(ABC));
+
+		// the last run counts
+		ledger.record(ABC, ScriptLedger.Outcome.FAILED, "deploy#3", "sql\ttables.sql");
+		assertFalse(new ScriptLedger(file).isApplied(ABC));
+		assertEquals(3, Files.readAllLines(file.toPath()).size());
+	}
+
+	@Test
+	public void testOtherWriter() throws IOException {
+
+		File file = new File(new File(folder.getRoot(), ScriptLedger.DIRECTORY), "scott@orcl.ledger");
+		ScriptLedger ledger = new ScriptLedger(file);
+		assertFalse(ledger.isApplied(ABC));
+		long modified = file.lastModified();
+
+		// written at once by someone else, within the same clock tick
+		new ScriptLedger(file).record(ABC, ScriptLedger.Outcome.SUCCESS, "deploy#1", "sql/tables.sql");
+		file.setLastModified(modified);
+		assertTrue(ledger.isApplied(ABC));
+
+		// the line is removed by hand, so the script runs again
+		Files.write(file.toPath(), new byte[0]);
+		assertFalse(ledger.isApplied(ABC));
+	}
+
+	@Test
+	public void testIdentity() {
+
+		String orcl = ScriptLedger.identity("agent1", "/u01/oracle", "/u01/oracle/network/admin", null, "scott", "ORCL");
+		assertEquals(orcl, ScriptLedger.identity("agent1", "/u01/oracle", "/u01/oracle/network/admin", null, "SCOTT", " orcl"));
+		assertTrue(orcl.matches("[0-9a-f]{64}"));
+		// the same alias, or the local database, elsewhere is another database
+		assertNotEquals(orcl, ScriptLedger.identity("agent2", "/u01/oracle", "/u01/oracle/network/admin", null, "scott", "ORCL"));
+		assertNotEquals(ScriptLedger.identity("", "/u01/oracle", null, "XE", "scott", null),
+				ScriptLedger.identity("agent1", "/u01/oracle", null, "XE", "scott", null));
+		// names no longer share a file once cleaned up
+		assertNotEquals(ScriptLedger.identity("", "/u01/oracle", null, null, "a$b", "x"),
+				ScriptLedger.identity("", "/u01/oracle", null, null, "a_b", "x"));
+	}
+
+	@Test
+	public void testHasher() throws IOException {
+
+		File abc = folder.newFile("abc.sql");
+		Files.write(abc.toPath(), "abc".getBytes(StandardCharsets.US_ASCII));
+		File tables = folder.newFile("tables.sql");
+		Files.write(tables.toPath(), "create table t (id number);\n".getBytes(StandardCharsets.US_ASCII));
+
+		List<String> hashes = new ScriptLedger.Hasher(Arrays.asList(abc.getPath(), tables.getPath())).call();
+
+		assertEquals(ABC, hashes.get(0));
+		try (InputStream in = Files.newInputStream(tables.toPath())) {
+			assertEquals(ScriptLedger.sha256(in), hashes.get(1));
+		}
+	}
+
+}
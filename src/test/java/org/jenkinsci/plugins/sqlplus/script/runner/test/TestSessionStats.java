@@ -0,0 +1,103 @@
+package org.jenkinsci.plugins.sqlplus.script.runner.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.jenkinsci.plugins.sqlplus.script.runner.FileUtil;
+import org.jenkinsci.plugins.sqlplus.script.runner.SessionStats;
+import org.junit.Test;
+
+public class TestSessionStats {
+
+	@Test
+	public void testUsed() throws IOException {
+
+		ByteArrayOutputStream console = new ByteArrayOutputStream();
+		SessionStats stats = new SessionStats(console, StandardCharsets.UTF_8);
+		String output = "SQLPLUS-STATS BEFORE BEGIN\n"
+				+ "SQLPLUS-STATS BEFORE CPU used by this session=12\n"
+				+ "SQLPLUS-STATS BEFORE session logical reads=1000\n"
+				+ "SQLPLUS-STATS BEFORE redo size=0\n"
+				+ "SQLPLUS-STATS BEFORE END\n"
+				+ "\n"
+				+ "999 rows updated.\n"
+				+ "\n"
+				+ "SQLPLUS-STATS AFTER BEGIN\n"
+				+ "SQLPLUS-STATS AFTER CPU used by this session=112\n"
+				+ "SQLPLUS-STATS AFTER session logical reads=51000\n"
+				+ "SQLPLUS-STATS AFTER redo size=204800\n"
+				+ "SQLPLUS-STATS AFTER parse count (hard)=3\n"
+				+ "SQLPLUS-STATS AFTER END\n";
+		stats.write(output.getBytes(StandardCharsets.UTF_8));
+		stats.close();
+
+		assertEquals("\n999 rows updated.\n\n", console.toString("UTF-8"));
+		Map<String, Long> used = stats.getUsed();
+		assertEquals(4, used.size());
+		assertEquals(Long.valueOf(100), used.get("CPU used by this session"));
+		assertEquals(Long.valueOf(50000), used.get("session logical reads"));
+		assertEquals(Long.valueOf(204800), used.get("redo size"));
+		assertEquals(Long.valueOf(3), used.get("parse count (hard)"));
+		assertFalse(stats.isAfterMissing());
+	}
+
+	@Test
+	public void testMissingAfter() throws IOException {
+
+		ByteArrayOutputStream console = new ByteArrayOutputStream();
+		SessionStats stats = new SessionStats(console, StandardCharsets.UTF_8);
+		stats.write(("SQLPLUS-STATS BEFORE BEGIN\nSQLPLUS-STATS BEFORE redo size=10\nSQLPLUS-STATS BEFORE END\n"
+				+ "ORA-00942: table or view does not exist\n").getBytes(StandardCharsets.UTF_8));
+		stats.close();
+
+		// the script exited, its own errors still reach the console
+		assertEquals("ORA-00942: table or view does not exist\n", console.toString("UTF-8"));
+		assertTrue(stats.getUsed().isEmpty());
+		assertTrue(stats.isAfterMissing());
+	}
+
+	@Test
+	public void testCaptureError() throws IOException {
+
+		ByteArrayOutputStream console = new ByteArrayOutputStream();
+		SessionStats stats = new SessionStats(console, StandardCharsets.UTF_8);
+		String capture = "SQLPLUS-STATS %s BEGIN\n  FROM v$mystat s JOIN v$statname n ON n.statistic# = s.statistic#\n"
+				+ "       *\nERROR at line 2:\nORA-00942: table or view does not exist\n\nSQLPLUS-STATS %s END\n";
+		stats.write((String.format(capture, "BEFORE", "BEFORE") + "Table created.\n" + String.format(capture, "AFTER", "AFTER"))
+				.getBytes(StandardCharsets.UTF_8));
+		stats.close();
+
+		assertEquals("Table created.\n", console.toString("UTF-8"));
+		assertTrue(stats.getUsed().isEmpty());
+		assertFalse(stats.isAfterMissing());
+	}
+
+	@Test
+	public void testDriver() {
+
+		String driver = FileUtil.driver(FileUtil.call("/tmp/script.sql"), true, "/tmp/settings.sql", true);
+		int before = driver.indexOf("SQLPLUS-STATS BEFORE");
+		int timingOn = driver.indexOf("SET TIMING ON");
+		int script = driver.indexOf("@\"/tmp/script.sql\"");
+		int timingOff = driver.indexOf("SET TIMING OFF");
+		int after = driver.indexOf("SQLPLUS-STATS AFTER");
+		assertTrue(before >= 0 && before < timingOn && timingOn < script && script < timingOff && timingOff < after);
+		assertTrue(driver.contains("STORE SET \"/tmp/settings.sql\" REPLACE"));
+		// a capture that fails raises no SQL error, and WHENEVER of glogin.sql still applies to the script
+		assertFalse(driver.contains("WHENEVER"));
+		assertTrue(driver.contains("EXCEPTION\n  WHEN OTHERS THEN"));
+		assertTrue(driver.contains("v$mystat"));
+		assertTrue(driver.trim().endsWith("exit;"));
+
+		String plain = FileUtil.driver("select 1 from dual;", false, null, false);
+		assertFalse(plain.contains("SQLPLUS-STATS"));
+		assertFalse(plain.contains("TIMING"));
+	}
+
+}
@@ -0,0 +1,123 @@
+package org.jenkinsci.plugins.sqlplus.script.runner.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.jenkinsci.plugins.sqlplus.script.runner.ErrorMatcher;
+import org.jenkinsci.plugins.sqlplus.script.runner.ExecutionResult;
+import org.jenkinsci.plugins.sqlplus.script.runner.OutputFilters;
+import org.jenkinsci.plugins.sqlplus.script.runner.OutputSettings;
+import org.jenkinsci.plugins.sqlplus.script.runner.Spool;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import hudson.FilePath;
+
+public class TestSpool {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testOpen() throws Exception {
+
+		File file = folder.newFile("out.log.gz");
+		try (OutputStream out = Spool.open(new FilePath(file))) {
+			out.write(rows(1, 3).getBytes(StandardCharsets.UTF_8));
+		}
+
+		try (InputStream in = new GZIPInputStream(Files.newInputStream(file.toPath()))) {
+			ByteArrayOutputStream read = new ByteArrayOutputStream();
+			byte[] buffer = new byte[1024];
+			int n;
+			while ((n = in.read(buffer)) != -1) {
+				read.write(buffer, 0, n);
+			}
+			assertEquals(rows(1, 3), read.toString("UTF-8"));
+		}
+		assertNull(Spool.open(null));
+	}
+
+	@Test
+	public void testHeadTailAndErrors() throws IOException {
+
+		ByteArrayOutputStream file = new ByteArrayOutputStream();
+		ByteArrayOutputStream console = new ByteArrayOutputStream();
+		Spool spool = new Spool(file, console, new ErrorMatcher(StandardCharsets.UTF_8, Collections.emptyList()), 2,
+				"sqlplus/out.log.gz", StandardCharsets.UTF_8);
+		spool.write(rows(1, 10).getBytes(StandardCharsets.UTF_8));
+		spool.write("ORA-01476: divisor is equal to zero\n".getBytes(StandardCharsets.UTF_8));
+		spool.write(rows(11, 20).getBytes(StandardCharsets.UTF_8));
+		spool.close();
+
+		String shown = console.toString("UTF-8");
+		assertEquals(rows(1, 10) + "ORA-01476: divisor is equal to zero\n" + rows(11, 20), file.toString("UTF-8"));
+		assertTrue(shown.startsWith("row 1\nrow 2\nORA-01476: divisor is equal to zero\n"));
+		assertTrue(shown.endsWith("row 19\nrow 20\n"));
+		assertFalse(shown.contains("row 10\n"));
+		assertEquals(21, spool.getLines());
+		assertEquals(5, spool.getShown());
+	}
+
+	@Test
+	public void testShortOutputIsShownWhole() throws IOException {
+
+		ByteArrayOutputStream console = new ByteArrayOutputStream();
+		Spool spool = new Spool(new ByteArrayOutputStream(), console, null, 5, "out", StandardCharsets.UTF_8);
+		spool.write(rows(1, 7).getBytes(StandardCharsets.UTF_8));
+		spool.close();
+
+		assertEquals(rows(1, 7), console.toString("UTF-8"));
+	}
+
+	@Test
+	public void testCompressedSpool() throws IOException {
+
+		ByteArrayOutputStream file = new ByteArrayOutputStream();
+		ByteArrayOutputStream console = new ByteArrayOutputStream();
+		OutputSettings settings = new OutputSettings(Collections.emptyList(), false, 0, 0, false, 1, "sqlplus/out.log.gz",
+				false, false);
+		ExecutionResult result;
+		try (OutputFilters filters = settings.open(console, new GZIPOutputStream(file), StandardCharsets.UTF_8)) {
+			filters.getOutput().write((rows(1, 1000) + "SP2-0734: unknown command\n").getBytes(StandardCharsets.UTF_8));
+			result = filters.finish(0);
+		}
+
+		assertEquals(1, result.getErrorCount());
+		assertEquals(1001, result.getSpooledLines());
+		assertTrue(console.toString("UTF-8").startsWith("row 1\nSP2-0734"));
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(file.toByteArray()))) {
+			ByteArrayOutputStream content = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) > 0) {
+				content.write(buffer, 0, read);
+			}
+			assertEquals(rows(1, 1000) + "SP2-0734: unknown command\n", content.toString("UTF-8"));
+		}
+	}
+
+	private static String rows(int from, int to) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = from; i <= to; i++) {
+			sb.append("row ").append(i).append('\n');
+		}
+		return sb.toString();
+	}
+
+}
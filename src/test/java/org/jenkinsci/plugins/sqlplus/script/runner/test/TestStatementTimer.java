@@ -0,0 +1,163 @@
+package org.jenkinsci.plugins.sqlplus.script.runner.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.jenkinsci.plugins.sqlplus.script.runner.StatementDigest;
+import org.jenkinsci.plugins.sqlplus.script.runner.StatementTimer;
+import org.jenkinsci.plugins.sqlplus.script.runner.StatementTiming;
+import org.junit.Test;
+
+public class TestStatementTimer {
+
+	@Test
+	public void testEchoedStatements() throws IOException {
+
+		ByteArrayOutputStream console = new ByteArrayOutputStream();
+		StatementTimer timer = new StatementTimer(console, StandardCharsets.UTF_8);
+		String output = "SQL> update orders\n"
+				+ "  2  set status = 'X'\n"
+				+ "  3  where id < 1000;\n"
+				+ "\n"
+				+ "999 rows updated.\n"
+				+ "\n"
+				+ "Elapsed: 00:01:02.50\n"
+				+ "SQL> commit;\n"
+				+ "\n"
+				+ "Commit complete.\n"
+				+ "\n"
+				+ "Elapsed: 00:00:00.01\n";
+		timer.write(output.getBytes(StandardCharsets.UTF_8));
+		timer.close();
+
+		List<StatementTiming> slowest = timer.getSlowest();
+		assertEquals(output, console.toString("UTF-8"));
+		assertEquals(2, timer.getCount());
+		assertEquals("update orders set status = 'X' where id < 1000;", slowest.get(0).getStatement());
+		assertEquals(62500, slowest.get(0).getMillis());
+		assertEquals(1, slowest.get(0).getLine());
+		assertEquals(1, slowest.get(0).getOrdinal());
+		assertEquals("commit;", slowest.get(1).getStatement());
+		assertEquals(10, slowest.get(1).getMillis());
+		assertEquals(8, slowest.get(1).getLine());
+	}
+
+	@Test
+	public void testFeedbackWithoutEcho() throws IOException {
+
+		StatementTimer timer = new StatementTimer(new ByteArrayOutputStream(), StandardCharsets.UTF_8);
+		timer.write(("Table created.\n\nElapsed: 01:00:00.00\n\nElapsed: 00:00:03.00\n").getBytes(StandardCharsets.UTF_8));
+		timer.close();
+
+		List<StatementTiming> slowest = timer.getSlowest();
+		assertEquals("Table created.", slowest.get(0).getStatement());
+		assertEquals(3600000, slowest.get(0).getMillis());
+		assertEquals(1, slowest.get(0).getLine());
+		assertEquals(null, slowest.get(1).getStatement());
+		assertEquals(5, slowest.get(1).getLine());
+	}
+
+	@Test
+	public void testLocalizedLabel() throws IOException {
+
+		StatementTimer timer = new StatementTimer(new ByteArrayOutputStream(), StandardCharsets.UTF_8);
+		timer.write(("Tabelle wurde erstellt.\n\nAbgelaufen: 00:00:02.50\n\nDecorrido: 00:00:01,25\n"
+				+ "Status: 00:00:09 done\nStarted: 12:30:45.12\nGestartet: 12:30:45,12\n").getBytes(StandardCharsets.UTF_8));
+		timer.close();
+
+		List<StatementTiming> slowest = timer.getSlowest();
+		assertEquals(2, slowest.size());
+		assertEquals("Tabelle wurde erstellt.", slowest.get(0).getStatement());
+		assertEquals(2500, slowest.get(0).getMillis());
+		assertEquals(1250, slowest.get(1).getMillis());
+	}
+
+	@Test
+	public void testDigestKeepsEveryStatement() throws IOException {
+
+		StatementTimer timer = new StatementTimer(new ByteArrayOutputStream(), StandardCharsets.UTF_8);
+		for (int i = 1; i <= StatementTimer.MAX_STATEMENTS + 20; i++) {
+			timer.write(String.format("%d row updated.%nElapsed: 00:00:00.%02d%n", i, i % 100).getBytes(StandardCharsets.UTF_8));
+		}
+		timer.close();
+
+		StatementDigest digest = timer.getDigest();
+		assertEquals(StatementTimer.MAX_STATEMENTS + 20, digest.size());
+		assertEquals(StatementDigest.hash("1 row updated."), digest.getHash(1));
+		assertEquals(10, digest.getMillis(1));
+		assertEquals(StatementDigest.hash("120 row updated."), digest.getHash(120));
+		assertEquals(200, digest.getMillis(120));
+	}
+
+	@Test
+	public void testAlignInserted() throws IOException {
+
+		StatementDigest previous = digest("a", "b", "c", "d");
+		StatementDigest current = digest("a", "b", "x", "y", "c", "d");
+
+		assertArrayEquals(new int[] { 1, 2, 0, 0, 3, 4 }, current.align(previous));
+		assertArrayEquals(new int[] { 1, 2, 5, 6 }, previous.align(current));
+	}
+
+	@Test
+	public void testAlignChanged() throws IOException {
+
+		StatementDigest previous = digest("a", "b", "c", "d", "e");
+		StatementDigest current = digest("x", "b", "d", "y", "e");
+
+		assertArrayEquals(new int[] { 0, 2, 4, 0, 5 }, current.align(previous));
+		assertArrayEquals(new int[0], digest().align(previous));
+		assertArrayEquals(new int[] { 0, 0 }, digest("x", "y").align(digest()));
+	}
+
+	@Test
+	public void testAlignTooDifferent() throws IOException {
+
+		String[] before = new String[StatementDigest.MAX_EDITS + 2];
+		String[] after = new String[StatementDigest.MAX_EDITS + 2];
+		for (int i = 0; i < before.length; i++) {
+			before[i] = "a" + i;
+			after[i] = "b" + i;
+		}
+		before[0] = after[0] = "first";
+		before[before.length - 1] = after[after.length - 1] = "last";
+
+		int[] aligned = digest(after).align(digest(before));
+		assertEquals(1, aligned[0]);
+		assertEquals(0, aligned[1]);
+		assertEquals(before.length, aligned[aligned.length - 1]);
+	}
+
+	static StatementDigest digest(String... statements) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		for (String statement : statements) {
+			StatementDigest.write(out, statement, statement.length());
+		}
+		out.flush();
+		return new StatementDigest(bytes.toByteArray());
+	}
+
+	@Test
+	public void testKeepsSlowest() throws IOException {
+
+		StatementTimer timer = new StatementTimer(new ByteArrayOutputStream(), StandardCharsets.UTF_8);
+		for (int i = 1; i <= StatementTimer.MAX_STATEMENTS * 3; i++) {
+			timer.write(String.format("Elapsed: 00:00:%02d.%02d%n", i / 100, i % 100).getBytes(StandardCharsets.UTF_8));
+		}
+		timer.close();
+
+		List<StatementTiming> slowest = timer.getSlowest();
+		assertEquals(StatementTimer.MAX_STATEMENTS * 3, timer.getCount());
+		assertEquals(StatementTimer.MAX_STATEMENTS, slowest.size());
+		assertEquals(3000, slowest.get(0).getMillis());
+		assertEquals(2010, slowest.get(StatementTimer.MAX_STATEMENTS - 1).getMillis());
+	}
+
+}
@@ -0,0 +1,98 @@
+package org.jenkinsci.plugins.sqlplus.script.runner.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import org.jenkinsci.plugins.sqlplus.script.runner.TimingHistory;
+import org.jenkinsci.plugins.sqlplus.script.runner.TimingTrendAction;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestTimingHistory {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testAppendAndRead() throws IOException {
+
+		File file = new File(folder.getRoot(), TimingHistory.FILE_NAME);
+		TimingHistory writer = new TimingHistory(file);
+		writer.append(new TimingHistory.Entry(1, 1000L, "deploy.sql", "ORCL", 1500, 0));
+		writer.append(new TimingHistory.Entry(2, 2000L, "deploy.sql", "ORCL", 1700, 0));
+		writer.append(new TimingHistory.Entry(2, 2000L, "deploy.sql", "TENANT01", 900, 3));
+
+		TimingHistory reader = new TimingHistory(file);
+		List<TimingHistory.Entry> entries = reader.getEntries();
+		assertEquals(3, entries.size());
+		assertEquals("TENANT01", entries.get(2).getInstance());
+		assertEquals(3, entries.get(2).getExitCode());
+		assertEquals(1700, entries.get(1).getMillis());
+
+		// only what was appended since is read
+		writer.append(new TimingHistory.Entry(3, 3000L, "userDefined", "local", 10, 0));
+		entries = reader.getEntries();
+		assertEquals(4, entries.size());
+		assertEquals("userDefined", entries.get(3).getScript());
+	}
+
+	@Test
+	public void testHalfWrittenRecord() throws IOException {
+
+		File file = new File(folder.getRoot(), TimingHistory.FILE_NAME);
+		new TimingHistory(file).append(new TimingHistory.Entry(1, 1000L, "deploy.sql", "ORCL", 1500, 0));
+		long length = file.length();
+		new TimingHistory(file).append(new TimingHistory.Entry(2, 2000L, "deploy.sql", "ORCL", 1600, 0));
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.setLength(length + 10);
+		}
+
+		TimingHistory history = new TimingHistory(file);
+		assertEquals(1, history.getEntries().size());
+		history.append(new TimingHistory.Entry(3, 3000L, "deploy.sql", "ORCL", 1700, 0));
+		List<TimingHistory.Entry> entries = new TimingHistory(file).getEntries();
+		assertEquals(2, entries.size());
+		assertEquals(3, entries.get(1).getBuild());
+	}
+
+	@Test
+	public void testBoundedTail() throws IOException {
+
+		File file = new File(folder.getRoot(), TimingHistory.FILE_NAME);
+		TimingHistory history = new TimingHistory(file);
+		for (int build = 1; build <= TimingHistory.MAX_ENTRIES + 5; build++) {
+			history.append(new TimingHistory.Entry(build, build, "deploy.sql", "ORCL", build, 0));
+		}
+
+		for (TimingHistory reader : new TimingHistory[] { history, new TimingHistory(file) }) {
+			List<TimingHistory.Entry> entries = reader.getEntries();
+			assertEquals(TimingHistory.MAX_ENTRIES, entries.size());
+			assertEquals(6, entries.get(0).getBuild());
+			assertEquals(TimingHistory.MAX_ENTRIES + 5, entries.get(entries.size() - 1).getBuild());
+		}
+	}
+
+	@Test
+	public void testTrend() throws IOException {
+
+		File file = new File(folder.getRoot(), TimingHistory.FILE_NAME);
+		TimingHistory history = new TimingHistory(file);
+		for (int build = 1; build <= TimingTrendAction.MAX_BUILDS + 10; build++) {
+			history.append(new TimingHistory.Entry(build, build, "a<b>.sql", "ORCL", build * 10, build % 7 == 0 ? 1 : 0));
+		}
+
+		String svg = TimingTrendAction.svg(history.getEntries());
+		assertTrue(svg.startsWith("<svg"));
+		assertTrue(svg.contains("#11"));
+		assertTrue(!svg.contains("#10 "));
+		assertTrue(svg.contains("a&lt;b&gt;.sql@ORCL"));
+		assertEquals("", TimingTrendAction.svg(new TimingHistory(new File(folder.getRoot(), "none")).getEntries()));
+	}
+
+}
@@ -0,0 +1,50 @@
+package org.jenkinsci.plugins.sqlplus.script.runner.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.jenkinsci.plugins.sqlplus.script.runner.Watchdog;
+import org.junit.Test;
+
+public class TestWatchdog {
+
+	private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+
+	@Test
+	public void testTimeout() {
+
+		Watchdog watchdog = new Watchdog(new ByteArrayOutputStream(), 30, 0);
+		long now = System.currentTimeMillis();
+
+		assertNull(watchdog.check(now + 29 * MINUTE));
+		assertEquals(Watchdog.Reason.TIMEOUT, watchdog.check(now + 31 * MINUTE));
+	}
+
+	@Test
+	public void testInactivity() throws IOException {
+
+		ByteArrayOutputStream log = new ByteArrayOutputStream();
+		Watchdog watchdog = new Watchdog(log, 0, 5);
+		long now = System.currentTimeMillis();
+
+		assertNull(watchdog.check(now + 4 * MINUTE));
+		watchdog.write("Table created.\n".getBytes());
+		assertEquals("Table created.\n", log.toString());
+		assertEquals(Watchdog.Reason.INACTIVITY, watchdog.check(System.currentTimeMillis() + 6 * MINUTE));
+		// the first reason found is kept
+		assertEquals(Watchdog.Reason.INACTIVITY, watchdog.getExpired());
+	}
+
+	@Test
+	public void testDisabled() {
+
+		assertFalse(Watchdog.isEnabled(0, 0));
+		assertNull(new Watchdog(new ByteArrayOutputStream(), 0, 0).check(System.currentTimeMillis() + 1000 * MINUTE));
+	}
+
+}